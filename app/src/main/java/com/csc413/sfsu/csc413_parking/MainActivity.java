@@ -17,6 +17,12 @@ import android.location.LocationManager;
 
 import com.csc413.sfsu.sfpark_locationdata.ParkingLocation;
 import com.csc413.sfsu.sfpark_locationdata.SFParkLocationFactory;
+import com.csc413.sfsu.sf_vehicle_crime.TheftIndex;
+import com.csc413.sfsu.sfpark_simplified.DiskCache;
+import com.csc413.sfsu.sfpark_simplified.RATESElement;
+import com.csc413.sfsu.sfpark_simplified.RSElement;
+import com.csc413.sfsu.sfpark_simplified.RequestExecutor;
+import com.csc413.sfsu.sfpark_simplified.ResponseCallback;
 import com.csc413.sfsu.sfpark_simplified.SFParkLocation;
 import com.google.android.gms.maps.CameraUpdate;
 import com.google.android.gms.maps.CameraUpdateFactory;
@@ -46,9 +52,12 @@ import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Author: Luis Estrada + UI Team (Jonathan Raxa & Ishwari)
@@ -62,6 +71,8 @@ public class MainActivity extends ActionBarActivity implements
 
     private GoogleMap theMap;
     private SFParkLocationFactory locationFactory;
+    private Future<List<ParkingLocation>> pendingSearch; // parking search still in flight, if any
+    private Future<RATESElement> pendingRates; // rates of the selected location still in flight, if any
     private List<ParkingLocation> parkingList = new ArrayList<ParkingLocation>();
     private List<ParkingLocation> udlList;
 
@@ -138,6 +149,16 @@ public class MainActivity extends ActionBarActivity implements
 
         // coordinates: N, E are +, S, W are -
         origin = new LatLng(37.7833, -122.4167);
+        final File responses = new File(getCacheDir(), "responses");
+        final File theftDensity = new File(getFilesDir(), "theft-density.bin");
+        RequestExecutor.submit(new Callable<Void>() { // both list or read files, so run off the UI thread
+            @Override
+            public Void call() {
+                DiskCache.install(responses, 4 * 1024 * 1024); // serve repeat searches from storage
+                TheftIndex.install(theftDensity); // theft counts without waiting for a load
+                return null;
+            }
+        });
         locationFactory = new SFParkLocationFactory(this);
         udlList = locationFactory.getUserDefinedLocations();
 
@@ -151,6 +172,84 @@ public class MainActivity extends ActionBarActivity implements
         Toast.makeText(this, s, Toast.LENGTH_SHORT).show();
     }
 
+    /**
+     * Places a marker for each location of the parking list around the dragged user marker
+     * @param marker the user marker that was dragged
+     */
+    private void showParkingLocations(Marker marker) {
+        toast("PARKING LIST SIZE: " + parkingList.size()); // # of parking locations around origin
+
+        if (parkingList.size() != 0) {
+
+            theMap.clear();
+
+            // clear the marker references before we add more, because the parkingList index resets to 0 when creating new markers
+            if (!userMarkers.isEmpty()) {
+                userMarkers.clear();
+            }
+
+            // set new userMarker at location where marker was dragged
+            userMarker = theMap.addMarker(new MarkerOptions()
+                    .position(marker.getPosition())
+                    .title("User Location")
+                    .snippet("Location: lat/lng: (" + lat + "," + lng + ")")
+                    .draggable(true));
+
+            if (parked) {
+                parkedLocation = theMap.addMarker(new MarkerOptions()
+                        .position(marker.getPosition())
+                        .title("Parked location")
+                        .snippet("Location: lat/lng: (" + lat + "," + lng + ")"));
+            }
+
+            // move camera to marker
+//                            CameraUpdate update = CameraUpdateFactory.newLatLngZoom(newll, 14);
+//                            theMap.moveCamera(update);
+//                            theMap.animateCamera(CameraUpdateFactory.newLatLng(newll), 3000, null);
+
+        }
+
+        if (parkingList.size() != 0) {
+
+            for (int i = 0; i < parkingList.size(); i++) {
+
+                // add markers to map whose indexes align with each parking location
+                userMarkers.add(
+                        theMap.addMarker(new MarkerOptions()
+                                        .position(parkingList.get(i).getCoords())
+                                        .title(parkingList.get(i).getName())
+                                        .icon(BitmapDescriptorFactory.fromResource(R.drawable.parking))
+                                //.snippet("Parking location: " + i + "\n" + parkingList.get(i).toString())
+                        ));
+
+//                                // change marker & snippet if theft probability is high
+                if (parkingList.get(i).getTheftProbability() > 1) {
+                    userMarkers.get(i).setSnippet("Parking location: " + i + "\n" + parkingList.get(i).toString()
+                            + "\nWARNING: You may likely be robbed");
+                    userMarkers.get(i).setIcon(BitmapDescriptorFactory.fromResource(R.drawable.crossbones));
+                } else {
+                    userMarkers.get(i).setSnippet("Parking location: " + i + "\n" + parkingList.get(i).toString());
+                }
+
+                // change marker if favorite
+                if (parkingList.get(i).isFavorite()) {
+                    userMarkers.get(i).setIcon(BitmapDescriptorFactory.fromResource(R.drawable.star));
+                }
+
+                // change marker if user defined location
+                if (parkingList.get(i).isUserDefined()) {
+                    userMarkers.get(i).setIcon(BitmapDescriptorFactory.fromResource(R.drawable.car));
+                }
+
+                // change marker if previously parked location
+                if (parkingList.get(i).getParkedHere()) {
+                    userMarkers.get(i).setIcon(BitmapDescriptorFactory.fromResource(R.drawable.parked));
+                }
+            } // end for
+
+        } // end if
+    }
+
     /**
      * Gets current location & sets marker
      */
@@ -190,7 +289,7 @@ public class MainActivity extends ActionBarActivity implements
                     }
 
                     @Override
-                    public void onMarkerDragEnd(Marker marker) {
+                    public void onMarkerDragEnd(final Marker marker) {
                         Geocoder gc = new Geocoder(MainActivity.this);
                         List<Address> list = null;
                         newll = marker.getPosition(); // lat,lng where marker is dragged to
@@ -205,79 +304,25 @@ public class MainActivity extends ActionBarActivity implements
                         origin = new LatLng(newll.latitude, newll.longitude); // origin of parkingList = where marker is dragged to
                         double radius = .15;
 
-                        parkingList = locationFactory.getParkingLocations(origin, radius);
-
-                        toast("PARKING LIST SIZE: " + parkingList.size()); // # of parking locations around origin
-
-                        if (parkingList.size() != 0) {
-
-                            theMap.clear();
-
-                            // clear the marker references before we add more, because the parkingList index resets to 0 when creating new markers
-                            if (!userMarkers.isEmpty()) {
-                                userMarkers.clear();
-                            }
-
-                            // set new userMarker at location where marker was dragged
-                            userMarker = theMap.addMarker(new MarkerOptions()
-                                    .position(marker.getPosition())
-                                    .title("User Location")
-                                    .snippet("Location: lat/lng: (" + lat + "," + lng + ")")
-                                    .draggable(true));
-
-                            if (parked) {
-                                parkedLocation = theMap.addMarker(new MarkerOptions()
-                                        .position(marker.getPosition())
-                                        .title("Parked location")
-                                        .snippet("Location: lat/lng: (" + lat + "," + lng + ")"));
-                            }
-
-                            // move camera to marker
-//                            CameraUpdate update = CameraUpdateFactory.newLatLngZoom(newll, 14);
-//                            theMap.moveCamera(update);
-//                            theMap.animateCamera(CameraUpdateFactory.newLatLng(newll), 3000, null);
-
+                        // a newer drag supersedes any search still in flight
+                        if (pendingSearch != null) {
+                            pendingSearch.cancel(true);
                         }
-
-                        if (parkingList.size() != 0) {
-
-                            for (int i = 0; i < parkingList.size(); i++) {
-
-                                // add markers to map whose indexes align with each parking location
-                                userMarkers.add(
-                                        theMap.addMarker(new MarkerOptions()
-                                                        .position(parkingList.get(i).getCoords())
-                                                        .title(parkingList.get(i).getName())
-                                                        .icon(BitmapDescriptorFactory.fromResource(R.drawable.parking))
-                                                //.snippet("Parking location: " + i + "\n" + parkingList.get(i).toString())
-                                        ));
-
-//                                // change marker & snippet if theft probability is high
-                                if (parkingList.get(i).getTheftProbability() > 1) {
-                                    userMarkers.get(i).setSnippet("Parking location: " + i + "\n" + parkingList.get(i).toString()
-                                            + "\nWARNING: You may likely be robbed");
-                                    userMarkers.get(i).setIcon(BitmapDescriptorFactory.fromResource(R.drawable.crossbones));
-                                } else {
-                                    userMarkers.get(i).setSnippet("Parking location: " + i + "\n" + parkingList.get(i).toString());
-                                }
-
-                                // change marker if favorite
-                                if (parkingList.get(i).isFavorite()) {
-                                    userMarkers.get(i).setIcon(BitmapDescriptorFactory.fromResource(R.drawable.star));
-                                }
-
-                                // change marker if user defined location
-                                if (parkingList.get(i).isUserDefined()) {
-                                    userMarkers.get(i).setIcon(BitmapDescriptorFactory.fromResource(R.drawable.car));
-                                }
-
-                                // change marker if previously parked location
-                                if (parkingList.get(i).getParkedHere()) {
-                                    userMarkers.get(i).setIcon(BitmapDescriptorFactory.fromResource(R.drawable.parked));
-                                }
-                            } // end for
-
-                        } // end if
+                        pendingSearch = locationFactory.getParkingLocationsAsync(origin, radius,
+                                new ResponseCallback<List<ParkingLocation>>() {
+                                    @Override
+                                    public void onSuccess(List<ParkingLocation> result) {
+                                        pendingSearch = null;
+                                        parkingList = result;
+                                        showParkingLocations(marker);
+                                    }
+
+                                    @Override
+                                    public void onFailure(String status) {
+                                        pendingSearch = null;
+                                        toast("Parking search failed: " + status);
+                                    }
+                                });
 
                         // when dragging marker, set new title & snippet
                         Address add = list.get(0);
@@ -352,6 +397,9 @@ public class MainActivity extends ActionBarActivity implements
         if (userMarkers.contains(marker)) {
             isSFParkLocation = true;
             parkingSpot = userMarkers.indexOf(marker); // saves which marker pertains to which parking location
+            if (parkingSpot < parkingList.size()) {
+                showRates(marker, parkingList.get(parkingSpot));
+            }
         } else {
             isSFParkLocation = false;
         }
@@ -369,6 +417,47 @@ public class MainActivity extends ActionBarActivity implements
     }
 
 
+    /**
+     * Fetches the rates of a selected parking location, which searches leave out, and adds them to
+     * its marker's snippet once they arrive
+     *
+     * @param marker - the selected marker
+     * @param location - the parking location of the marker
+     */
+    private void showRates(final Marker marker, ParkingLocation location) {
+        if (marker.getSnippet() != null && marker.getSnippet().contains("\nRates:")) {
+            return; // already shown
+        }
+        // a newer selection supersedes any rates still in flight
+        if (pendingRates != null) {
+            pendingRates.cancel(true);
+        }
+        pendingRates = locationFactory.getRatesAsync(location, new ResponseCallback<RATESElement>() {
+            @Override
+            public void onSuccess(RATESElement rates) {
+                pendingRates = null;
+                if (rates == null || rates.numSchedules() == 0) {
+                    return;
+                }
+                StringBuilder snippet = new StringBuilder(marker.getSnippet()).append("\nRates:");
+                for (int i = 0; i < rates.numSchedules(); i++) {
+                    RSElement rs = rates.rs(i);
+                    snippet.append("\n  ").append(rs.beg()).append(" - ").append(rs.end())
+                            .append(": ").append(rs.rate());
+                }
+                marker.setSnippet(snippet.toString());
+                if (marker.isInfoWindowShown()) {
+                    marker.showInfoWindow(); // redraw with the rates
+                }
+            }
+
+            @Override
+            public void onFailure(String status) {
+                pendingRates = null;
+            }
+        });
+    }
+
     /**
      * A custom info window that can expand or contract depending on
      * how much information is put in
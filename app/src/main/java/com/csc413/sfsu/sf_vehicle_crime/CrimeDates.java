@@ -0,0 +1,168 @@
+package com.csc413.sfsu.sf_vehicle_crime;
+
+/** The CrimeDates class converts the dates of crime reports to and from epoch days, the number of days since
+ * January 1, 1970, in which reports are stored and compared.
+ *
+ * Dates are decoded in a single pass over the characters of the report's date, without allocating: the
+ * SFCrimespotting date format is as follows: [DAY OF WEEK], [FIRST 3 LETTERS OF MONTH] [DAY OF MONTH, NO LEADING ZERO],
+ * [YEAR], e.g. "Sat, Dec 27, 2014". The conversions between calendar dates and epoch days are those of the proleptic
+ * Gregorian calendar, computed arithmetically.
+ *
+ * @version     %I%, %G%
+ */
+final class CrimeDates {
+    /** Returned by decode for a date which could not be decoded */
+    static final int INVALID = Integer.MIN_VALUE;
+
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** Constructor is private; this class only holds static members. */
+    private CrimeDates () {}
+
+    /** Returns the number of a month from the first three letters of its name.
+     *
+     * @return  the number of the month, from 1 to 12, or 0 if the letters name no month
+     */
+    private static int month (char a, char b, char c) {
+        switch (a) {
+            case 'J':
+                return b == 'a' ? 1 : (c == 'n' ? 6 : (c == 'l' ? 7 : 0));
+            case 'F':
+                return 2;
+            case 'M':
+                return c == 'r' ? 3 : (c == 'y' ? 5 : 0);
+            case 'A':
+                return b == 'p' ? 4 : (b == 'u' ? 8 : 0);
+            case 'S':
+                return 9;
+            case 'O':
+                return 10;
+            case 'N':
+                return 11;
+            case 'D':
+                return 12;
+            default:
+                return 0;
+        }
+    }
+
+    /** Decodes a date in the SFCrimespotting format.
+     *
+     * @param   date    a String with a date in the SFCrimespotting format
+     * @return  the epoch day of the date, or INVALID if it could not be decoded
+     */
+    static int decode (String date) {
+        int length = date.length();
+        int i = date.indexOf(',');
+        if (i < 0)
+            return INVALID;
+        // Skip the day of the week and the spaces following it
+        i++;
+        while (i < length && date.charAt(i) == ' ')
+            i++;
+        if (i + 3 > length)
+            return INVALID;
+        int month = month(date.charAt(i), date.charAt(i + 1), date.charAt(i + 2));
+        if (month == 0)
+            return INVALID;
+        // Skip the rest of the name of the month, then read the day and the year
+        while (i < length && Character.isLetter(date.charAt(i)))
+            i++;
+        int day = 0, year = 0, digits = 0;
+        boolean inYear = false;
+        for (; i < length; i++) {
+            char ch = date.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                if (inYear)
+                    year = year * 10 + (ch - '0');
+                else
+                    day = day * 10 + (ch - '0');
+                digits++;
+            } else if (ch == ',' && !inYear && digits > 0) {
+                inYear = true;
+                digits = 0;
+            } else if (ch != ' ') {
+                return INVALID;
+            }
+        }
+        if (!inYear || digits != 4 || day < 1 || day > 31)
+            return INVALID;
+        return epochDay(year, month, day);
+    }
+
+    /** Returns the epoch day of a calendar date.
+     *
+     * @param   year    the year
+     * @param   month   the month, from 1 to 12
+     * @param   day     the day of the month, from 1
+     * @return  the number of days from January 1, 1970 to the date
+     */
+    static int epochDay (int year, int month, int day) {
+        // Count from March 1 so that the leap day falls at the end of the year
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /** Returns the year of an epoch day.
+     *
+     * @param   epochDay    the number of days since January 1, 1970
+     * @return  the year
+     */
+    static int year (int epochDay) {
+        return civil(epochDay) / 10000;
+    }
+
+    /** Returns the month of an epoch day.
+     *
+     * @param   epochDay    the number of days since January 1, 1970
+     * @return  the number of months from January 1970 to the month of the day
+     */
+    static int epochMonth (int epochDay) {
+        int civil = civil(epochDay);
+        return (civil / 10000 - 1970) * 12 + civil / 100 % 100 - 1;
+    }
+
+    /** Returns the calendar date of an epoch day as a single number.
+     *
+     * @param   epochDay    the number of days since January 1, 1970
+     * @return  the date as year * 10000 + month * 100 + day
+     */
+    static int civil (int epochDay) {
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    /** Formats an epoch day.
+     *
+     * @param   epochDay    the number of days since January 1, 1970
+     * @return  a String with the date in the form [YEAR]-[MONTH]-[DAY] with leading zeros
+     */
+    static String format (int epochDay) {
+        int civil = civil(epochDay);
+        int year = civil / 10000, month = civil / 100 % 100, day = civil % 100;
+        char [] chars = new char[10];
+        chars[0] = (char)('0' + year / 1000 % 10);
+        chars[1] = (char)('0' + year / 100 % 10);
+        chars[2] = (char)('0' + year / 10 % 10);
+        chars[3] = (char)('0' + year % 10);
+        chars[4] = '-';
+        chars[5] = (char)('0' + month / 10);
+        chars[6] = (char)('0' + month % 10);
+        chars[7] = '-';
+        chars[8] = (char)('0' + day / 10);
+        chars[9] = (char)('0' + day % 10);
+        return new String(chars);
+    }
+}
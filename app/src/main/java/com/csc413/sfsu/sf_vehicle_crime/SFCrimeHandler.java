@@ -1,7 +1,13 @@
 package com.csc413.sfsu.sf_vehicle_crime;
 
+import com.csc413.sfsu.sfpark_simplified.RequestExecutor;
+import com.csc413.sfsu.sfpark_simplified.RequestFailedException;
+import com.csc413.sfsu.sfpark_simplified.ResponseCallback;
 import com.google.android.gms.maps.model.LatLng;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
 /** The SFCrimeHandler class allows the user to pass queries to the San Francisco Crimespotters database and retrieve the
  * resulting data by abstracting the SFCrimeQuery and SFCrimeXMLResponse classes to provide a simplified interface.
 */
@@ -30,12 +36,61 @@ public class SFCrimeHandler {
      * @return  true if reports generated successfully, false otherwise
     */
     public boolean generateReports (LatLng origin, double radius, int startYear, int count, int offset) {
-        SFCrimeQuery query = new SFCrimeQuery();
-        query.setBoundingBox(origin, radius);
-        query.setStartYear(startYear);
-        query.setCount(count);
-        query.setOffset(offset);
-        return (responsePopulated = response.populate(query));
+        SFCrimeQuery.Builder builder = new SFCrimeQuery.Builder();
+        builder.setBoundingBox(origin, radius);
+        builder.setStartYear(startYear);
+        builder.setCount(count);
+        builder.setOffset(offset);
+        return (responsePopulated = response.populate(builder.build()));
+    }
+
+    /** Generates a list of every crime report in an area, which may be subsequently accessed by the date(int) and
+     * location(int) methods. Unlike generateReports, the number of reports is not capped by a count: they are retrieved
+     * in pages, several at once, until the last page comes back short. An area with fewer reports than a page costs a
+     * single query.
+     *
+     * @param   origin      a LatLng object denoting the origin of the query;
+     *                      query bounds default to all of San Francisco if set to null
+     * @param   radius      the radius from the origin from which to retrieve reports, in miles;
+     *                      query bounds default to all of San Francisco if set to less than or equal to 0,
+     *                      or greater than or equal to bounds of San Francisco
+     * @param   startYear   the year from which to start returning reports;
+     *                      defaults to one year prior if set to less than 0 or greater than 9999
+     * @return  true if every page of reports was generated successfully, false otherwise
+     * @see     com.csc413.sfsu.sf_vehicle_crime.SFCrimeHandler#generateReports(LatLng, double, int, int, int)
+     */
+    public boolean generateAllReports (LatLng origin, double radius, int startYear) {
+        SFCrimeQuery.Builder builder = new SFCrimeQuery.Builder();
+        builder.setBoundingBox(origin, radius);
+        builder.setStartYear(startYear);
+        return (responsePopulated = response.populateAll(builder.build()));
+    }
+
+    /** Generates a list of crime reports in the background without blocking the calling thread.
+     * The query runs on the RequestExecutor; once it completes, this handler is delivered to
+     * {@code callback.onSuccess} on the main thread, or the status of the query to {@code callback.onFailure}.
+     * The reports must not be accessed until the callback has been called.
+     *
+     * @param   origin      a LatLng object denoting the origin of the query
+     * @param   radius      the radius from the origin from which to retrieve reports, in miles
+     * @param   startYear   the year from which to start returning reports
+     * @param   count       the number of reports to return
+     * @param   offset      the offset from the beginning of the report list from which to begin returning data
+     * @param   callback    the ResponseCallback to receive the outcome of the query
+     * @return  a Future which may be used to cancel the query; once cancelled, the callback is not called
+     * @see     com.csc413.sfsu.sf_vehicle_crime.SFCrimeHandler#generateReports(LatLng, double, int, int, int)
+     */
+    public Future<SFCrimeHandler> generateReportsAsync (final LatLng origin, final double radius, final int startYear,
+                                                        final int count, final int offset,
+                                                        ResponseCallback<SFCrimeHandler> callback) {
+        return RequestExecutor.submit(new Callable<SFCrimeHandler>() {
+            @Override
+            public SFCrimeHandler call () throws RequestFailedException {
+                if (!generateReports(origin, radius, startYear, count, offset))
+                    throw new RequestFailedException(status());
+                return SFCrimeHandler.this;
+            }
+        }, callback);
     }
 
     /** Returns the date of the report at the specified index.
@@ -51,6 +106,45 @@ public class SFCrimeHandler {
         return response.date(index);
     }
 
+    /** Returns the date of the report at the specified index as an epoch day, which may be compared and subtracted
+     * without parsing.
+     *
+     * @param   index   index of report
+     * @return  the number of days from January 1, 1970 to the date of the report
+     * @throws  java.lang.IndexOutOfBoundsException if the index is less than 0 or greater than the number of reports generated
+     * @throws  com.csc413.sfsu.sf_vehicle_crime.EmptyResponseException if the response has not been populated
+     */
+    public int epochDay (int index) throws EmptyResponseException {
+        if (!responsePopulated)
+            throw new EmptyResponseException();
+        return response.epochDay(index);
+    }
+
+    /** Counts the reports which occurred within a period.
+     *
+     * @param   fromDay     the first day of the period, as an epoch day
+     * @param   toDay       the last day of the period, as an epoch day
+     * @return  the number of reports from fromDay to toDay inclusive
+     * @throws  com.csc413.sfsu.sf_vehicle_crime.EmptyResponseException if the response has not been populated
+     * @see     com.csc413.sfsu.sf_vehicle_crime.SFCrimeHandler#epochDay(int, int, int)
+     */
+    public int countBetween (int fromDay, int toDay) throws EmptyResponseException {
+        if (!responsePopulated)
+            throw new EmptyResponseException();
+        return response.countBetween(fromDay, toDay);
+    }
+
+    /** Returns the epoch day of a calendar date, for use with countBetween.
+     *
+     * @param   year    the year
+     * @param   month   the month, from 1 to 12
+     * @param   day     the day of the month, from 1
+     * @return  the number of days from January 1, 1970 to the date
+     */
+    public static int epochDay (int year, int month, int day) {
+        return CrimeDates.epochDay(year, month, day);
+    }
+
     /** Returns the location of the report at the specified index.
      *
      * @param   index   index of report
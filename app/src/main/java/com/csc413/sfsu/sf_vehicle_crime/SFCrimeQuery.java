@@ -1,14 +1,18 @@
 package com.csc413.sfsu.sf_vehicle_crime;
 
-import com.csc413.sfsu.sfpark_simplified.Tuple;
+import com.csc413.sfsu.sfpark_simplified.Endpoints;
+import com.csc413.sfsu.sfpark_simplified.QueryFormat;
 
 import java.util.Calendar;
-import java.util.LinkedList;
 import com.google.android.gms.maps.model.LatLng;
 
-/** The SFCrimeQuery class allows a simplified way of constructing and modifying a query to the San Francisco Crimespotters database.
- * The query is in the form of a URL, but the class abstracts this and simply allows the user to insert or delete parameters
- * after initialization. Any instantiated object of this class may be returned as a String representation of the query.
+/** The SFCrimeQuery class allows a simplified way of constructing a query to the San Francisco Crimespotters database.
+ * The query is in the form of a URL, but the class abstracts this: parameters are set on an SFCrimeQuery.Builder, whose
+ * build method returns an immutable query. Any instantiated object of this class may be returned as a String
+ * representation of the query.
+ *
+ * As with SFParkQuery, the URL is built once, with its parameters in the order of their names and the coordinates of
+ * the bounding box rounded to seven decimal places, so that equal queries have equal URLs.
  *
  * NOTES: This class attempts to encapsulate the greater part of San Francisco. However, due to differences in the way that
  * the SF Park Availability API and San Francisco Crimespotters API handle search radii, the SFCrimeQuery class attempts to
@@ -33,8 +37,8 @@ import com.google.android.gms.maps.model.LatLng;
  *
  *  - Vehicle theft crimes
  *  - A maximum bounding box to include San Francisco's borders
- *  - Specifying start dates by year only, with month and day hard coded to January 1st
- *  - Ending dates as the default value of "present"
+ *  - Specifying start dates by year, with month and day hard coded to January 1st, or a range of dates by day
+ *  - Ending dates as the default value of "present", unless a range of dates is set
  *  - Return format as XML only
  *  - Specifying the report count (i.e. number of reports to return)
  *  - Specifying the report offset
@@ -45,28 +49,25 @@ import com.google.android.gms.maps.model.LatLng;
  * @version     %I%, %G%
  */
 class SFCrimeQuery {
-    /** Endpoint for San Francisco Crimespotting API */
-    private static final String ENDPOINT = "http://sanfrancisco.crimespotting.org/crime-data";
-    /** Query parameter to return reports in XML format */
-    private static final String FORMAT_XML = "format=xml";
-    /** Query parameter to return only reports involving vehicle theft */
-    private static final String TYPE_VEHICLE_THEFT = "type=vehicle_theft";
+    /** Slots of the parameters, in canonical order */
+    private static final int BBOX = 0, COUNT = 1, DEND = 2, DSTART = 3, FORMAT = 4, OFFSET = 5, TYPE = 6;
+    /** Names of the parameters, by slot */
+    private static final String [] NAMES = {"bbox", "count", "dend", "dstart", "format", "offset", "type"};
+    /** The number of decimal places to which the coordinates of the bounding box are rounded */
+    private static final int DECIMALS = 7;
 
     /** Query parameter to return reports from January 1 of one year prior */
     private static final String START_DATE = (Calendar.getInstance().get(Calendar.YEAR) - 1) + "-01-01";
     /** Approximate westernmost boundary of San Francisco */
-    private static final double BOUNDARY_WEST = -122.5125409;
+    static final double BOUNDARY_WEST = -122.5125409;
     /** Approximate southernmost boundary of San Francisco */
-    private static final double BOUNDARY_SOUTH = 37.7081192;
+    static final double BOUNDARY_SOUTH = 37.7081192;
     /** Approximate easternmost boundary of San Francisco */
-    private static final double BOUNDARY_EAST = -122.3570298;
+    static final double BOUNDARY_EAST = -122.3570298;
     /** Approximate northernmost boundary of San Francisco */
-    private static final double BOUNDARY_NORTH = 37.8108924;
+    static final double BOUNDARY_NORTH = 37.8108924;
     /** Query parameter to set the bounding box to include all of San Francisco */
-    private static final String SF_BOUNDARIES = BOUNDARY_WEST + "," + BOUNDARY_SOUTH + "," + BOUNDARY_EAST + "," + BOUNDARY_NORTH;
-
-    /** Default query passed to the SFCrimespotters database */
-    private static final String BASE_QUERY = ENDPOINT + "?" + FORMAT_XML + "&" + TYPE_VEHICLE_THEFT + "&";
+    private static final String SF_BOUNDARIES = boundingBox(BOUNDARY_WEST, BOUNDARY_SOUTH, BOUNDARY_EAST, BOUNDARY_NORTH);
 
     /** Approximate number of miles per degree latitude in San Francisco */
     private static final double MILES_PER_LAT_DEGREE = 68.94;
@@ -77,221 +78,201 @@ class SFCrimeQuery {
     /** Approximate number of degree longitude per mile in San Francisco */
     private static final double LONG_DEGREES_PER_MILE = 1 / MILES_PER_LONG_DEGREE;
 
+    /** The values of the parameters, by slot; null if a parameter is not set */
+    private final String [] values;
     /** Holds the query value */
-    private String query;
-    /** Stores the parameters to be passed in the query */
-    private LinkedList<Tuple<String, String>> params;
+    private final String query;
 
-    /** Updates the value of the query to commit any changes made to the parameters since the last update.
-     */
-    private void updateQuery() {
-        query = BASE_QUERY;
-        for (int i = 0; i < params.size(); i++) {
-            query += params.get(i).first() + "=" + params.get(i).last();
-            if (i < params.size() - 1)
-                query += "&";
-        }
-    }
-
-    /** Indicates whether a parameter exists in the query.
-     * The parameter list is searched using a key in the form of a parameter name,
-     * which is matched against parameter names in the parameter list.
+    /** Returns the value of the bbox parameter for a bounding box.
      *
-     * @param   key a String representing a parameter name as a search criteria
-     * @return  true if a match to the key is found, false otherwise
+     * @return  the coordinates of the box in canonical form, separated by commas
      */
-    private boolean contains(String key) {
-        return getIndexByKey(key) > -1;
+    private static String boundingBox (double west, double south, double east, double north) {
+        StringBuilder sb = new StringBuilder(48);
+        QueryFormat.appendDecimal(sb, west, DECIMALS).append(',');
+        QueryFormat.appendDecimal(sb, south, DECIMALS).append(',');
+        QueryFormat.appendDecimal(sb, east, DECIMALS).append(',');
+        return QueryFormat.appendDecimal(sb, north, DECIMALS).toString();
     }
 
-    /** Returns the value of an existing parameter.
+    /**
+     * Constructor.
      *
-     * @param   param   a String containing the parameter name
-     * @return  a String containing the value of the parameter if found, or an empty String otherwise
+     * @param   values  the values of the parameters, by slot; not copied
      */
-    private String getValue (String param) {
-        if (contains(param)) {
-            for (Tuple t : params) {
-                if (t.first().equals((String)param))
-                    return (String)t.last();
-            }
+    private SFCrimeQuery (String [] values) {
+        this.values = values;
+        String endpoint = Endpoints.crimespotting();
+        StringBuilder sb = new StringBuilder(endpoint.length() + 128).append(endpoint).append('?');
+        boolean first = true;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null)
+                continue;
+            if (!first)
+                sb.append('&');
+            sb.append(NAMES[i]).append('=').append(values[i]);
+            first = false;
         }
-        return "";
+        query = sb.toString();
     }
 
-    /** Appends a new parameter to the query.
-     * Since a query cannot contain more than instance of any parameter, only
-     * unique parameters - determined by the parameter name - may be added; duplicate parameters will be ignored.
-     * To update an existing parameter's value, call either the updateParameter or addOrUpdateParameter method.
-     *
-     * @param   key     the name of the parameter to add
-     * @param   value   the value of the parameter to add
-     * @return          true if the parameter was added successfully, false otherwise
+    /** The SFCrimeQuery.Builder class collects the parameters of a query, each in a fixed slot.
+     * A new builder is set to return vehicle thefts in XML format from all of San Francisco since January 1 of one
+     * year prior.
      */
-    private boolean addParameter(String key, String value) {
-        if (!contains(key)) {
-            params.add(new Tuple<String, String>(key, value));
-            updateQuery();
-            return true;
+    static final class Builder {
+        /** The values of the parameters, by slot; null if a parameter is not set */
+        private final String [] values = new String[NAMES.length];
+
+        /**
+         * Constructor.
+         */
+        Builder () {
+            values[FORMAT] = "xml";
+            values[TYPE] = "vehicle_theft";
+            values[DSTART] = START_DATE;
+            values[BBOX] = SF_BOUNDARIES;
         }
-        return false;
-    }
 
-    /** Updates the value of an existing parameter in the query.
-     * Non-existing parameters will be ignored.
-     * To update a parameter if it exists or add it as new if it doesn't exist,
-     * call the addOrUpdateParameter method.
-     *
-     * @param   key     the name of the parameter to update
-     * @param   value   the value of the parameter to update
-     * @return          true if the parameter was updated successfully, false otherwise
-     */
-    private boolean updateParameter(String key, String value) {
-        int index;
-        if ((index = getIndexByKey(key)) > -1) {
-            params.get(index).setLast(value);
-            updateQuery();
-            return true;
+        /**
+         * Constructor.
+         * Initializes a builder with the parameters of an existing query.
+         *
+         * @param   query   the query whose parameters to start from
+         */
+        Builder (SFCrimeQuery query) {
+            System.arraycopy(query.values, 0, values, 0, values.length);
         }
-        return false;
-    }
 
-    /** Updates a parameter if it exists in the query, or adds it as a new parameter otherwise.
-     * To add a non-existing parameter only, call the addParameter method.
-     * To update an existing parameter only, call the updateParameter method.
-     *
-     * @param   key     the name of the parameter to update or add
-     * @param   value   the value of the parameter to update or add
-     * @return          'u' if the parameter was updated
-     *                  'a' if the parameter was added
-     */
-    private boolean addOrUpdateParameter(String key, String value) {
-        if (contains(key))
-            return updateParameter(key, value);
-        else
-            return addParameter(key, value);
-    }
+        /** Builds an immutable query from the parameters set so far.
+         *
+         * @return  an SFCrimeQuery holding the parameters set so far
+         */
+        SFCrimeQuery build () {
+            return new SFCrimeQuery(values.clone());
+        }
 
-    /** Removes a parameter from the query, if it exists.
-     *
-     * @param   key     the name of the parameter to remove
-     * @return  true if the parameter existed and was successfully removed, false otherwise
-     */
-    private boolean removeParameter(String key) {
-        int index;
-        if ((index = getIndexByKey(key)) > -1) {
-            params.remove(index);
-            updateQuery();
-            return true;
+        /**
+         * Sets the value for the number of reports to return.
+         * Records returned start from the most recent report plus the offset.
+         *
+         * - Default value if none specified: 20
+         * - Allowed values: any value between 1 and 10000 inclusive
+         *
+         * @param count a new value for the report count
+         * @return true if the new value was set successfully, false otherwise
+         */
+        public boolean setCount(int count) {
+            if (count > 0 && count <= 10000) {
+                values[COUNT] = Integer.toString(count);
+                return true;
+            }
+            return false;
         }
-        return false;
-    }
 
-    /** Returns the index in the parameter list of the item whose name matches the key.
-     *
-     * @param   key     the name of the parameter to search against
-     * @return  the index of the item if found, or -1 otherwise
-    */
-    private int getIndexByKey(String key) {
-        for (int i = 0; i < params.size(); i++) {
-            if (params.get(i).first().equals(key))
-                return i;
+        /**
+         * Sets the value for the starting point of the reports to be returned.
+         * By default, a query returns the [count] most recent reports; the offset denotes how far down the complete
+         * list of reports from which to begin creating the list of returned items.
+         *
+         * - Default value if none specified: 0
+         * - Allowed values: any value between 0 and 9999 inclusive
+         *
+         * @param offset a new value for the record offset
+         * @return true if the new value was set successfully, false otherwise
+         */
+        public boolean setOffset(int offset) {
+            if (offset > 0 && offset < 10000) {
+                values[OFFSET] = Integer.toString(offset);
+                return true;
+            }
+            return false;
         }
-        return -1;
-    }
 
-    /**
-     * Constructor.
-     */
-    protected SFCrimeQuery() {
-        query = BASE_QUERY;
-        params = new LinkedList<Tuple<String, String>>();
-        addParameter("dstart", START_DATE);
-        addParameter("bbox", SF_BOUNDARIES);
-    }
+        /**
+         * Sets the value for the year from which to begin parsing reports.
+         * Any year before the earliest available will return act as the earliest available;
+         * any year after the current will automatically return no reports.
+         *
+         * - Default value if none specified: [current year]
+         * - Allowed values: any value between 0 and 9999 inclusive
+         *
+         * @param year a new value for the starting
+         * @return true if the new value was set successfully, false otherwise
+         */
+        public boolean setStartYear(int year) {
+            if (year > 0 && year < 10000) {
+                values[DSTART] = String.format("%04d", year) + "-01-01";
+                values[DEND] = null;
+                return true;
+            }
+            return false;
+        }
 
-    /**
-     * Sets the value for the number of reports to return.
-     * Records returned start from the most recent report plus the offset.
-     *
-     * - Default value if none specified: 20
-     * - Allowed values: any value between 1 and 10000 inclusive
-     *
-     * @param count a new value for the report count
-     * @return true if the new value was set successfully, false otherwise
-     */
-    public boolean setCount(int count) {
-        if (count > 0 && count <= 10000) {
-            addOrUpdateParameter("count", count + "");
-            return true;
+        /**
+         * Sets the first and last dates from which to return reports, replacing any start year.
+         * A range of dates lets a query which would return more reports than can be paged through be split into
+         * several which do not.
+         *
+         * @param fromDay the first day from which to return reports, as an epoch day
+         * @param toDay the last day from which to return reports, as an epoch day
+         * @return true if the new values were set successfully, false otherwise
+         */
+        public boolean setDateRange(int fromDay, int toDay) {
+            if (fromDay <= toDay && CrimeDates.year(fromDay) > 0 && CrimeDates.year(toDay) < 10000) {
+                values[DSTART] = CrimeDates.format(fromDay);
+                values[DEND] = CrimeDates.format(toDay);
+                return true;
+            }
+            return false;
         }
-        return false;
-    }
 
-    /**
-     * Sets the value for the starting point of the reports to be returned.
-     * By default, a query returns the [count] most recent reports; the offset denotes how far down the complete
-     * list of reports from which to begin creating the list of returned items.
-     *
-     * - Default value if none specified: 0
-     * - Allowed values: any value between 0 and 9999 inclusive
-     *
-     * @param offset a new value for the record offset
-     * @return true if the new value was set successfully, false otherwise
-     */
-    public boolean setOffset(int offset) {
-        if (offset > 0 && offset < 10000) {
-            addOrUpdateParameter("offset", offset + "");
-            return true;
+        /** Sets the bounding box for the area from which to return reports: the square extending radius miles north,
+         * south, east and west of the origin.
+         * Any bound outside of San Francisco are kept within its boundaries.
+         *
+         * @param   origin  a LatLng object denoting the center of the bounding box
+         * @param   radius  the radius in miles from the origin
+         * @return  true if bounding box set successfully, false otherwise
+        */
+        public boolean setBoundingBox (LatLng origin, double radius) {
+            if (radius > 0 && origin != null) {
+                double east = origin.longitude + radius*LONG_DEGREES_PER_MILE;
+                if (east > BOUNDARY_EAST)
+                    east = BOUNDARY_EAST;
+                double west = origin.longitude - radius*LONG_DEGREES_PER_MILE;
+                if (west < BOUNDARY_WEST)
+                    west = BOUNDARY_WEST;
+                double north = origin.latitude + radius*LAT_DEGREES_PER_MILE;
+                if (north > BOUNDARY_NORTH)
+                    north = BOUNDARY_NORTH;
+                double south = origin.latitude - radius*LAT_DEGREES_PER_MILE;
+                if (south < BOUNDARY_SOUTH)
+                    south = BOUNDARY_SOUTH;
+
+                values[BBOX] = boundingBox(west, south, east, north);
+                return true;
+            }
+            return false;
         }
-        return false;
     }
 
-    /**
-     * Sets the value for the year from which to begin parsing reports.
-     * Any year before the earliest available will return act as the earliest available;
-     * any year after the current will automatically return no reports.
-     *
-     * - Default value if none specified: [current year]
-     * - Allowed values: any value between 0 and 9999 inclusive
+    /** Returns a builder initialized with the parameters of this query, from which a modified copy may be built.
      *
-     * @param year a new value for the starting
-     * @return true if the new value was set successfully, false otherwise
+     * @return  a new SFCrimeQuery.Builder
      */
-    public boolean setStartYear(int year) {
-        if (year > 0 && year < 10000) {
-            addOrUpdateParameter("dstart", String.format("%04d", year) + "-01-01");
-            return true;
-        }
-        return false;
+    Builder toBuilder () {
+        return new Builder(this);
     }
 
-    /** Sets the bounding box for the area from which to return reports.
-     * Any bound outside of San Francisco are kept within its boundaries.
-     *
-     * @param   origin  a LatLng object denoting the center of the bounding box
-     * @param   radius  the radius in miles from the origin
-     * @return  true if bounding box set successfully, false otherwise
-    */
-    public boolean setBoundingBox (LatLng origin, double radius) {
-        if (radius > 0 && origin != null) {
-            double east = origin.longitude + radius*LAT_DEGREES_PER_MILE;
-            if (east > BOUNDARY_EAST)
-                east = BOUNDARY_EAST;
-            double west = origin.longitude - radius*LAT_DEGREES_PER_MILE;
-            if (west < BOUNDARY_WEST)
-                west = BOUNDARY_WEST;
-            double north = origin.latitude + radius*LONG_DEGREES_PER_MILE;
-            if (north > BOUNDARY_NORTH)
-                north = BOUNDARY_NORTH;
-            double south = origin.latitude - radius*LONG_DEGREES_PER_MILE;
-            if (south < BOUNDARY_SOUTH)
-                south = BOUNDARY_SOUTH;
+    @Override
+    public boolean equals (Object o) {
+        return o == this || (o instanceof SFCrimeQuery && query.equals(((SFCrimeQuery) o).query));
+    }
 
-            addOrUpdateParameter("bbox", west + "," + south + "," + east + "," + north);
-            return true;
-        }
-        return false;
+    @Override
+    public int hashCode () {
+        return query.hashCode();
     }
 
     @Override
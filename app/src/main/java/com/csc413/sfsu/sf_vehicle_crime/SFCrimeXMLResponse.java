@@ -1,10 +1,9 @@
 package com.csc413.sfsu.sf_vehicle_crime;
 
-import org.w3c.dom.NodeList;
-import org.w3c.dom.Element;
-import org.w3c.dom.Document;
+import org.xmlpull.v1.XmlPullParser;
 
 import com.csc413.sfsu.sfpark_simplified.NetworkRequest;
+import com.csc413.sfsu.sfpark_simplified.RequestExecutor;
 
 import com.google.android.gms.maps.model.LatLng;
 
@@ -12,8 +11,9 @@ import java.sql.Time;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeoutException;
 
 /** The SFCrimeXMLResponse class retrieves and stores select data from a query to the San Francisco Crimespotting database.
@@ -23,113 +23,277 @@ import java.util.concurrent.TimeoutException;
  * - Date of occurrence
  * - Location (latitude and longitude) of occurrence
  *
+ * Reports are stored column by column in primitive arrays: the latitude and longitude of each as a float and its date
+ * as an epoch day. Responses are streamed through a pooled pull parser, as SFPark responses are, so that no document
+ * tree is built; each report is decoded from its attributes as it is read. Counting the reports of a
+ * period is then a scan of the array of dates.
+ *
  * @author      Jeremy Erickson
  * @version     %I%, %G%
  */
 class SFCrimeXMLResponse {
-    /** Stores dates of reported vehicle thefts */
-    private List<String> crimeDates;
-    /** Stores locations of reported vehicle thefts */
-    private List<LatLng> crimeLocs;
+    /** The number of reports requested by each page of populateAll */
+    static final int PAGE_SIZE = 500;
+    /** The number of pages of populateAll fetched at once, counting the calling thread */
+    private static final int PAGE_PARALLELISM = 3;
+    /** The number of pages populateAll may fetch; a query may not start beyond an offset of 9999 */
+    private static final int MAX_PAGES = 9999 / PAGE_SIZE + 1;
+
+    /** Stores the dates and locations of reported vehicle thefts */
+    private Reports reports;
     /** Status of a query; "SUCCESS" = database accessed and reports retrieved (note: success possible with zero reports returned).
-     * "FAILURE" = error accessing database or retrieving reports */
+     * "FAILURE" = error accessing database or retrieving reports; "TRUNCATED" = populateAll retrieved as many reports as
+     * can be paged through, and more may match */
     private String status;
-    /** Denotes the time in seconds until a NetworkRequest times out; defaults to 20 */
+    /** Denotes the time in seconds until a query times out; defaults to 20 */
     private int timeout;
+    /** Denotes whether a query may be answered from the response cache; defaults to true */
+    private boolean useCache;
     /** Denotes the number of reports returned from a query */
     private int numReports;
 
-    /** Clears all data in the response object.
+    /** Clears all data in the response object, except for its timeout.
     */
     private void reset () {
-        crimeDates = new ArrayList<String>();
-        crimeLocs = new ArrayList<LatLng>();
-        timeout = 20;
+        reports = new Reports(0);
         numReports = 0;
         status = "";
     }
 
-    /** Restructures the default date format of a report as returned from a query to the SFCrimespotting database.
-     * The SFCrimespotting date format is as follows: [DAY OF WEEK], [FIRST 3 LETTERS OF MONTH] [DAY OF MONTH, NO LEADING ZERO], [YEAR];
-     * the restructured format is as follows: [YEAR]-[NUMBER OF MONTH WITH LEADING ZERO]-[DAY OF MONTH WITH LEADING ZERO]
-     *
-     * @param   date    a String with a date in the SFCrimespotting format
-     * @return  a String in with a date in the restructured format if reformatting successful, or an empty String otherwise
+    /** The Reports class stores reports column by column, growing its arrays as reports are added.
      */
-    private String restructureDate(String date) {
-        try {
-            // Parse year
-            String newDate = date.substring(date.length() - 4, date.length()) + "-";
-            // Parse month
-            newDate += String.format("%02d", Integer.parseInt(date.substring(date.length() - 8, date.length() - 6).trim())) + "-";
-            // Parse day
-            if (date.contains("Ja"))
-                newDate += "01";
-            else if (date.contains("Fe"))
-                newDate += "02";
-            else if (date.contains("Ma"))
-                newDate += "03";
-            else if (date.contains("Ap"))
-                newDate += "04";
-            else if (date.contains("Ma"))
-                newDate += "05";
-            else if (date.contains("Jun"))
-                newDate += "06";
-            else if (date.contains("Jul"))
-                newDate += "07";
-            else if (date.contains("Au"))
-                newDate += "08";
-            else if (date.contains("Se"))
-                newDate += "09";
-            else if (date.contains("Oc"))
-                newDate += "10";
-            else if (date.contains("No"))
-                newDate += "11";
-            else if (date.contains("De"))
-                newDate += "12";
-
-            return newDate;
-        } catch (IndexOutOfBoundsException e) {
-            return "";
+    private static final class Reports {
+        /** The latitude of each report */
+        float [] lat;
+        /** The longitude of each report */
+        float [] lon;
+        /** The date of each report, in days since January 1, 1970 */
+        int [] day;
+        /** The number of reports stored */
+        int size;
+
+        Reports (int capacity) {
+            lat = new float[capacity];
+            lon = new float[capacity];
+            day = new int[capacity];
+        }
+
+        /** Makes room for a number of reports beyond those stored. */
+        private void reserve (int more) {
+            if (size + more <= day.length)
+                return;
+            int capacity = Math.max(size + more, day.length * 2);
+            float [] newLat = new float[capacity];
+            float [] newLon = new float[capacity];
+            int [] newDay = new int[capacity];
+            System.arraycopy(lat, 0, newLat, 0, size);
+            System.arraycopy(lon, 0, newLon, 0, size);
+            System.arraycopy(day, 0, newDay, 0, size);
+            lat = newLat;
+            lon = newLon;
+            day = newDay;
+        }
+
+        void add (float latitude, float longitude, int epochDay) {
+            reserve(1);
+            lat[size] = latitude;
+            lon[size] = longitude;
+            day[size++] = epochDay;
+        }
+
+        void addAll (Reports other) {
+            reserve(other.size);
+            System.arraycopy(other.lat, 0, lat, size, other.size);
+            System.arraycopy(other.lon, 0, lon, size, other.size);
+            System.arraycopy(other.day, 0, day, size, other.size);
+            size += other.size;
         }
     }
 
+    /** Throws an IndexOutOfBoundsException unless an index is that of a report stored. */
+    private void check (int index) {
+        if (index < 0 || index >= reports.size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + reports.size);
+    }
+
     /** Constructor.
     */
     protected  SFCrimeXMLResponse () {
         reset();
+        timeout = 20;
+        useCache = true;
     }
 
-    /** Populates the SFCrimeXMLResponse object with data parsed from a successful San Francisco Crimespotting database query.
+    /** Parses the date and location of each report of a response.
      *
-     * @param   query    a String representing a San Francisco Crimespotting API query in the form of a URL
-     * @return  true if the query was successful and no exceptions were thrown, false otherwise
+     * @param   parser      an XmlPullParser positioned at the start of the response document
+     * @return  the reports of the response
+     * @throws  Exception   if the response has no reports element or a report could not be parsed,
+     *                      or an InterruptedException if the request was cancelled
      */
-    protected boolean populate (String query) {
-        try {
-            reset();
+    private static Reports parse (XmlPullParser parser) throws Exception {
+        if (parser.nextTag() != XmlPullParser.START_TAG || !"reports".equals(parser.getName()))
+            throw new Exception();
+        Reports reports = new Reports(PAGE_SIZE);
 
-            Document doc = new NetworkRequest().execute(query).get(timeout, TimeUnit.SECONDS);
-            Element root = (Element)doc.getElementsByTagName("reports").item(0);
-            NodeList reports = root.getElementsByTagName("report");
+        // Extract and store only the location and date information
+        int event;
+        while ((event = parser.next()) != XmlPullParser.END_DOCUMENT) {
+            if (event != XmlPullParser.START_TAG || !"report".equals(parser.getName()))
+                continue;
+            if (Thread.currentThread().isInterrupted())
+                throw new InterruptedException();
 
-            numReports = reports.getLength();
+            // Structure data, throw Exception if error is encountered
+            String date = parser.getAttributeValue(null, "date");
+            int day = date == null ? CrimeDates.INVALID : CrimeDates.decode(date);
+            if (day == CrimeDates.INVALID)
+                throw new Exception();
+            reports.add(Float.parseFloat(parser.getAttributeValue(null, "lat")),
+                    Float.parseFloat(parser.getAttributeValue(null, "lon")), day);
+        }
+        return reports;
+    }
 
-            // Extract and store only the location and date information
-            for (int i = 0; i < reports.getLength(); i++) {
-                Element report = (Element)reports.item(i);
+    /** Fetches a query and parses the date and location of each of its reports.
+     * The reports are parsed on the RequestExecutor as the response streams in, into reports of their own, so that
+     * a query abandoned at the timeout adds nothing to those of the caller.
+     *
+     * @param   query       a String representing a San Francisco Crimespotting API query in the form of a URL
+     * @param   timeout     the time in seconds until the query times out
+     * @param   useCache    false to go to the network even if the response cache holds a fresh copy
+     * @return  the reports returned
+     * @throws  Exception   if the query failed or a report could not be parsed
+     */
+    private static Reports fetch (final String query, int timeout, final boolean useCache) throws Exception {
+        return RequestExecutor.call(new Callable<Reports>() {
+            @Override
+            public Reports call () throws Exception {
+                return NetworkRequest.fetch(query, useCache, new NetworkRequest.PullHandler<Reports>() {
+                    @Override
+                    public Reports parse (XmlPullParser parser) throws Exception {
+                        return SFCrimeXMLResponse.parse(parser);
+                    }
+                });
+            }
+        }, timeout);
+    }
 
-                // Structure data, throw Exception if error is encountered
-                String date = restructureDate(report.getAttribute("date"));
-                if (date.equals(""))
-                    throw new Exception();
-                LatLng loc = new LatLng(Double.parseDouble(report.getAttribute("lat")), Double.parseDouble(report.getAttribute("lon")));
+    /** The Pages class fetches the pages of a paginated query, shared between the calling thread and its helpers.
+     * Each worker takes the next page not yet taken until it reaches the end: the page after the first short page,
+     * which is the last page of the reports, or the page after the first failed one, after which the query has
+     * failed anyway.
+     */
+    private static final class Pages implements Callable<Void> {
+        private final SFCrimeQuery query;
+        private final int timeout;
+        private final boolean useCache;
+        private final long deadline;
+        /** The pages fetched, by index; guarded by the monitor */
+        private final Reports [] pages = new Reports[MAX_PAGES];
+        /** The index of the next page to take; guarded by the monitor */
+        private int next;
+        /** The number of pages of the reports, or MAX_PAGES while unknown; guarded by the monitor */
+        private int end = MAX_PAGES;
+        /** The index of the first failed page, or MAX_PAGES if none failed; guarded by the monitor */
+        private int failedAt = MAX_PAGES;
+        /** The status of the first failed page; guarded by the monitor */
+        private String failure;
+        /** The number of pages being fetched; guarded by the monitor */
+        private int running;
+
+        Pages (SFCrimeQuery query, int timeout, boolean useCache, long deadline) {
+            this.query = query;
+            this.timeout = timeout;
+            this.useCache = useCache;
+            this.deadline = deadline;
+        }
 
-                // Add successfully parsed data to lists
-                crimeDates.add(date);
-                crimeLocs.add(loc);
+        /** Fetches one page of the query.
+         *
+         * @param   index       the index of the page
+         * @return  the page
+         * @throws  Exception   if the page could not be fetched or parsed
+         */
+        private Reports fetch (int index) throws Exception {
+            SFCrimeQuery.Builder builder = query.toBuilder();
+            builder.setCount(PAGE_SIZE);
+            builder.setOffset(index * PAGE_SIZE);
+            return SFCrimeXMLResponse.fetch(builder.build().toString(), timeout, useCache);
+        }
+
+        @Override
+        public Void call () {
+            work(MAX_PAGES);
+            return null;
+        }
+
+        /** Fetches pages until the end of the reports, or the deadline passes.
+         *
+         * @param   limit   the number of pages past which to stop, even if the end is not yet known
+         */
+        void work (int limit) {
+            while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+                int index;
+                synchronized (this) {
+                    if (next >= Math.min(Math.min(end, failedAt), limit))
+                        return;
+                    index = next++;
+                    running++;
+                }
+                try {
+                    Reports page = fetch(index);
+                    synchronized (this) {
+                        pages[index] = page;
+                        if (page.size < PAGE_SIZE && index < end)
+                            end = index + 1;
+                    }
+                } catch (Exception e) {
+                    synchronized (this) {
+                        if (index < failedAt) {
+                            failedAt = index;
+                            failure = "FAILURE: " + e.getClass().toString();
+                        }
+                    }
+                } finally {
+                    synchronized (this) {
+                        running--;
+                        notifyAll();
+                    }
+                }
             }
+        }
 
+        /** Waits until no page is being fetched, or the deadline passes.
+         *
+         * @return  true if no page is being fetched, false on timeout
+         */
+        synchronized boolean await () throws InterruptedException {
+            long remaining;
+            while (running > 0 && (remaining = deadline - System.currentTimeMillis()) > 0)
+                wait(remaining);
+            return running == 0;
+        }
+
+        /** Returns whether the reports are known to be complete after the first page.
+         *
+         * @return  true if the first page was fetched and is short, or failed
+         */
+        synchronized boolean settled () {
+            return end == 1 || failedAt == 0;
+        }
+    }
+
+    /** Populates the SFCrimeXMLResponse object with data parsed from a successful San Francisco Crimespotting database query.
+     *
+     * @param   query    a String representing a San Francisco Crimespotting API query in the form of a URL
+     * @return  true if the query was successful and no exceptions were thrown, false otherwise
+     */
+    protected boolean populate (final String query) {
+        try {
+            reset();
+            reports = fetch(query, timeout, useCache);
+            numReports = reports.size;
         } catch (Exception e) {
             reset();
             status = "FAILURE: " + e.getClass().toString();
@@ -148,14 +312,130 @@ class SFCrimeXMLResponse {
         return populate(query.toString());
     }
 
+    /** Populates the SFCrimeXMLResponse object with every report matching a query, however many there are, by fetching
+     * it in pages of PAGE_SIZE reports; the count and offset of the query are ignored.
+     * The first page is fetched on the calling thread. Only if it is full are the following pages fetched, by the
+     * calling thread together with up to PAGE_PARALLELISM - 1 helpers on the RequestExecutor, each taking the next
+     * page until one comes back short. Each page is parsed as it arrives, and the pages are then merged in order.
+     * Reports beyond an offset of 10000 cannot be queried: if every page that can be fetched is full, the reports
+     * fetched are kept but the status is "TRUNCATED", and the query should be split, e.g. by range of dates.
+     *
+     * @param   query    a SFCrimeQuery object representing a San Francisco Crimespotting API query
+     * @return  true if every page was fetched successfully in time and the reports are complete, false otherwise
+     */
+    protected boolean populateAll (SFCrimeQuery query) {
+        reset();
+        long deadline = System.currentTimeMillis() + 1000L * timeout;
+        Pages plan = new Pages(query, timeout, useCache, deadline);
+        plan.work(1);
+        List<Future<Void>> helpers = new ArrayList<Future<Void>>();
+        boolean complete = true;
+        if (!plan.settled()) {
+            for (int i = 1; i < PAGE_PARALLELISM; i++) {
+                try {
+                    helpers.add(RequestExecutor.submit(plan));
+                } catch (RejectedExecutionException e) { // Too many requests pending; fetch with fewer
+                    break;
+                }
+            }
+            try {
+                plan.call();
+                complete = plan.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                complete = false;
+            }
+            for (Future<Void> helper : helpers)
+                // Helpers not yet started have nothing left to fetch; late ones are abandoned
+                helper.cancel(!complete);
+        }
+
+        boolean truncated;
+        synchronized (plan) {
+            if (plan.failedAt < plan.end) {
+                status = plan.failure;
+                return false;
+            }
+            for (int i = 0; i < plan.end; i++) {
+                if (plan.pages[i] == null) { // Not fetched in time
+                    status = "FAILURE: " + TimeoutException.class.toString();
+                    return false;
+                }
+            }
+            int total = 0;
+            for (int i = 0; i < plan.end; i++)
+                total += plan.pages[i].size;
+            reports = new Reports(total);
+            for (int i = 0; i < plan.end; i++)
+                reports.addAll(plan.pages[i]);
+            truncated = plan.end == MAX_PAGES && plan.pages[MAX_PAGES - 1].size == PAGE_SIZE;
+        }
+        numReports = reports.size;
+        if (truncated) {
+            status = "TRUNCATED: more than " + MAX_PAGES * PAGE_SIZE + " reports may match";
+            return false;
+        }
+        status = "SUCCESS";
+        return true;
+    }
+
     /** Returns the date of the crime at the specified index.
      *
      * @param   index   index of crime
-     * @return  the date of the crime in the form of a String
+     * @return  the date of the crime in the form [YEAR]-[MONTH]-[DAY] with leading zeros
      * @throws  java.lang.IndexOutOfBoundsException if the index is less than 0 or greater than the number of crimes - 1
     */
     protected String date (int index) {
-        return crimeDates.get(index);
+        return CrimeDates.format(epochDay(index));
+    }
+
+    /** Returns the date of the crime at the specified index as an epoch day.
+     *
+     * @param   index   index of crime
+     * @return  the number of days from January 1, 1970 to the date of the crime
+     * @throws  java.lang.IndexOutOfBoundsException if the index is less than 0 or greater than the number of crimes - 1
+     */
+    protected int epochDay (int index) {
+        check(index);
+        return reports.day[index];
+    }
+
+    /** Returns the latitude of the crime at the specified index.
+     *
+     * @param   index   index of crime
+     * @return  the latitude of the crime
+     * @throws  java.lang.IndexOutOfBoundsException if the index is less than 0 or greater than the number of crimes - 1
+     */
+    protected float latitude (int index) {
+        check(index);
+        return reports.lat[index];
+    }
+
+    /** Returns the longitude of the crime at the specified index.
+     *
+     * @param   index   index of crime
+     * @return  the longitude of the crime
+     * @throws  java.lang.IndexOutOfBoundsException if the index is less than 0 or greater than the number of crimes - 1
+     */
+    protected float longitude (int index) {
+        check(index);
+        return reports.lon[index];
+    }
+
+    /** Counts the crimes which occurred within a period, with a scan of their dates.
+     *
+     * @param   fromDay     the first day of the period, as an epoch day
+     * @param   toDay       the last day of the period, as an epoch day
+     * @return  the number of crimes from fromDay to toDay inclusive
+     */
+    protected int countBetween (int fromDay, int toDay) {
+        int [] day = reports.day;
+        int count = 0;
+        for (int i = 0; i < reports.size; i++) {
+            if (day[i] >= fromDay && day[i] <= toDay)
+                count++;
+        }
+        return count;
     }
 
     /** Returns the location of the crime at the specified index.
@@ -165,7 +445,8 @@ class SFCrimeXMLResponse {
      * @throws  java.lang.IndexOutOfBoundsException if the index is less than 0 or greater than the number of crimes - 1
      */
     protected LatLng loc (int index) {
-        return crimeLocs.get(index);
+        check(index);
+        return new LatLng(reports.lat[index], reports.lon[index]);
     }
 
     /** Returns the status of the latest database query.
@@ -199,4 +480,12 @@ class SFCrimeXMLResponse {
     protected void setTimeout (int secs) {
         timeout = secs;
     }
+
+    /** Sets whether queries may be answered from the response cache, which keeps Crimespotting responses for days.
+     *
+     * @param   useCache    false to fetch every query from the network, replacing the cached copy
+     */
+    protected void setUseCache (boolean useCache) {
+        this.useCache = useCache;
+    }
 }
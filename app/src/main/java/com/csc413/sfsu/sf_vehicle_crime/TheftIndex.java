@@ -0,0 +1,638 @@
+package com.csc413.sfsu.sf_vehicle_crime;
+
+import com.csc413.sfsu.sfpark_simplified.RequestExecutor;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/** The TheftIndex class holds the density of the vehicle theft reports of all of San Francisco in memory, so that the
+ * number of reports around any point, and the risk of theft they add up to, are read locally in constant time rather
+ * than with a query to the San Francisco Crimespotting database per search.
+ *
+ * The reports are counted into a raster of cells about 50 meters wide, in buckets by month: for each month, the
+ * number of reports of each cell that had any. The risk of a cell is the sum of its reports weighted by their age,
+ * a report counting half as much for every HALF_LIFE_MONTHS it is older than the current month, so that the risk
+ * follows recent thefts rather than the whole history. The counts and risks of the cells are each summed into a
+ * summed-area table: their totals south and west of each cell corner. The total of any box is then read from a table
+ * at its four corners, interpolated within the cells they fall in, which assumes the reports of a cell are spread
+ * evenly over it.
+ *
+ * The reports are loaded with one paginated query over the whole city per year, since a query can only be paged through
+ * up to 10000 reports; a year which holds more is split in halves until each part can be paged through. The pages of
+ * the first load may be answered from the response cache like those of any other query, and the index is then refreshed
+ * in the background once it is a day old. A refresh goes to the network, since the cache keeps Crimespotting responses
+ * for days and would otherwise answer it with the reports of the previous load. A refresh only queries the reports
+ * since January 1 of the year of the previous load and replaces the buckets of the months since then. The risks are
+ * maintained rather than recomputed: a refresh decays the previous risks by the months elapsed, takes out the buckets
+ * replaced and folds in the new ones, so its cost depends on the reports queried, not on the length of the history. The
+ * buckets are written to a compact file after every load and read back by install, so that counts are available as soon
+ * as the app starts and the first refresh is incremental too. Until the index is loaded or read from file it answers no
+ * counts, and callers fall back to querying.
+ *
+ * Each load builds a new raster, which replaces the previous one whole; counts are never blocked by a load.
+ *
+ * @version     %I%, %G%
+ */
+public final class TheftIndex {
+    /** The year from which reports are indexed */
+    public static final int START_YEAR = 2011;
+    /** The age in months at which a report counts half as much toward the risk as one of the current month */
+    public static final double HALF_LIFE_MONTHS = 12;
+
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** The age in milliseconds at which the index is refreshed */
+    private static final long REFRESH_INTERVAL = 24 * 60 * 60 * 1000L;
+    /** The time in milliseconds after a failed load before another is attempted */
+    private static final long RETRY_INTERVAL = 5 * 60 * 1000L;
+    /** The time in seconds until the query of a load times out */
+    private static final int LOAD_TIMEOUT = 60;
+
+    /** Approximate number of miles per degree latitude in San Francisco */
+    private static final double MILES_PER_LAT_DEGREE = 68.94;
+    /** Approximate number of miles per degree longitude in San Francisco */
+    private static final double MILES_PER_LONG_DEGREE = 54.49;
+    /** The width and height of a cell in miles, about 50 meters */
+    static final double CELL_MILES = .031;
+    /** The height of a cell in degrees latitude */
+    static final double CELL_LAT = CELL_MILES / MILES_PER_LAT_DEGREE;
+    /** The width of a cell in degrees longitude */
+    static final double CELL_LONG = CELL_MILES / MILES_PER_LONG_DEGREE;
+    /** The number of rows of cells, from south to north */
+    static final int ROWS =
+            (int)Math.ceil((SFCrimeQuery.BOUNDARY_NORTH - SFCrimeQuery.BOUNDARY_SOUTH) / CELL_LAT);
+    /** The number of columns of cells, from west to east */
+    static final int COLUMNS =
+            (int)Math.ceil((SFCrimeQuery.BOUNDARY_EAST - SFCrimeQuery.BOUNDARY_WEST) / CELL_LONG);
+    /** The number of cells */
+    static final int CELLS = ROWS * COLUMNS;
+
+    /** The first bytes of a raster file, "THFD" */
+    private static final int MAGIC = 0x54484644;
+    /** The version of the format of a raster file */
+    private static final int VERSION = 2;
+
+    /** The current raster, or null until the first load completes or a raster is read from file */
+    private static volatile Raster raster;
+    /** The file the raster is kept in, or null if it is not kept; guarded by the class */
+    private static File file;
+    /** The time of the last failed load; guarded by the class */
+    private static long failedAt;
+    /** Whether a background load is pending or running; guarded by the class */
+    private static boolean loading;
+    /** Held for the duration of a load, so that loads run one at a time */
+    private static final Object LOAD_LOCK = new Object();
+
+    /** The Keys class collects the reports of a load, each as the key month * CELLS + cell by which it is bucketed.
+     */
+    private static final class Keys {
+        /** The keys collected */
+        long [] keys = new long[1024];
+        /** The number of keys collected */
+        int size;
+
+        /** Adds the reports of a response which fall within a period.
+         *
+         * @param   response    the response holding the reports
+         * @param   fromDay     the first day of the period, as an epoch day
+         * @param   toDay       the last day of the period, as an epoch day
+         */
+        void add (SFCrimeXMLResponse response, int fromDay, int toDay) {
+            if (size + response.numReports() > keys.length)
+                keys = Arrays.copyOf(keys, Math.max(keys.length * 2, size + response.numReports()));
+            for (int i = 0; i < response.numReports(); i++) {
+                int day = response.epochDay(i);
+                if (day >= fromDay && day <= toDay)
+                    keys[size++] = (long)CrimeDates.epochMonth(day) * CELLS + row(response.latitude(i)) * COLUMNS
+                            + column(response.longitude(i));
+            }
+        }
+    }
+
+    /** The Buckets class holds report counts by month and cell, as parallel arrays ordered by month: for each month
+     * with reports, the cells with reports in ascending order and the number of reports of each.
+     */
+    static final class Buckets {
+        /** The months of the buckets, in months since January 1970, ascending */
+        final int [] months;
+        /** The cells with reports, by bucket */
+        final int [][] cells;
+        /** The number of reports of each of those cells, by bucket */
+        final int [][] counts;
+
+        Buckets (int [] months, int [][] cells, int [][] counts) {
+            this.months = months;
+            this.cells = cells;
+            this.counts = counts;
+        }
+
+        /** Counts reports into buckets.
+         *
+         * @param   collected   the reports; their keys are sorted in place
+         * @return  the buckets
+         */
+        static Buckets of (Keys collected) {
+            // Sort the reports by month, then cell, and count the runs of equal keys
+            long [] keys = collected.keys;
+            int n = collected.size;
+            Arrays.sort(keys, 0, n);
+            int buckets = 0;
+            for (int i = 0; i < n; i++)
+                if (i == 0 || keys[i] / CELLS != keys[i - 1] / CELLS)
+                    buckets++;
+            int [] months = new int[buckets];
+            int [][] cells = new int[buckets][];
+            int [][] counts = new int[buckets][];
+            int [] cellBuffer = new int[n];
+            int [] countBuffer = new int[n];
+            int b = 0;
+            for (int i = 0; i < n; ) {
+                int month = (int)(keys[i] / CELLS);
+                int entries = 0;
+                while (i < n && keys[i] / CELLS == month) {
+                    long key = keys[i];
+                    int count = 0;
+                    while (i < n && keys[i] == key) {
+                        count++;
+                        i++;
+                    }
+                    cellBuffer[entries] = (int)(key % CELLS);
+                    countBuffer[entries++] = count;
+                }
+                months[b] = month;
+                cells[b] = Arrays.copyOf(cellBuffer, entries);
+                counts[b++] = Arrays.copyOf(countBuffer, entries);
+            }
+            return new Buckets(months, cells, counts);
+        }
+
+        /** Returns these buckets before a month followed by other buckets.
+         *
+         * @param   fromMonth   the first month of the other buckets, in months since January 1970
+         * @param   newer       the other buckets, all from fromMonth on
+         * @return  the buckets
+         */
+        Buckets replaceFrom (int fromMonth, Buckets newer) {
+            int kept = 0;
+            while (kept < months.length && months[kept] < fromMonth)
+                kept++;
+            int total = kept + newer.months.length;
+            int [] m = Arrays.copyOf(months, total);
+            int [][] c = Arrays.copyOf(cells, total);
+            int [][] k = Arrays.copyOf(counts, total);
+            System.arraycopy(newer.months, 0, m, kept, newer.months.length);
+            System.arraycopy(newer.cells, 0, c, kept, newer.months.length);
+            System.arraycopy(newer.counts, 0, k, kept, newer.months.length);
+            return new Buckets(m, c, k);
+        }
+
+        /** Adds the reports of the buckets from a month on to cell risks, weighted by their age.
+         *
+         * @param   risk        the risk of each cell
+         * @param   fromMonth   the first month of the buckets to add, in months since January 1970
+         * @param   month       the month to which the risk is decayed, in months since January 1970
+         * @param   sign        1 to add the reports, -1 to take them out
+         */
+        void addTo (double [] risk, int fromMonth, int month, int sign) {
+            for (int b = 0; b < months.length; b++) {
+                if (months[b] < fromMonth)
+                    continue;
+                double weight = sign * weight(month - months[b]);
+                for (int i = 0; i < cells[b].length; i++)
+                    risk[cells[b][i]] += weight * counts[b][i];
+            }
+        }
+    }
+
+    /** The Raster class is an immutable snapshot of the index: the report counts of the cells by month, the risk of
+     * each cell, and the summed-area tables of the counts and risks of the cells.
+     */
+    static final class Raster {
+        /** The report counts of the cells by month */
+        final Buckets buckets;
+        /** The risk of each cell, by row * COLUMNS + column */
+        final double [] risk;
+        /** The month to which the risks are decayed, in months since January 1970 */
+        final int month;
+        /** The time the reports were queried */
+        final long loadedAt;
+        /** The number of reports in the cells of rows below r and columns below c, at r * (COLUMNS + 1) + c */
+        final double [] countSums = new double[(ROWS + 1) * (COLUMNS + 1)];
+        /** The risk of the cells of rows below r and columns below c, at r * (COLUMNS + 1) + c */
+        final double [] riskSums = new double[(ROWS + 1) * (COLUMNS + 1)];
+
+        /** Constructor.
+         * Sums the counts and risks of the cells.
+         *
+         * @param   buckets     the report counts of the cells by month
+         * @param   risk        the risk of each cell, decayed to month; not copied
+         * @param   month       the month to which the risk is decayed, in months since January 1970
+         * @param   loadedAt    the time the reports were queried
+         */
+        Raster (Buckets buckets, double [] risk, int month, long loadedAt) {
+            this.buckets = buckets;
+            this.risk = risk;
+            this.month = month;
+            this.loadedAt = loadedAt;
+            for (int b = 0; b < buckets.months.length; b++) {
+                int [] cells = buckets.cells[b];
+                for (int i = 0; i < cells.length; i++)
+                    countSums[corner(cells[i])] += buckets.counts[b][i];
+            }
+            for (int cell = 0; cell < CELLS; cell++)
+                riskSums[corner(cell)] = risk[cell];
+            sum(countSums);
+            sum(riskSums);
+        }
+
+        /** Builds a raster from the reports of a load.
+         *
+         * @param   previous    the raster of the previous load, or null if there was none
+         * @param   fromMonth   the first month of the reports, from which the buckets of the previous load are
+         *                      replaced
+         * @param   newer       the report counts of the cells by month, from fromMonth on
+         * @param   month       the current month, in months since January 1970
+         * @param   loadedAt    the time the reports were queried
+         * @return  the raster
+         */
+        static Raster fold (Raster previous, int fromMonth, Buckets newer, int month, long loadedAt) {
+            double [] risk = new double[CELLS];
+            if (previous == null) {
+                newer.addTo(risk, fromMonth, month, 1);
+                return new Raster(newer, risk, month, loadedAt);
+            }
+            // Decay the previous risks to the current month, then swap the buckets replaced for the new ones
+            double decay = weight(month - previous.month);
+            for (int cell = 0; cell < CELLS; cell++)
+                risk[cell] = previous.risk[cell] * decay;
+            previous.buckets.addTo(risk, fromMonth, month, -1);
+            newer.addTo(risk, fromMonth, month, 1);
+            for (int cell = 0; cell < CELLS; cell++)
+                if (risk[cell] < 0) // Rounding left over from reports taken out
+                    risk[cell] = 0;
+            return new Raster(previous.buckets.replaceFrom(fromMonth, newer), risk, month, loadedAt);
+        }
+
+        /** Returns the index in a summed-area table of the north-east corner of a cell. */
+        private static int corner (int cell) {
+            return (cell / COLUMNS + 1) * (COLUMNS + 1) + cell % COLUMNS + 1;
+        }
+
+        /** Turns a table of cell values, held at the north-east corner of each cell, into a summed-area table. */
+        private static void sum (double [] sums) {
+            for (int r = 1; r <= ROWS; r++) {
+                for (int c = 1; c <= COLUMNS; c++) {
+                    int at = r * (COLUMNS + 1) + c;
+                    sums[at] += sums[at - 1] + sums[at - COLUMNS - 1] - sums[at - COLUMNS - 2];
+                }
+            }
+        }
+
+        /** Returns the total of a summed-area table south and west of a point, interpolated within the cell the point
+         * falls in.
+         *
+         * @param   sums    the summed-area table
+         * @param   y       the distance of the point from the southern boundary, in cells
+         * @param   x       the distance of the point from the western boundary, in cells
+         * @return  the total
+         */
+        private static double below (double [] sums, double y, double x) {
+            y = Math.max(0, Math.min(ROWS, y));
+            x = Math.max(0, Math.min(COLUMNS, x));
+            int r = Math.min(ROWS - 1, (int)y);
+            int c = Math.min(COLUMNS - 1, (int)x);
+            double fy = y - r, fx = x - c;
+            int at = r * (COLUMNS + 1) + c;
+            double south = sums[at] + fx * (sums[at + 1] - sums[at]);
+            double north = sums[at + COLUMNS + 1] + fx * (sums[at + COLUMNS + 2] - sums[at + COLUMNS + 1]);
+            return south + fy * (north - south);
+        }
+
+        /** Returns the total of a summed-area table within a square around a point, in constant time.
+         *
+         * @param   sums    the summed-area table
+         * @param   origin  the center of the square
+         * @param   radius  half the width of the square, in miles
+         * @return  the total, interpolated where the square cuts through cells
+         */
+        static double total (double [] sums, LatLng origin, double radius) {
+            double dy = radius / MILES_PER_LAT_DEGREE / CELL_LAT;
+            double dx = radius / MILES_PER_LONG_DEGREE / CELL_LONG;
+            double y = (origin.latitude - SFCrimeQuery.BOUNDARY_SOUTH) / CELL_LAT;
+            double x = (origin.longitude - SFCrimeQuery.BOUNDARY_WEST) / CELL_LONG;
+            return below(sums, y + dy, x + dx) - below(sums, y + dy, x - dx)
+                    - below(sums, y - dy, x + dx) + below(sums, y - dy, x - dx);
+        }
+    }
+
+    /** Returns the row of the cell holding a latitude; latitudes outside San Francisco fall in the nearest row. */
+    static int row (double lat) {
+        int r = (int)Math.floor((lat - SFCrimeQuery.BOUNDARY_SOUTH) / CELL_LAT);
+        return Math.max(0, Math.min(ROWS - 1, r));
+    }
+
+    /** Returns the column of the cell holding a longitude; longitudes outside San Francisco fall in the nearest
+     * column. */
+    static int column (double lon) {
+        int c = (int)Math.floor((lon - SFCrimeQuery.BOUNDARY_WEST) / CELL_LONG);
+        return Math.max(0, Math.min(COLUMNS - 1, c));
+    }
+
+    /** Returns the month of a point in time.
+     *
+     * @param   millis  the time in milliseconds
+     * @return  the month in months since January 1970, in the local time zone
+     */
+    private static int monthOf (long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        return (calendar.get(Calendar.YEAR) - 1970) * 12 + calendar.get(Calendar.MONTH);
+    }
+
+    /** Returns the weight toward the risk of a report of a given age.
+     *
+     * @param   age     the age of the report in months
+     * @return  1 for a report of the current month, halving every HALF_LIFE_MONTHS
+     */
+    static double weight (int age) {
+        return Math.pow(0.5, age / HALF_LIFE_MONTHS);
+    }
+
+    /** Reads a raster file.
+     *
+     * @param   f   the file
+     * @return  the raster, or null if the file does not exist, could not be read, or was written for another grid
+     */
+    private static Raster read (File f) {
+        if (!f.isFile())
+            return null;
+        try {
+            DataInputStream in = new DataInputStream(
+                    new GZIPInputStream(new BufferedInputStream(new FileInputStream(f))));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != ROWS
+                        || in.readInt() != COLUMNS || in.readDouble() != CELL_MILES)
+                    return null;
+                long loadedAt = in.readLong();
+                int month = in.readInt();
+                int [] months = new int[in.readInt()];
+                int [][] cells = new int[months.length][];
+                int [][] counts = new int[months.length][];
+                for (int b = 0; b < months.length; b++) {
+                    months[b] = in.readInt();
+                    cells[b] = new int[in.readInt()];
+                    counts[b] = new int[cells[b].length];
+                    for (int i = 0; i < cells[b].length; i++) {
+                        cells[b][i] = in.readInt();
+                        counts[b][i] = in.readInt();
+                        if (cells[b][i] < 0 || cells[b][i] >= CELLS)
+                            return null;
+                    }
+                }
+                return Raster.fold(null, Integer.MIN_VALUE, new Buckets(months, cells, counts), month, loadedAt);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Writes a raster file, through a temporary file so that an interrupted write leaves the previous one intact.
+     * Only the buckets are written; the risks and summed-area tables are rebuilt from them when read.
+     *
+     * @param   f       the file
+     * @param   r       the raster
+     */
+    private static void write (File f, Raster r) {
+        File temp = new File(f.getPath() + ".tmp");
+        try {
+            DataOutputStream out =
+                    new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(temp))));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(ROWS);
+                out.writeInt(COLUMNS);
+                out.writeDouble(CELL_MILES);
+                out.writeLong(r.loadedAt);
+                out.writeInt(r.month);
+                Buckets buckets = r.buckets;
+                out.writeInt(buckets.months.length);
+                for (int b = 0; b < buckets.months.length; b++) {
+                    out.writeInt(buckets.months[b]);
+                    out.writeInt(buckets.cells[b].length);
+                    for (int i = 0; i < buckets.cells[b].length; i++) {
+                        out.writeInt(buckets.cells[b][i]);
+                        out.writeInt(buckets.counts[b][i]);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(f)) {
+                f.delete();
+                if (!temp.renameTo(f))
+                    temp.delete();
+            }
+        } catch (IOException e) { // Kept in memory only; written again after the next load
+            temp.delete();
+        }
+    }
+
+    /** Queries the reports of a period into keys, splitting the period in halves for as long as a query matches more
+     * reports than it can be paged through.
+     *
+     * @param   fromDay     the first day of the period, as an epoch day
+     * @param   toDay       the last day of the period, as an epoch day
+     * @param   into        the keys to add the reports to
+     * @param   useCache    false to fetch every query from the network rather than the response cache
+     * @return  the status of the first query which failed, or null if every query succeeded
+     */
+    private static String query (int fromDay, int toDay, Keys into, boolean useCache) {
+        SFCrimeQuery.Builder builder = new SFCrimeQuery.Builder();
+        // The period is queried to the day after and the reports filtered, whether or not the end date is inclusive
+        builder.setDateRange(fromDay, toDay + 1);
+        SFCrimeXMLResponse response = new SFCrimeXMLResponse();
+        response.setTimeout(LOAD_TIMEOUT);
+        response.setUseCache(useCache);
+        if (response.populateAll(builder.build())) {
+            into.add(response, fromDay, toDay);
+            return null;
+        }
+        if (!response.status().startsWith("TRUNCATED") || fromDay == toDay)
+            return response.status();
+        int middle = fromDay + (toDay - fromDay) / 2;
+        String status = query(fromDay, middle, into, useCache);
+        return status != null ? status : query(middle + 1, toDay, into, useCache);
+    }
+
+    /** Constructor is private; this class only holds static members. */
+    private TheftIndex () {}
+
+    // PUBLIC METHODS //
+    //
+    /** Keeps the raster in a file: reads the raster written there by an earlier run, if the index has not been
+     * loaded yet, and writes the raster there after every load. The raster read is refreshed in the background
+     * once it is a day old, as with any other.
+     *
+     * @param   f   the file in which to keep the raster, typically in the app's files directory
+     */
+    public static void install (File f) {
+        synchronized (TheftIndex.class) {
+            file = f;
+        }
+        if (raster == null) {
+            Raster read = read(f);
+            synchronized (LOAD_LOCK) {
+                if (raster == null)
+                    raster = read;
+            }
+        }
+    }
+
+    /** Loads the reports into the index, blocking until the queries complete; refreshAsync loads them in the
+     * background instead. The first load queries every report since START_YEAR, a year at a time; later loads query
+     * those since the year of the previous load, bypassing the response cache, and keep the buckets of the months
+     * before.
+     *
+     * @return  true if the index was loaded, false if a query failed, in which case the index is unchanged
+     */
+    public static boolean load () {
+        synchronized (LOAD_LOCK) {
+            Raster current = raster;
+            int fromYear = START_YEAR;
+            if (current != null) {
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTimeInMillis(current.loadedAt);
+                fromYear = Math.max(START_YEAR, calendar.get(Calendar.YEAR));
+            }
+            long queriedAt = System.currentTimeMillis();
+            Calendar now = Calendar.getInstance();
+            now.setTimeInMillis(queriedAt);
+            Keys keys = new Keys();
+            for (int year = fromYear; year <= now.get(Calendar.YEAR); year++) {
+                if (query(CrimeDates.epochDay(year, 1, 1), CrimeDates.epochDay(year, 12, 31), keys,
+                        current == null) != null) {
+                    synchronized (TheftIndex.class) {
+                        failedAt = System.currentTimeMillis();
+                    }
+                    return false;
+                }
+            }
+
+            int fromMonth = (fromYear - 1970) * 12;
+            Raster loaded = Raster.fold(current, fromMonth, Buckets.of(keys), monthOf(queriedAt), queriedAt);
+            raster = loaded;
+            File f;
+            synchronized (TheftIndex.class) {
+                f = file;
+            }
+            if (f != null)
+                write(f, loaded);
+            return true;
+        }
+    }
+
+    /** Loads the reports into the index on the RequestExecutor, if the index has not been loaded or is due for a
+     * refresh, and no load is already pending. A failed load is not retried for a few minutes.
+     *
+     * @return  true if a load was started, false otherwise
+     */
+    public static boolean refreshAsync () {
+        long now = System.currentTimeMillis();
+        Raster current = raster;
+        synchronized (TheftIndex.class) {
+            if (loading || now - failedAt < RETRY_INTERVAL
+                    || (current != null && now - current.loadedAt < REFRESH_INTERVAL))
+                return false;
+            loading = true;
+        }
+        try {
+            RequestExecutor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call () {
+                    try {
+                        return load();
+                    } finally {
+                        synchronized (TheftIndex.class) {
+                            loading = false;
+                        }
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) { // Too many requests pending; tried again on the next call
+            synchronized (TheftIndex.class) {
+                loading = false;
+            }
+            return false;
+        }
+    }
+
+    /** Returns whether the index has been loaded or read from file, and so answers counts.
+     *
+     * @return  true if the index answers counts
+     */
+    public static boolean isLoaded () {
+        return raster != null;
+    }
+
+    /** Returns the number of reports indexed.
+     *
+     * @return  the number of reports, or 0 if the index has not been loaded
+     */
+    public static int size () {
+        Raster current = raster;
+        return current == null ? 0 : (int)current.countSums[current.countSums.length - 1];
+    }
+
+    /** Returns the number of reports within a square around a point, the area a crime query with the same origin and
+     * radius would cover, in constant time. Where the square cuts through cells, the reports of each cell are taken
+     * to be spread evenly over it, so the count is fractional.
+     *
+     * @param   origin  the center of the square
+     * @param   radius  half the width of the square, in miles
+     * @return  the number of reports within the square, or -1 if the index has not been loaded
+     */
+    public static double count (LatLng origin, double radius) {
+        Raster current = raster;
+        return current == null ? -1 : Raster.total(current.countSums, origin, radius);
+    }
+
+    /** Returns the risk of theft within a square around a point, in constant time: the reports within the square,
+     * as with count, each weighted by its age, so that a report of the current month counts twice as much as one
+     * HALF_LIFE_MONTHS older. The weights are scaled so that the risks of all of San Francisco add up to the number
+     * of reports indexed, which keeps risks on the scale of counts: an area with an average share of recent reports
+     * has a risk equal to its count, and one whose reports are mostly recent a higher one. Ages are as of the last
+     * load, which is at most about a day old.
+     *
+     * @param   origin  the center of the square
+     * @param   radius  half the width of the square, in miles
+     * @return  the weighted number of reports within the square, or -1 if the index has not been loaded
+     */
+    public static double risk (LatLng origin, double radius) {
+        Raster current = raster;
+        if (current == null)
+            return -1;
+        double total = current.riskSums[current.riskSums.length - 1];
+        if (total <= 0)
+            return 0;
+        double scale = current.countSums[current.countSums.length - 1] / total;
+        return Math.max(0, Raster.total(current.riskSums, origin, radius) * scale);
+    }
+}
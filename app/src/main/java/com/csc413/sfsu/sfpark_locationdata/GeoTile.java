@@ -0,0 +1,169 @@
+package com.csc413.sfsu.sfpark_locationdata;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A GeoTile is one cell of the fixed grid on which parking locations are fetched and stored: the
+ * cell of a six character geohash, about 0.6 miles wide and 0.38 miles high in San Francisco.
+ *
+ * Searches are snapped to this grid rather than to their exact origin, so that any search whose
+ * area overlaps a tile already loaded is answered from the database for that tile, however far
+ * its origin is from that of the search which loaded it.
+ */
+final class GeoTile {
+
+    /** The number of characters of the geohash of a tile.*/
+    static final int PRECISION=6;
+    /** The number of bits of each of the latitude and longitude indexes of a tile.*/
+    private static final int BITS=PRECISION*5/2;
+    /** The height of a tile in degrees of latitude.*/
+    static final double LAT_STEP=180.0/(1<<BITS);
+    /** The width of a tile in degrees of longitude.*/
+    static final double LNG_STEP=360.0/(1<<BITS);
+    /** The number of miles per degree of latitude.*/
+    private static final double MILES_PER_LAT_DEGREE=68.94;
+    /** The margin by which the radius of the query of a tile exceeds its half-diagonal.*/
+    private static final double QUERY_MARGIN=1.05;
+    /** The digits of a geohash.*/
+    private static final char[] BASE32="0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private final int latIndex;
+    private final int lngIndex;
+    private final String hash;
+
+    private GeoTile(int latIndex, int lngIndex){
+        this.latIndex=latIndex;
+        this.lngIndex=lngIndex;
+        this.hash=encode(latIndex, lngIndex);
+    }
+
+    /**
+     * Interleaves the bits of the indexes of a tile, longitude first, into its geohash.
+     */
+    private static String encode(int latIndex, int lngIndex){
+        long bits=0;
+        for(int i=BITS-1; i>=0; i--){
+            bits=(bits<<1)|((lngIndex>>i)&1);
+            bits=(bits<<1)|((latIndex>>i)&1);
+        }
+        char[] chars=new char[PRECISION];
+        for(int i=0; i<PRECISION; i++){
+            chars[i]=BASE32[(int)(bits>>(5*(PRECISION-1-i)))&31];
+        }
+        return new String(chars);
+    }
+
+    private static int latIndex(double lat){
+        return Math.max(0, Math.min((1<<BITS)-1, (int)Math.floor((lat+90)/LAT_STEP)));
+    }
+
+    private static int lngIndex(double lng){
+        return Math.max(0, Math.min((1<<BITS)-1, (int)Math.floor((lng+180)/LNG_STEP)));
+    }
+
+    /**
+     * Returns the tile holding a point.
+     * @param coords The point.
+     * @return The tile whose cell holds the point.
+     */
+    static GeoTile of(LatLng coords){
+        return new GeoTile(latIndex(coords.latitude), lngIndex(coords.longitude));
+    }
+
+    /**
+     * Returns the approximate distance between two points, which is accurate within a few miles.
+     * @return The distance in miles.
+     */
+    static double distance(double lat1, double lng1, double lat2, double lng2){
+        double dy=(lat2-lat1)*MILES_PER_LAT_DEGREE;
+        double dx=(lng2-lng1)*MILES_PER_LAT_DEGREE*Math.cos(Math.toRadians((lat1+lat2)/2));
+        return Math.sqrt(dx*dx+dy*dy);
+    }
+
+    /**
+     * Returns the tiles overlapping a circular search area, nearest first.
+     * @param origin The center of the search.
+     * @param radius The radius of the search in miles.
+     * @return The tiles of the grid overlapping the area; at least the tile holding the origin.
+     */
+    static List<GeoTile> covering(final LatLng origin, double radius){
+        radius=Math.max(0, radius);
+        double dLat=radius/MILES_PER_LAT_DEGREE;
+        double dLng=radius/(MILES_PER_LAT_DEGREE*Math.cos(Math.toRadians(origin.latitude)));
+        List<GeoTile> tiles=new ArrayList<GeoTile>();
+        for(int y=latIndex(origin.latitude-dLat); y<=latIndex(origin.latitude+dLat); y++){
+            for(int x=lngIndex(origin.longitude-dLng); x<=lngIndex(origin.longitude+dLng); x++){
+                GeoTile tile=new GeoTile(y, x);
+                if(tile.distanceTo(origin)<=radius){
+                    tiles.add(tile);
+                }
+            }
+        }
+        Collections.sort(tiles, new Comparator<GeoTile>() {
+            @Override
+            public int compare(GeoTile a, GeoTile b){
+                LatLng ca=a.center();
+                LatLng cb=b.center();
+                return Double.compare(distance(ca.latitude, ca.longitude, origin.latitude, origin.longitude),
+                        distance(cb.latitude, cb.longitude, origin.latitude, origin.longitude));
+            }
+        });
+        return tiles;
+    }
+
+    /**
+     * @return The geohash of the tile, which identifies it.
+     */
+    String hash(){
+        return hash;
+    }
+
+    /**
+     * @return The center of the tile, from which it is queried.
+     */
+    LatLng center(){
+        return new LatLng(-90+(latIndex+.5)*LAT_STEP, -180+(lngIndex+.5)*LNG_STEP);
+    }
+
+    /**
+     * @return The radius in miles of the query from the center of the tile which covers it whole.
+     */
+    double queryRadius(){
+        LatLng center=center();
+        return QUERY_MARGIN*distance(center.latitude, center.longitude,
+                center.latitude+LAT_STEP/2, center.longitude+LNG_STEP/2);
+    }
+
+    /**
+     * Returns the distance from a point to the nearest point of the tile.
+     * @param point The point.
+     * @return The distance in miles, 0 if the point is within the tile.
+     */
+    double distanceTo(LatLng point){
+        double south=-90+latIndex*LAT_STEP;
+        double west=-180+lngIndex*LNG_STEP;
+        double lat=Math.max(south, Math.min(south+LAT_STEP, point.latitude));
+        double lng=Math.max(west, Math.min(west+LNG_STEP, point.longitude));
+        return distance(point.latitude, point.longitude, lat, lng);
+    }
+
+    @Override
+    public boolean equals(Object o){
+        return o instanceof GeoTile && hash.equals(((GeoTile)o).hash);
+    }
+
+    @Override
+    public int hashCode(){
+        return hash.hashCode();
+    }
+
+    @Override
+    public String toString(){
+        return hash;
+    }
+}
@@ -38,6 +38,14 @@ public class LocationDatabaseContract {
         public static final String KEY_PARKED_HERE="parkedHere";
         public static final String KEY_IS_USER_DEFINED="isUserDefined";
         public static final String KEY_THEFT_PROBABILITY="theftProbability";
+        public static final String KEY_TILE="tile";
+    }
+
+    // Static column names of the tiles whose locations have been loaded
+    public static abstract class TileEntry implements BaseColumns {
+        public static final String TABLE_TILES = "tiles";
+        public static final String KEY_GEOHASH="geohash";
+        public static final String KEY_FETCHED_AT="fetchedAt";
     }
 
 }
@@ -10,7 +10,9 @@ import android.location.Location;
 import com.google.android.gms.maps.model.LatLng;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  *  LocationDataBaseHandler objects create, instantiate, and interface with databases of locations:
@@ -20,6 +22,14 @@ import java.util.List;
  *  -Not all fields for each location will contain data.
  *  -LocationDataBaseHandler objects will automatically remove the least searched locations when
  *  the size limit is reached.
+ *  -Each location is filed under the GeoTile holding its coordinates, and a second table records
+ *  the tiles whose locations have been loaded from SFPark and when, so that searches are answered
+ *  per tile.
+ *
+ * The handler is shared by the UI thread and the searches running on the RequestExecutor. Every
+ * method holding the database is synchronized on the handler, so calls are serialized, and the
+ * SQLiteDatabase kept open by the SQLiteOpenHelper is never closed between them; callers make a
+ * sequence of calls atomic by synchronizing on the handler too.
  *
  * Currently the SFParkLocationFactory should be the only point of entry into the
  * LocationDatabaseHandler class. This is due to the fact that if the timesSearched field of
@@ -45,7 +55,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      */
     private ParkingLocation leastSearchedLocation;
     /** The version of the database. If changed, the update method is called.*/
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 2;
     /** The maximum number of rows to be maintained by the database*/
     private static final int maxRows=LocationDatabaseContract.MAX_ROWS;
     /**The name of the locations table.*/
@@ -91,6 +101,16 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
     private static final String keyTheftProb=LocationDatabaseContract.LocationEntry.KEY_THEFT_PROBABILITY;
     /**The name of the ID key for each entry, to be stored automatically as an INTEGER PRIMARY KEY*/
     private static final String locationID= LocationDatabaseContract.LocationEntry.LOCATION_NAME_ENTRY_ID;
+    /**The name of the tile column key, the geohash of the GeoTile holding each location. Stored as a
+     * STRING value.*/
+    private static final String keyTile=LocationDatabaseContract.LocationEntry.KEY_TILE;
+    /**The name of the table of loaded tiles.*/
+    private static final String tileTableName=LocationDatabaseContract.TileEntry.TABLE_TILES;
+    /**The name of the geohash column key of the tiles table, to be stored as a STRING PRIMARY KEY*/
+    private static final String keyGeohash=LocationDatabaseContract.TileEntry.KEY_GEOHASH;
+    /**The name of the column key of the time in milliseconds at which a tile was last loaded, to be
+     * stored as an SQLite INTEGER value.*/
+    private static final String keyFetchedAt=LocationDatabaseContract.TileEntry.KEY_FETCHED_AT;
 
 
 
@@ -120,8 +140,15 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
                 +" DOUBLE, "+this.keyHasStreetParking+" INTEGER, "+this.keyName+" STRING, "
                 +this.keyDesc+" STRING, "+this.keyOSPID+" INTEGER, "+this.keyBFID+" INTEGER, "
                 +keyIsFavorite+" INTEGER, "+this.keyTimesSearched+" INTEGER, "+this.keyParkedHere
-                +" INTEGER, "+this.keyIsUserDefined+" INTEGER, "+this.keyTheftProb+" DOUBLE"+")";
+                +" INTEGER, "+this.keyIsUserDefined+" INTEGER, "+this.keyTheftProb+" DOUBLE, "
+                +this.keyTile+" STRING"+")";
         db.execSQL(CREATE_LOCATIONS_TABLE);
+        db.execSQL("CREATE INDEX "+this.tableName+"_"+this.keyTile+" ON "+this.tableName+"("
+                +this.keyTile+")");
+
+        String CREATE_TILES_TABLE = "CREATE TABLE " + this.tileTableName + "(" + this.keyGeohash
+                +" STRING PRIMARY KEY, "+this.keyFetchedAt+" INTEGER"+")";
+        db.execSQL(CREATE_TILES_TABLE);
 
     }
 
@@ -135,6 +162,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         // Drop older table if existed
         db.execSQL("DROP TABLE IF EXISTS "+this.tableName);
+        db.execSQL("DROP TABLE IF EXISTS "+this.tileTableName);
 
         // Create tables again
         onCreate(db);
@@ -146,7 +174,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * If the capacity of the database is reached, the minimally searched location will be deleted.
      * @param loc a ParkingLocation object to be parsed into discrete data to store in database.
      */
-    public void addLocation(ParkingLocation loc){
+    public synchronized void addLocation(ParkingLocation loc){
         //Make sure minimum is set properly.
         this.updateMinTimesSearched();
         this.updateparkedHereCount();
@@ -197,14 +225,14 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
             values.put(this.keyParkedHere, ((loc.getParkedHere() ? 1: 0)));
             values.put(this.keyIsUserDefined, ((loc.isUserDefined()? 1: 0)));
             values.put(this.keyTheftProb, loc.getTheftProbability());
+            values.put(this.keyTile, GeoTile.of(loc.getCoords()).hash());
 
             db.insert(this.tableName, null, values);
-            db.close();
             this.updateMinTimesSearched();
         }
     }
 
-    public void addFavOrParkedHere(ParkingLocation loc){
+    public synchronized void addFavOrParkedHere(ParkingLocation loc){
         if(loc.isFavorite()&&this.numFav>=10){ //do not allow more than 10 favorites
             return;
         }
@@ -232,9 +260,9 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
             values.put(this.keyParkedHere, ((loc.getParkedHere() ? 1: 0)));
             values.put(this.keyIsUserDefined, ((loc.isUserDefined()? 1: 0)));
             values.put(this.keyTheftProb, loc.getTheftProbability());
+            values.put(this.keyTile, GeoTile.of(loc.getCoords()).hash());
 
             db.insert(this.tableName, null, values);
-            db.close();
             this.updateMinTimesSearched();
             this.updateparkedHereCount();
             this.updateFavCount();
@@ -246,7 +274,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * An accessor method for retrieving all ParkingLocation objects from the location database.
      * @return An array list of ParkingLocation objects.
      */
-    public List<ParkingLocation> getAllLocations() {
+    public synchronized List<ParkingLocation> getAllLocations() {
         List<ParkingLocation> locationList = new ArrayList<ParkingLocation>();
         String selectQuery = "SELECT  * FROM " + this.tableName;
         SQLiteDatabase db = this.getWritableDatabase();
@@ -283,7 +311,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * @return An integer count representing the number of rows (locations) in the database
      */
 
-    public int getLocationsCount() {
+    public synchronized int getLocationsCount() {
         SQLiteDatabase db = this.getReadableDatabase();
         String countQuery = "SELECT  * FROM " + this.tableName;
         Cursor cursor = db.rawQuery(countQuery, null);
@@ -299,7 +327,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * database. Therefore, the timesSearched field in the database will be used.
      * @param loc The ParkingLocation to increment the timesSearched field on.
      */
-    public void incrementTimesSearched(ParkingLocation loc){
+    public synchronized void incrementTimesSearched(ParkingLocation loc){
         if(loc.hasOnStreetParking()&&this.getLocationFromBFID(loc.getBfid())!=null
                 &&loc.getBfid()!=-1){ //Check if BFID location exists in database.
             loc=this.getLocationFromBFID(loc.getBfid()); //Use value of locationCount stored in DB.
@@ -320,7 +348,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * @param ospid the ospid field to search for.
      * @return A ParkingLocation object composed of the SQLite row with the specified OSPID.
      */
-    public ParkingLocation getLocationFromOSPID(int ospid){
+    public synchronized ParkingLocation getLocationFromOSPID(int ospid){
         SQLiteDatabase db=this.getReadableDatabase();
 
         String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyOSPID+" = '"+ospid+"'";
@@ -361,7 +389,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * @param bfid The BFID to search for.
      * @return A ParkingLocation object composed of the SQLite row with the specified BFID
      */
-    public ParkingLocation getLocationFromBFID(int bfid){
+    public synchronized ParkingLocation getLocationFromBFID(int bfid){
         SQLiteDatabase db=this.getReadableDatabase();
         String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyBFID+" = "+bfid;
         Cursor cursor=db.rawQuery(query, null);
@@ -398,7 +426,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * Retrieves a list of all locations with the isFavorite value set to 1 (true).
      * @return An array list of ParkingLocations that are favorites in the database.
      */
-    public List<ParkingLocation> getFavorites(){
+    public synchronized List<ParkingLocation> getFavorites(){
         SQLiteDatabase db=this.getReadableDatabase();
         String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyIsFavorite+" = 1";
         Cursor cursor=db.rawQuery(query, null);
@@ -440,7 +468,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * Retrieves a list of all locations with the parkedHere value set to 1 (true).
      * @return An array list of ParkingLocations that have been parked at by the user.
      */
-    public List<ParkingLocation> getParkedLocations(){
+    public synchronized List<ParkingLocation> getParkedLocations(){
         SQLiteDatabase db=this.getReadableDatabase();
         String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyParkedHere+" = 1";
         Cursor cursor=db.rawQuery(query, null);
@@ -482,7 +510,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * Retrieves a list of user defined parking locations (with minimal data)
      * @return An array list of ParkingLocations that have been defined by the user.
      */
-    public List<ParkingLocation> getUserDefinedLocations(){
+    public synchronized List<ParkingLocation> getUserDefinedLocations(){
         SQLiteDatabase db=this.getReadableDatabase();
         String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyIsUserDefined+" = 1";
         Cursor cursor=db.rawQuery(query, null);
@@ -529,7 +557,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * @return The number of rows that were affected by the update. If 0, the caller should call
      * addLocation()
      */
-    public int updateLocation(ParkingLocation location) {
+    public synchronized int updateLocation(ParkingLocation location) {
         SQLiteDatabase db = this.getWritableDatabase();
 
         ContentValues values = new ContentValues();
@@ -548,7 +576,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
         values.put(this.keyParkedHere, location.getParkedHere()? 1: 0);
         values.put(this.keyIsUserDefined, ((location.isUserDefined()? 1: 0)));
         values.put(this.keyTheftProb, location.getTheftProbability());
-
+        values.put(this.keyTile, GeoTile.of(location.getCoords()).hash());
 
         int rowsAffected=db.update(this.tableName, values, (location.hasOnStreetParking()?
                 this.keyBFID: this.keyOSPID)+"=?",new String[] {
@@ -560,7 +588,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
         return rowsAffected;
     }
 
-    public void updateFavCount(){
+    public synchronized void updateFavCount(){
         SQLiteDatabase db=this.getReadableDatabase();
         String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyIsFavorite+" = 1";
         Cursor cursor=db.rawQuery(query, null);
@@ -568,7 +596,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
         cursor.close();
     }
 
-    public void updateparkedHereCount(){
+    public synchronized void updateparkedHereCount(){
         SQLiteDatabase db=this.getReadableDatabase();
         String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyParkedHere+" = 1";
         Cursor cursor=db.rawQuery(query, null);
@@ -596,23 +624,20 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
     }
 
     /**
-     * Deletes the specified location from the SQLite database, and all locations with the same
-     * origin.
+     * Deletes the specified location from the SQLite database, and all locations in the same tile.
+     * The tile is no longer loaded, so the next search overlapping it fetches it again.
      * Note that the database uses the BFID or OSPID data fields to find the location to delete
      * @param location The location to delete.
      */
-    public void deleteLocation(ParkingLocation location) {
+    public synchronized void deleteLocation(ParkingLocation location) {
         List<Integer> offStreetToDelete=new ArrayList<Integer>();
         List<Integer> onStreetToDelete=new ArrayList<Integer>();
 
         if(location!=null) {
+            String tile=GeoTile.of(location.getCoords()).hash();
             SQLiteDatabase dbR=this.getReadableDatabase();
-            String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyOriginLat+" > "
-                    +(location.getOriginLocation().latitude-.0000000000001)+" AND "+this.keyOriginLong+" > "
-                    +(location.getOriginLocation().longitude-.0000000000001)+" AND "+this.keyOriginLat+" < "
-                    +(location.getOriginLocation().latitude+.0000000000001)+" AND "+this.keyOriginLong+" < "
-                    +(location.getOriginLocation().longitude+.0000000000001);
-            Cursor cursor=dbR.rawQuery(query, null);
+            String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyTile+" = ?";
+            Cursor cursor=dbR.rawQuery(query, new String[]{tile});
             if(cursor.moveToFirst()){
                 do{
                     //only delete if the locations are not favorites or parked here.
@@ -625,7 +650,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
                     }
                 }while(cursor.moveToNext());
             }
-            dbR.close();
+            cursor.close();
 
 
             SQLiteDatabase dbW = this.getWritableDatabase();
@@ -636,7 +661,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
                     : Integer.toString(location.getOspid()) ;
             dbW.delete(this.tableName, firstDeleteColumnName,new String[]{String.valueOf(id)});
 
-            //delete all locations with the same origin.
+            //delete all locations in the same tile.
             for(int i=0; i<offStreetToDelete.size(); i++){
                 dbW.delete(this.tableName, this.keyOSPID+" =? ",
                         new String[]{String.valueOf(offStreetToDelete.get(i))});
@@ -646,10 +671,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
                 dbW.delete(this.tableName, this.keyBFID+" =? ",
                         new String[]{String.valueOf(onStreetToDelete.get(i))});
             }
-
-
-
-            dbW.close();
+            dbW.delete(this.tileTableName, this.keyGeohash+" = ?", new String[]{tile});
         }
     }
 
@@ -659,7 +681,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * Updates the leastSearchedLocation to reference the least searched location.
      * This method will NOT consider locations that have favorite or parkedHere set to true.
      */
-    public void updateMinTimesSearched(){
+    public synchronized void updateMinTimesSearched(){
         SQLiteDatabase db=this.getReadableDatabase();
         Cursor cursor = db.rawQuery("select * from locations where timesSearched = " +
                 "(select MIN(timesSearched) from locations)", null);
@@ -688,7 +710,7 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
      * @return
      */
 
-    public List<ParkingLocation> getUserDefinedWithinRadius(LatLng origin, double radius){
+    public synchronized List<ParkingLocation> getUserDefinedWithinRadius(LatLng origin, double radius){
 
         List<ParkingLocation> udlList=new ArrayList<ParkingLocation>();
 
@@ -729,63 +751,125 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
         return udlList;
     }
 
-    public List<ParkingLocation> getLocsFromOrigin(List<LatLng> latlngs){
-        SQLiteDatabase db=this.getReadableDatabase();
-        List<ParkingLocation> locs=new ArrayList<ParkingLocation>();
-        for(int i=0; i<latlngs.size(); i++) {
-            String query = "SELECT * FROM " + this.tableName + " WHERE " + this.keyOriginLat + " > "
-                    + (latlngs.get(i).latitude - .0000000000001) + " AND " + this.keyOriginLong + " > "
-                    + (latlngs.get(i).longitude - .0000000000001) + " AND " + this.keyOriginLat + " < "
-                    + (latlngs.get(i).latitude + .0000000000001) + " AND " + this.keyOriginLong + " < "
-                    + (latlngs.get(i).longitude + .0000000000001);
-            Cursor cursor = db.rawQuery(query, null);
-            if (cursor.moveToFirst()) {
-                do {
-
-                    LatLng coords = new LatLng(cursor.getDouble(1), cursor.getDouble(2));
-                    LatLng nOrigin = new LatLng(cursor.getDouble(3), cursor.getDouble(4));
-                    Double radius = cursor.getDouble(5);
-                    boolean hasStreetParking = ((cursor.getInt(6) == 1) ? true : false);
-                    String name = cursor.getString(7);
-                    String desc = cursor.getString(8);
-                    int ospid = cursor.getInt(9);
-                    int bfid = cursor.getInt(10);
-                    boolean isFavorite = (cursor.getInt(11) == 1 ? true : false);
-                    int timesSearched = ((cursor.getInt(12)) + 1);
-                    boolean parkedHere = (cursor.getInt(13) == 1 ? true : false);
-                    boolean isUserDefined = (cursor.getInt(14) == 1 ? true : false);
-                    double theftProb=cursor.getDouble(15);
+    /**
+     * Builds a list of "?" placeholders for the arguments of an SQL IN clause.
+     * @param count The number of arguments.
+     * @return The placeholders, separated by commas.
+     */
+    private static String placeholders(int count){
+        StringBuilder sb=new StringBuilder(count*2);
+        for(int i=0; i<count; i++){
+            sb.append(i==0? "?" : ",?");
+        }
+        return sb.toString();
+    }
 
-                    ParkingLocation location = new ParkingLocation(nOrigin, radius,
-                            hasStreetParking, name, desc, ospid, bfid, coords, isFavorite,
-                            timesSearched, parkedHere, isUserDefined, theftProb);
-                    locs.add(location);
-                    this.incrementTimesSearched(location);
-                } while (cursor.moveToNext());
-            }
+    /**
+     * @param tiles The tiles.
+     * @return The geohashes of the tiles.
+     */
+    private static String[] hashes(List<GeoTile> tiles){
+        String[] hashes=new String[tiles.size()];
+        for(int i=0; i<hashes.length; i++){
+            hashes[i]=tiles.get(i).hash();
         }
-        return locs;
+        return hashes;
     }
 
-    public List<LatLng> isWithinToleranceOfOrigins(LatLng test){
+    /**
+     * Retrieves which of the given tiles have had their locations loaded from SFPark since a given
+     * time.
+     * @param tiles The tiles to look up.
+     * @param since The time in milliseconds before which a tile is no longer considered loaded.
+     * @return The geohashes of the tiles loaded since that time.
+     */
+    synchronized Set<String> getLoadedTiles(List<GeoTile> tiles, long since){
+        Set<String> loaded=new HashSet<String>();
+        if(tiles.isEmpty()){
+            return loaded;
+        }
         SQLiteDatabase db=this.getReadableDatabase();
-        String query="SELECT DISTINCT "+this.keyOriginLat+", "+this.keyOriginLong
-                +" FROM "+this.tableName;
-        Cursor cursor=db.rawQuery(query, null);
-        List<LatLng>latlngs=new ArrayList<LatLng>();
+        String query="SELECT "+this.keyGeohash+" FROM "+this.tileTableName+" WHERE "+this.keyGeohash
+                +" IN ("+placeholders(tiles.size())+") AND "+this.keyFetchedAt+" >= "+since;
+        Cursor cursor=db.rawQuery(query, hashes(tiles));
+        if(cursor.moveToFirst()){
+            do{
+                loaded.add(cursor.getString(0));
+            }while(cursor.moveToNext());
+        }
+        cursor.close();
+        return loaded;
+    }
 
-        if(cursor.moveToFirst()) {
-            do {
-                if (this.isWithinRadius(new LatLng(cursor.getDouble(0), cursor.getDouble(1)), test,
-                        .15)) {
-                    latlngs.add(new LatLng(cursor.getDouble(0), cursor.getDouble(1)));
-                }
+    /**
+     * Records that the locations of a tile have been loaded from SFPark. Must be called only after
+     * every location of the response has been added.
+     * @param tile The tile loaded.
+     * @param time The time in milliseconds at which it was loaded.
+     */
+    synchronized void markTileLoaded(GeoTile tile, long time){
+        SQLiteDatabase db=this.getWritableDatabase();
+        ContentValues values=new ContentValues();
+        values.put(this.keyGeohash, tile.hash());
+        values.put(this.keyFetchedAt, time);
+        db.replace(this.tileTableName, null, values);
+    }
 
-            } while (cursor.moveToNext());
+    /**
+     * Retrieves the SFPark locations of the given tiles which lie within a radius of an origin, and
+     * increments their timesSearched field, with one query and one update however many tiles and
+     * locations there are. User defined locations are left out.
+     * @param tiles The tiles of the search, which should cover the search area.
+     * @param origin The origin of the search.
+     * @param radius The radius of the search in miles.
+     * @return The locations found, with their timesSearched field already incremented.
+     */
+    synchronized List<ParkingLocation> getLocationsInTiles(List<GeoTile> tiles, LatLng origin, double radius){
+        List<ParkingLocation> locs=new ArrayList<ParkingLocation>();
+        if(tiles.isEmpty()){
+            return locs;
         }
+        SQLiteDatabase db=this.getWritableDatabase();
+        String query="SELECT * FROM "+this.tableName+" WHERE "+this.keyTile+" IN ("
+                +placeholders(tiles.size())+") AND "+this.keyIsUserDefined+" = 0";
+        Cursor cursor=db.rawQuery(query, hashes(tiles));
+        StringBuilder found=new StringBuilder();
+        if(cursor.moveToFirst()){
+            do{
+                double lat=cursor.getDouble(1);
+                double lng=cursor.getDouble(2);
+                if(GeoTile.distance(lat, lng, origin.latitude, origin.longitude)>radius){
+                    continue;
+                }
+                LatLng coords = new LatLng(lat, lng);
+                LatLng nOrigin = new LatLng(cursor.getDouble(3), cursor.getDouble(4));
+                Double nRadius = cursor.getDouble(5);
+                boolean hasStreetParking = ((cursor.getInt(6) == 1) ? true : false);
+                String name = cursor.getString(7);
+                String desc = cursor.getString(8);
+                int ospid = cursor.getInt(9);
+                int bfid = cursor.getInt(10);
+                boolean isFavorite = (cursor.getInt(11) == 1 ? true : false);
+                int timesSearched = ((cursor.getInt(12)) + 1);
+                boolean parkedHere = (cursor.getInt(13) == 1 ? true : false);
+                boolean isUserDefined = (cursor.getInt(14) == 1 ? true : false);
+                double theftProb=cursor.getDouble(15);
 
-        return latlngs;
+                ParkingLocation location = new ParkingLocation(nOrigin, nRadius,
+                        hasStreetParking, name, desc, ospid, bfid, coords, isFavorite,
+                        timesSearched, parkedHere, isUserDefined, theftProb);
+                locs.add(location);
+                found.append(found.length()==0? "" : ",").append(cursor.getInt(0));
+            }while(cursor.moveToNext());
+        }
+        cursor.close();
 
+        if(found.length()>0){
+            db.execSQL("UPDATE "+this.tableName+" SET "+this.keyTimesSearched+" = "
+                    +this.keyTimesSearched+" + 1 WHERE "+this.locationID+" IN ("+found+")");
+            this.updateMinTimesSearched();
+        }
+        return locs;
     }
 
 
@@ -809,17 +893,17 @@ public class LocationDatabaseHandler extends SQLiteOpenHelper {
         return ((src.distanceTo(dst)<=radius*1609.34)? true : false);
     }
 
-    protected int getNumParkedHere(){
+    protected synchronized int getNumParkedHere(){
         this.updateparkedHereCount();
         return this.numParkedHere;
     }
 
-    protected int getNumFav(){
+    protected synchronized int getNumFav(){
         this.updateFavCount();
         return this.numFav;
     }
 
-    protected ParkingLocation getParkedHereToDelete(){
+    protected synchronized ParkingLocation getParkedHereToDelete(){
         return this.parkedHereToDelete;
     }
 
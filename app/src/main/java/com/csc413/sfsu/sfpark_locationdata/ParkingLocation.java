@@ -17,6 +17,9 @@ import com.google.android.gms.maps.model.LatLng;
  * @author Devin Clary
  */
 public class ParkingLocation {
+    /** The theftProbability of a location whose crime reports have not yet been retrieved.*/
+    public static final double THEFT_PROBABILITY_PENDING=-1.0;
+
     /**Represents the center from which the SFPark query was performed that resulted in this
      * Parking Location Data.*/
     private LatLng originLocation;
@@ -251,6 +254,20 @@ public class ParkingLocation {
         this.timesSearched=timesSearched;
     }
 
+    /**
+     * Sets the location's theftProbability field, once the crime reports around its origin are known.
+     *
+     * Note: This method should only be accessible by the SFParkLocationFactory and
+     * LocationDatabaseHandler classes-hence this method has an access modifier of protected.
+     * DO NOT SET THIS FIELD FROM ANY OTHER CLASS.
+     * Use the SFParkLocationFactory class to set this field to prevent unintended side-effects.
+     *
+     * @param theftProbability The percentage probability of a theft occurring at this location.
+     */
+    protected void setTheftProbability(double theftProbability){
+        this.theftProbability=theftProbability;
+    }
+
     /*
     public String toString(){
         return "\t (Times Searched: "+getTimesSearched()+") "+"Name: "+getName()+"\t Desc: "+getDesc()
@@ -0,0 +1,66 @@
+package com.csc413.sfsu.sfpark_locationdata;
+
+import com.csc413.sfsu.sfpark_simplified.RATESElement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The PricingCache class holds the rate schedules already retrieved for parking locations, keyed by
+ * their BFID (on street) or OSPID (off street), so that a location's pricing is fetched from
+ * SFPark at most once while it stays among the most recently viewed.
+ *
+ * SFPark rates change rarely, so entries do not expire; only the least recently used are evicted.
+ */
+class PricingCache {
+    /** The number of locations whose rates are kept.*/
+    private static final int CAPACITY=128;
+
+    /** Rates by location key, in access order. A null value records a location without rates.*/
+    private static final LinkedHashMap<String, RATESElement> RATES=
+            new LinkedHashMap<String, RATESElement>(16, 0.75f, true){
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RATESElement> eldest){
+                    return size()>CAPACITY;
+                }
+            };
+
+    private PricingCache(){}
+
+    /**
+     * Returns the key of a location.
+     * @param location The parking location.
+     * @return "ON:" followed by the BFID of an on street location, or "OFF:" followed by the OSPID
+     * of an off street location.
+     */
+    static String key(ParkingLocation location){
+        return location.hasOnStreetParking()? "ON:"+location.getBfid() : "OFF:"+location.getOspid();
+    }
+
+    /**
+     * Whether the rates of a location have been retrieved.
+     * @param key The key of the location.
+     * @return true if the rates, or their absence, are cached.
+     */
+    static synchronized boolean contains(String key){
+        return RATES.containsKey(key);
+    }
+
+    /**
+     * Returns the cached rates of a location.
+     * @param key The key of the location.
+     * @return The rates, or null if the location has none or they have not been retrieved.
+     */
+    static synchronized RATESElement get(String key){
+        return RATES.get(key);
+    }
+
+    /**
+     * Caches the rates of a location.
+     * @param key The key of the location.
+     * @param rates The rates, or null if the location has none.
+     */
+    static synchronized void put(String key, RATESElement rates){
+        RATES.put(key, rates);
+    }
+}
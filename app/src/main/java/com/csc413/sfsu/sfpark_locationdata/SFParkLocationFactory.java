@@ -1,13 +1,28 @@
 package com.csc413.sfsu.sfpark_locationdata;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
 import com.csc413.sfsu.csc413_parking.MainActivity;
 import com.csc413.sfsu.sf_vehicle_crime.SFCrimeHandler;
+import com.csc413.sfsu.sf_vehicle_crime.TheftIndex;
+import com.csc413.sfsu.sfpark_simplified.AVLElement;
+import com.csc413.sfsu.sfpark_simplified.AvlRecordConsumer;
+import com.csc413.sfsu.sfpark_simplified.RATESElement;
+import com.csc413.sfsu.sfpark_simplified.RequestExecutor;
+import com.csc413.sfsu.sfpark_simplified.ResponseCallback;
 import com.csc413.sfsu.sfpark_simplified.SFParkQuery;
 import com.csc413.sfsu.sfpark_simplified.SFParkXMLResponse;
 import com.google.android.gms.maps.model.LatLng;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The SFParkLocationFactory class is responsible for retrieving and storing location data from the
@@ -21,6 +36,22 @@ import java.util.List;
  */
 public class SFParkLocationFactory
 {
+    /** The tag of the messages logged by this class.*/
+    private static final String TAG="SFParkLocationFactory";
+    /** The time in milliseconds within which a search returns, whether or not the crime query has completed.*/
+    private static final long QUERY_DEADLINE=12000;
+    /** The time in milliseconds for which the locations of a tile are answered from the database.
+     * They hold no availability, only names, identifiers and coordinates, which change rarely.*/
+    private static final long TILE_TTL=24*60*60*1000L;
+    /** The radius in miles of the query retrieving the rates of a single location.*/
+    private static final double PRICING_RADIUS=.05;
+    /** The half-width in miles of the area around a location whose crime reports make its theft probability.*/
+    private static final double CRIME_RADIUS=.05;
+    /** The number of crime reports around a location for each unit of its theft probability.*/
+    private static final double REPORTS_PER_PROBABILITY=13.3109243697;
+    /** The change in theft probability below which a stored location is left as is.*/
+    private static final double THEFT_PROBABILITY_TOLERANCE=.001;
+
     private LocationDatabaseHandler db;
     private MainActivity context;
 
@@ -33,93 +64,438 @@ public class SFParkLocationFactory
      * Retrieves all parking locations from SFPark within the specified radius of the origin as an
      * array list of discrete ParkingLocation objects.
      *
-     * This method will also add or update all locations found to an internal database.
+     * The search area is snapped to the GeoTile grid. Tiles loaded within the last TILE_TTL are
+     * answered from the internal database; only the other tiles are fetched from SFPark, side by
+     * side, and their locations added or updated in the database. A search anywhere within tiles
+     * already loaded, or across their edges, therefore needs no query at all.
      *
      * If the internal database reaches capacity, the least searched locations are deleted.
      *
+     * The SFPark and crime queries run concurrently. This method blocks until both complete or the
+     * search deadline passes, whichever comes first; a crime query still running then fills in the
+     * theft probability of the database entries when it completes, and the returned locations keep
+     * a theft probability of ParkingLocation.THEFT_PROBABILITY_PENDING. Tiles not fetched by the
+     * deadline are answered with whatever the database already holds for them. Call
+     * getParkingLocationsAsync from the main thread instead.
+     *
+     * @param origin Center of search for parking locations.
+     * @param radius radius to search for parking locations in miles.
+     * @return list of ParkingLocation objects within the radius of the origin. This list will
+     * include user defined locations.
+     */
+    public List<ParkingLocation> getParkingLocations(final LatLng origin, final double radius){
+        final List <ParkingLocation> locationList=searchTiles(origin, radius, false);
+
+        List<ParkingLocation> udl=db.getUserDefinedWithinRadius(origin, radius);
+
+        if(!udl.isEmpty()){
+            locationList.addAll(udl);
+        }
+
+
+        return locationList;
+    }
+
+    /**
+     * Refreshes the parking locations within the specified radius of the origin from SFPark, even
+     * if the database already holds the tiles of the search area.
+     *
+     * SFPark publishes availability at fixed intervals, so a tile refreshed within the same
+     * interval as its last query is answered from the database without re-parsing or re-persisting
+     * the response.
+     *
+     * This method blocks until the queries complete.
+     *
      * @param origin Center of search for parking locations.
      * @param radius radius to search for parking locations in miles.
      * @return list of ParkingLocation objects within the radius of the origin. This list will
      * include user defined locations.
      */
-    public List<ParkingLocation> getParkingLocations(LatLng origin, double radius){
-        List <ParkingLocation> locationList=new ArrayList<ParkingLocation>();
-        List<LatLng>existingOrigins=this.db.isWithinToleranceOfOrigins(origin);
-        if(existingOrigins.isEmpty()) {
-            SFParkQuery query = new SFParkQuery();
-            query.setLatitude(origin.latitude);
-            query.setLongitude(origin.longitude);
-            query.setRadius(radius);
-            query.setUnitOfMeasurement("MILE");
-
-            SFParkXMLResponse response = new SFParkXMLResponse();
-            boolean success = response.populate(query);
-
-
-            String status = response.status();
-            if (success) {
-                String message = response.message();
-                int numRecords = response.numRecords();
-
-                double crimeRadius=.05;
-                int startYear=2011;
-                int count=100;
-                int offset=0;
-                double crimeProb=0.0;
-
-                SFCrimeHandler crimeHandler = new SFCrimeHandler(); /* Initialize empty handler */
-                success = crimeHandler.generateReports(origin, crimeRadius, startYear, count, offset);
-                /* Retrieve report data on a successful query */
-                if (success) {
-                    crimeProb=((double)crimeHandler.numReports()/13.3109243697);
+    public List<ParkingLocation> refreshParkingLocations(final LatLng origin, final double radius){
+        List<ParkingLocation> locationList=searchTiles(origin, radius, true);
+
+        List<ParkingLocation> udl=db.getUserDefinedWithinRadius(origin, radius);
+
+        if(!udl.isEmpty()){
+            locationList.addAll(udl);
+        }
+
+        return locationList;
+    }
+
+    /**
+     * Retrieves all parking locations from SFPark within the specified radius of the origin without
+     * blocking the calling thread, as with getParkingLocations.
+     *
+     * The queries and database updates run on the RequestExecutor; the resulting list is delivered to
+     * the callback on the main thread. Cancel the returned Future when the result is no longer wanted,
+     * e.g. when a newer search supersedes this one; the callback is then never called.
+     *
+     * @param origin Center of search for parking locations.
+     * @param radius radius to search for parking locations in miles.
+     * @param callback receives the list of ParkingLocation objects, or the status of the failure.
+     * @return a Future which may be used to cancel the search.
+     */
+    public Future<List<ParkingLocation>> getParkingLocationsAsync(final LatLng origin, final double radius,
+                                                                 ResponseCallback<List<ParkingLocation>> callback){
+        try {
+            return RequestExecutor.submit(new Callable<List<ParkingLocation>>() {
+                @Override
+                public List<ParkingLocation> call() {
+                    return getParkingLocations(origin, radius);
                 }
+            }, callback);
+        } catch (RejectedExecutionException e) {
+            return rejected(e, callback);
+        }
+    }
 
+    /**
+     * Delivers the rejection of a request to its callback on the main thread, as the failure of a
+     * request which ran would be, rather than throwing it at the caller.
+     *
+     * @param e the exception thrown because too many requests are pending.
+     * @param callback receives the status of the failure.
+     * @return a Future which may be used to cancel the delivery.
+     */
+    private static <T> Future<T> rejected(final RejectedExecutionException e, final ResponseCallback<T> callback){
+        Log.w(TAG, "Too many requests pending", e);
+        FutureTask<T> delivery=new FutureTask<T>(new Runnable() {
+            @Override
+            public void run() {
+                callback.onFailure("FAILED: " + e.getClass());
+            }
+        }, null);
+        new Handler(Looper.getMainLooper()).post(delivery);
+        return delivery;
+    }
 
-                for (int i = 0; i < numRecords; i++) {
-                    LatLng coords = new LatLng(
-                            response.avl(i).loc().latitude(0), response.avl(i).loc().longitude(0));
-                    String name = response.avl(i).name();
-                    boolean hasOnStreetParking = (response.avl(i).type().equals("ON")) ? true : false;
-                    String desc = response.avl(i).desc();
-                    int ospid = response.avl(i).ospid();
-                    int bfid = response.avl(i).bfid();
-                    boolean isFavorite = false;
-                    int timesSearched = 1;
-                    boolean parkedHere = false;
-                    boolean isUserDefined = false;
+    /**
+     * Loads the tiles of a search area which are missing from the database, or all of them when
+     * refreshing, then retrieves the locations of the area from the database.
+     *
+     * @param origin Center of search for parking locations.
+     * @param radius radius to search for parking locations in miles.
+     * @param refresh true to fetch every tile of the area, skipping those unchanged since they were
+     * last fetched; false to fetch only the tiles not loaded within the last TILE_TTL.
+     * @return list of the SFPark locations within the radius of the origin.
+     */
+    private List<ParkingLocation> searchTiles(LatLng origin, double radius, boolean refresh){
+        long deadline=System.currentTimeMillis()+QUERY_DEADLINE;
+        List<GeoTile> tiles=GeoTile.covering(origin, radius);
+        List<GeoTile> missing=refresh? tiles : TilePlanner.missing(tiles,
+                db.getLoadedTiles(tiles, System.currentTimeMillis()-TILE_TTL));
+        if(missing.isEmpty()) {
+            System.out.println("Found locations using database.");
+        }
+        else {
+            fetchTiles(origin, missing, refresh, deadline);
+        }
+        List<ParkingLocation> locations=db.getLocationsInTiles(tiles, origin, radius);
+        updateTheftRisk(locations);
+        return locations;
+    }
 
-                    ParkingLocation loc = new ParkingLocation(origin, radius, hasOnStreetParking, name,
-                            desc, ospid, bfid, coords, isFavorite, timesSearched, parkedHere,
-                            isUserDefined, crimeProb);
+    /**
+     * Brings the theft probability of stored locations up to date with the TheftIndex, once it is
+     * loaded. Each location gets the risk around its own coordinates, which decays as its reports
+     * age and follows the reports of every refresh of the index, so a location answered from the
+     * database does not keep the probability it was stored with. Only the locations whose
+     * probability changed are written back to the database.
+     *
+     * @param locations the locations of a search; those with a pending theft probability are left
+     * to the crime query of the search.
+     */
+    private void updateTheftRisk(List<ParkingLocation> locations){
+        if (!TheftIndex.isLoaded()) {
+            return;
+        }
+        for (ParkingLocation loc : locations) {
+            double current=loc.getTheftProbability();
+            if (current == ParkingLocation.THEFT_PROBABILITY_PENDING) {
+                continue;
+            }
+            double risk=TheftIndex.risk(loc.getCoords(), CRIME_RADIUS);
+            if (risk >= 0 && Math.abs(risk/REPORTS_PER_PROBABILITY-current) > THEFT_PROBABILITY_TOLERANCE) {
+                loc.setTheftProbability(risk/REPORTS_PER_PROBABILITY);
+                db.updateLocation(loc);
+            }
+        }
+    }
 
-                    this.db.addLocation(loc);
+    /**
+     * Fetches tiles from SFPark with the TilePlanner, adds their locations to the database, and
+     * marks the tiles fetched successfully as loaded.
+     *
+     * The crime query runs alongside the SFPark queries. Locations fetched before its result is
+     * known are stored with a pending theft probability, which is filled in once it arrives. If it
+     * has not arrived by the overall deadline, their database entries are updated when it does;
+     * use updateDataFromDatabase to pick up the values.
+     *
+     * @param origin Center of the search, from which the crime query is made.
+     * @param tiles the tiles to fetch, nearest first.
+     * @param conditional true to skip the tiles unchanged since they were last fetched.
+     * @param deadline the time in milliseconds by which the search must return.
+     */
+    private void fetchTiles(LatLng origin, List<GeoTile> tiles, boolean conditional, long deadline){
+        final TheftLookup lookup=new TheftLookup(origin);
+        if (!conditional) {
+            lookup.start();
+        }
+
+        List<TilePlanner.Fetch> fetches=TilePlanner.fetchAll(tiles, conditional, new AvlRecordConsumer() {
+            @Override
+            public void onRecord(AVLElement avl) {
+                /* A conditional refresh starts the crime query with the first record, so an
+                   unchanged refresh skips it */
+                lookup.start();
+            }
+        }, deadline);
+
+        List<ParkingLocation> fetched=new ArrayList<ParkingLocation>();
+        for (ParkingLocation loc : TilePlanner.merge(fetches)) {
+            loc.setTheftProbability(lookup.probability());
+            ParkingLocation stored;
+            synchronized (db) {
+                db.addLocation(loc);
+                stored=loc.hasOnStreetParking()? db.getLocationFromBFID(loc.getBfid())
+                        : db.getLocationFromOSPID(loc.getOspid());
+            }
+            if (stored != null) {
+                fetched.add(stored);
+            }
+        }
 
-                    if (loc.hasOnStreetParking()) {
-                        locationList.add(db.getLocationFromBFID(bfid));
-                    } else {
-                        locationList.add(db.getLocationFromOSPID(ospid));
-                    }
+        long now=System.currentTimeMillis();
+        for (TilePlanner.Fetch fetch : fetches) {
+            if (fetch.success) {
+                db.markTileLoaded(fetch.tile, now);
+            }
+            else {
+                Log.w(TAG, "SFPark query of tile "+fetch.tile+" failed: "+fetch.status);
+            }
+        }
+        lookup.join(fetched, deadline);
+    }
 
+    /**
+     * The crime query of a search, run alongside its SFPark query. Once its result is known it is
+     * written to the locations of the search that were stored with a pending theft probability.
+     */
+    private class TheftLookup implements Callable<Double> {
+        private final LatLng origin;
+        private boolean started;
+        private Future<Double> future;
+        /* The result of the crime query; pending until it completes */
+        private double probability=ParkingLocation.THEFT_PROBABILITY_PENDING;
+        /* Locations left to be filled in by the crime query once the search has returned */
+        private List<ParkingLocation> late;
+
+        TheftLookup(LatLng origin){
+            this.origin=origin;
+        }
 
+        /**
+         * Submits the crime query, if it has not been submitted already. Once the TheftIndex is
+         * loaded the probability is counted from it on the spot instead. If too many requests are
+         * pending, the search goes without crime reports, as it would if the crime query failed.
+         */
+        synchronized void start(){
+            if (!started) {
+                started=true;
+                if (TheftIndex.isLoaded()) {
+                    probability=theftProbability(origin);
+                    return;
+                }
+                try {
+                    future=RequestExecutor.submit(this);
+                } catch (RejectedExecutionException e) {
+                    probability=0.0;
                 }
+            }
+        }
 
+        /**
+         * @return the theft probability, or ParkingLocation.THEFT_PROBABILITY_PENDING if not yet known.
+         */
+        synchronized double probability(){
+            return probability;
+        }
 
+        @Override
+        public Double call(){
+            double p;
+            try {
+                p=theftProbability(origin);
+            } catch (RuntimeException e) { // As if the crime query failed
+                p=0.0;
+            }
+            List<ParkingLocation> pending;
+            synchronized (this) {
+                probability=p;
+                pending=late;
+                late=null;
+            }
+            if (pending != null) {
+                fillTheftProbability(pending, p);
             }
+            return p;
         }
 
-        else{
-            System.out.println("Found locations using database.");
-            locationList.addAll(this.db.getLocsFromOrigin(existingOrigins));
+        /**
+         * Waits until the deadline for the crime query, then fills in the theft probability of the
+         * locations found. If the query is still running, it fills them in when it completes.
+         *
+         * @param locations the locations of the search.
+         * @param deadline the time in milliseconds by which the search must return.
+         */
+        void join(List<ParkingLocation> locations, long deadline){
+            if (locations.isEmpty()) { // No records; nothing to fill in
+                return;
+            }
+            Future<Double> running;
+            synchronized (this) {
+                running=(probability == ParkingLocation.THEFT_PROBABILITY_PENDING) ? future : null;
+            }
+            try {
+                if (running != null)
+                    running.get(Math.max(0, deadline-System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) { // Timed out; call() never throws
+            }
+            double p;
+            synchronized (this) {
+                p=probability;
+                if (p == ParkingLocation.THEFT_PROBABILITY_PENDING) {
+                    late=new ArrayList<ParkingLocation>(locations);
+                    Log.d(TAG, "Crime query still running; theft probability will follow.");
+                    return;
+                }
+            }
+            fillTheftProbability(locations, p);
         }
+    }
 
-        List<ParkingLocation> udl=db.getUserDefinedWithinRadius(origin, radius);
+    /**
+     * Sets the theft probability of the locations still pending one, and updates their database
+     * entries. This may run on a pool thread after the search has returned, alongside later
+     * searches and UI actions, so the entries are read back and written under the database lock:
+     * a change made to a location meanwhile, e.g. marking it a favorite, is not overwritten.
+     *
+     * @param locations the locations to fill in.
+     * @param theftProbability the theft probability found for them.
+     */
+    private void fillTheftProbability(List<ParkingLocation> locations, double theftProbability){
+        synchronized (db) {
+            for (ParkingLocation loc : updateDataFromDatabase(locations)) {
+                if (loc != null && loc.getTheftProbability() == ParkingLocation.THEFT_PROBABILITY_PENDING) {
+                    loc.setTheftProbability(theftProbability);
+                    db.updateLocation(loc);
+                }
+            }
+        }
+    }
 
-        if(!udl.isEmpty()){
-            locationList.addAll(udl);
+    /**
+     * Estimates the probability of vehicle theft around the origin from the crime reports near it.
+     * Once the TheftIndex is loaded the estimate is its risk, which weighs recent reports over old
+     * ones; until then every report since TheftIndex.START_YEAR is queried and counted alike.
+     * Either way, the index is loaded or refreshed in the background if due.
+     *
+     * @param origin Center of search for crime reports.
+     * @return the estimated theft probability, or 0 if the crime query failed.
+     */
+    private double theftProbability(LatLng origin){
+        int startYear=TheftIndex.START_YEAR;
+        double crimeProb=0.0;
+
+        TheftIndex.refreshAsync();
+        double risk=TheftIndex.risk(origin, CRIME_RADIUS);
+        if (risk >= 0) {
+            return risk/REPORTS_PER_PROBABILITY;
         }
 
+        SFCrimeHandler crimeHandler = new SFCrimeHandler(); /* Initialize empty handler */
+        /* Every report counts; a capped count would saturate the probability in busy areas */
+        boolean success = crimeHandler.generateAllReports(origin, CRIME_RADIUS, startYear);
+        /* Retrieve report data on a successful query */
+        if (success) {
+            crimeProb=((double)crimeHandler.numReports()/REPORTS_PER_PROBABILITY);
+        }
+        return crimeProb;
+    }
 
-        return locationList;
+    /**
+     * Retrieves the rate schedules of a parking location from SFPark. Searches retrieve locations
+     * without their rates, which only matter once the user selects a location; the rates of each
+     * location are then fetched once and cached.
+     *
+     * This method blocks until the query completes; call getRatesAsync from the main thread instead.
+     *
+     * @param location The location whose rates are wanted.
+     * @return The rates of the location, or null if it has none, is user defined, or the query
+     * failed.
+     */
+    public RATESElement getRates(ParkingLocation location){
+        if (location.isUserDefined()) {
+            return null;
+        }
+        final String key=PricingCache.key(location);
+        if (PricingCache.contains(key)) {
+            return PricingCache.get(key);
+        }
+
+        SFParkQuery.Builder builder = new SFParkQuery.Builder();
+        builder.setLatitude(location.getCoords().latitude);
+        builder.setLongitude(location.getCoords().longitude);
+        builder.setRadius(PRICING_RADIUS);
+        builder.setUnitOfMeasurement("MILE");
+        builder.setParkingType(location.hasOnStreetParking()? "ON" : "OFF");
+        builder.setPricingInformation("YES");
+        builder.setResponseFormat("JSON");
+        SFParkQuery query = builder.build();
+
+        final RATESElement[] found=new RATESElement[1];
+        SFParkXMLResponse response = new SFParkXMLResponse();
+        boolean success = response.populate(query, new AvlRecordConsumer() {
+            @Override
+            public void onRecord(AVLElement avl) {
+                if (key.equals(avl.type().equals("ON")? "ON:"+avl.bfid() : "OFF:"+avl.ospid())) {
+                    found[0]=avl.rates();
+                }
+            }
+        });
+
+        if (!success) {
+            Log.w(TAG, "SFPark pricing query failed: "+response.status());
+            return null; // Not cached; retried on the next selection
+        }
+        PricingCache.put(key, found[0]);
+        return found[0];
+    }
+
+    /**
+     * Retrieves the rate schedules of a parking location without blocking the calling thread, as
+     * with getRates. Cached rates are still delivered through the callback.
+     *
+     * @param location The location whose rates are wanted.
+     * @param callback receives the rates, or null if the location has none, or the status of the
+     * failure.
+     * @return a Future which may be used to cancel the query.
+     */
+    public Future<RATESElement> getRatesAsync(final ParkingLocation location,
+                                              ResponseCallback<RATESElement> callback){
+        try {
+            return RequestExecutor.submit(new Callable<RATESElement>() {
+                @Override
+                public RATESElement call() {
+                    return getRates(location);
+                }
+            }, callback);
+        } catch (RejectedExecutionException e) {
+            return rejected(e, callback);
+        }
     }
 
     /**
@@ -139,20 +515,7 @@ public class SFParkLocationFactory
         int timesSearched=1;
         boolean parkedHere=false;
         boolean isUserDefined=true;
-
-        double crimeProb=0.0;
-        double crimeRadius=.05;
-        int startYear=2011;
-        int count=100;
-        int offset=0;
-
-
-        SFCrimeHandler crimeHandler = new SFCrimeHandler(); /* Initialize empty handler */
-        boolean success = crimeHandler.generateReports(origin, crimeRadius, startYear, count, offset);
-                /* Retrieve report data on a successful query */
-        if (success) {
-            crimeProb=(double)crimeHandler.numReports()/13.3109243697;
-        }
+        double crimeProb=theftProbability(origin);
 
         ParkingLocation loc=new ParkingLocation(origin, radius, hasOnStreetParking, name,
                 desc, ospid, bfid, udl, isFavorite, timesSearched, parkedHere,
@@ -177,25 +540,27 @@ public class SFParkLocationFactory
      * did not exist in the database, the return value will be null.
      */
     public ParkingLocation toggleFavorite(ParkingLocation location){
-        if(db.getNumFav()>10){ //too many favorites in db.
-            return null;
-        }
-        //Get database location data first, so as not to overwrite values other than the isFavorite
-        if(location.hasOnStreetParking()){
-            location=db.getLocationFromBFID(location.getBfid());
-        }
-        else{
-            location=db.getLocationFromOSPID(location.getOspid());
-        }
+        synchronized (db) { // Read and written back as one step
+            if(db.getNumFav()>10){ //too many favorites in db.
+                return null;
+            }
+            //Get database location data first, so as not to overwrite values other than the isFavorite
+            if(location.hasOnStreetParking()){
+                location=db.getLocationFromBFID(location.getBfid());
+            }
+            else{
+                location=db.getLocationFromOSPID(location.getOspid());
+            }
 
-        if(location==null){ //location did not exist in database. Return location unchanged.
-            return null;
-        }
+            if(location==null){ //location did not exist in database. Return location unchanged.
+                return null;
+            }
 
-        location.setIsFavorite(!location.isFavorite());
-        db.updateLocation(location);
+            location.setIsFavorite(!location.isFavorite());
+            db.updateLocation(location);
 
-        return location;
+            return location;
+        }
 
     }
 
@@ -218,28 +583,31 @@ public class SFParkLocationFactory
      * did not exist in the database, the return value will be null.
      */
     public ParkingLocation toggleParkedHere(ParkingLocation location){
-        if(db.getNumParkedHere()>20){ //delete parked here location to make room
-            db.parkedHereToDelete.setParkedHere(false);
-            db.updateLocation(db.parkedHereToDelete);
-            db.updateparkedHereCount();
-        }
+        synchronized (db) { // Read and written back as one step
+            if(db.getNumParkedHere()>20){ //delete parked here location to make room
+                db.parkedHereToDelete.setParkedHere(false);
+                db.updateLocation(db.parkedHereToDelete);
+                db.updateparkedHereCount();
+            }
 
-        //Get database location data first, so as not to overwrite values other than the parkedHere
-        if(location.hasOnStreetParking()){
-            location=db.getLocationFromBFID(location.getBfid());
-        }
-        else{
-            location=db.getLocationFromOSPID(location.getOspid());
-        }
+            //Get database location data first, so as not to overwrite values other than the parkedHere
+            if(location.hasOnStreetParking()){
+                location=db.getLocationFromBFID(location.getBfid());
+            }
+            else{
+                location=db.getLocationFromOSPID(location.getOspid());
+            }
 
-        if(location==null){ //location did not exist in database. Return location unchanged.
-            return null;
-        }
+            if(location==null){ //location did not exist in database. Return location unchanged.
+                return null;
+            }
 
-        location.setParkedHere(!location.getParkedHere());
-        db.updateLocation(location);
+            location.setParkedHere(!location.getParkedHere());
+            db.updateLocation(location);
+
+            return location;
+        }
 
-        return location;
     }
 
 
@@ -0,0 +1,235 @@
+package com.csc413.sfsu.sfpark_locationdata;
+
+import com.csc413.sfsu.sfpark_simplified.AVLElement;
+import com.csc413.sfsu.sfpark_simplified.AvlRecordConsumer;
+import com.csc413.sfsu.sfpark_simplified.RequestExecutor;
+import com.csc413.sfsu.sfpark_simplified.SFParkLocation;
+import com.csc413.sfsu.sfpark_simplified.SFParkQuery;
+import com.csc413.sfsu.sfpark_simplified.SFParkXMLResponse;
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The TilePlanner class fetches the parking locations of a search area from SFPark one GeoTile at
+ * a time, rather than with a single query over the whole area.
+ *
+ * Tiles already loaded are left out, and the remaining tiles are fetched side by side by up to
+ * PARALLELISM helpers on the RequestExecutor, so a wide area loads in about the time of its
+ * slowest tile rather than that of one large response. The searching thread only waits for them,
+ * and no later than the deadline of the search: a tile still being fetched then is abandoned, so a
+ * slow server holds a search up for its deadline rather than for the transport's timeouts. Each
+ * tile is queried from its center, which also makes its query the same from one search to the
+ * next, so that it is answered from the response cache or coalesced with an identical query in
+ * flight.
+ */
+final class TilePlanner {
+
+    /** The number of tiles fetched at once by a search.*/
+    static final int PARALLELISM=4;
+
+    /**
+     * The outcome of the query of one tile. Its fields are written by the thread which fetched it
+     * and only read once it has been handed back by fetchAll.
+     */
+    static final class Fetch {
+        final GeoTile tile;
+        /** The locations of the response, with a pending theft probability.*/
+        final List<ParkingLocation> locations=new ArrayList<ParkingLocation>();
+        /** Whether the query succeeded; if so, the tile is loaded.*/
+        boolean success;
+        /** Whether a conditional query found the tile unchanged, in which case it has no locations.*/
+        boolean unchanged;
+        /** The status of the response.*/
+        String status;
+
+        Fetch(GeoTile tile){
+            this.tile=tile;
+        }
+    }
+
+    /**
+     * The tiles of one search left to fetch, worked through by the searching thread and its
+     * helpers. A worker counts itself as running before taking a tile, so that once the queue is
+     * empty and no worker is running, every tile taken has been handed back.
+     */
+    private static final class Plan implements Callable<Void> {
+        private final Queue<GeoTile> queue;
+        private final Queue<Fetch> done=new ConcurrentLinkedQueue<Fetch>();
+        private final boolean conditional;
+        private final AvlRecordConsumer listener;
+        private final long deadline;
+        /** The number of tiles being fetched; guarded by the Plan's monitor.*/
+        private int running;
+
+        Plan(List<GeoTile> tiles, boolean conditional, AvlRecordConsumer listener, long deadline){
+            this.queue=new ConcurrentLinkedQueue<GeoTile>(tiles);
+            this.conditional=conditional;
+            this.listener=listener;
+            this.deadline=deadline;
+        }
+
+        @Override
+        public Void call(){
+            while(System.currentTimeMillis()<deadline && !Thread.currentThread().isInterrupted()){
+                synchronized (this) {
+                    running++;
+                }
+                GeoTile tile=queue.poll();
+                try {
+                    if(tile==null){
+                        return null;
+                    }
+                    done.add(fetch(tile, conditional, listener));
+                } finally {
+                    synchronized (this) {
+                        running--;
+                        notifyAll();
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Waits until every tile has been taken and handed back, or the deadline passes.
+         * @return true if every tile was handed back, false on timeout.
+         */
+        synchronized boolean await() throws InterruptedException {
+            long remaining;
+            while((running>0 || !queue.isEmpty()) && (remaining=deadline-System.currentTimeMillis())>0){
+                wait(remaining);
+            }
+            return running==0 && queue.isEmpty();
+        }
+    }
+
+    private TilePlanner(){}
+
+    /**
+     * Queries SFPark for the parking locations of one tile.
+     * @param tile The tile to fetch.
+     * @param conditional true to skip the response if the tile has not changed since it was last
+     * fetched.
+     * @param listener Called with each record as it is parsed, or null.
+     * @return The outcome of the query.
+     */
+    private static Fetch fetch(final GeoTile tile, boolean conditional, final AvlRecordConsumer listener){
+        final Fetch fetch=new Fetch(tile);
+        final LatLng center=tile.center();
+        final double radius=tile.queryRadius();
+        SFParkQuery.Builder builder = new SFParkQuery.Builder();
+        builder.setLatitude(center.latitude);
+        builder.setLongitude(center.longitude);
+        builder.setRadius(radius);
+        builder.setUnitOfMeasurement("MILE");
+        builder.setResponseFormat("JSON");
+        builder.setPricingInformation("NO"); // The map needs no rates; getRates fetches them on demand
+        SFParkQuery query = builder.build();
+
+        SFParkXMLResponse response = new SFParkXMLResponse();
+        AvlRecordConsumer consumer = new AvlRecordConsumer() {
+            @Override
+            public void onRecord(AVLElement avl) {
+                if (listener != null) {
+                    listener.onRecord(avl);
+                }
+                SFParkLocation avlLoc = avl.loc();
+                LatLng coords = new LatLng(avlLoc.latitude(0), avlLoc.longitude(0));
+                boolean hasOnStreetParking = (avl.type().equals("ON")) ? true : false;
+                fetch.locations.add(new ParkingLocation(center, radius, hasOnStreetParking,
+                        avl.name(), avl.desc(), avl.ospid(), avl.bfid(), coords, false, 1, false,
+                        false, ParkingLocation.THEFT_PROBABILITY_PENDING));
+            }
+        };
+        fetch.success = conditional ? response.populateIfChanged(query, consumer)
+                              : response.populate(query, consumer);
+        fetch.unchanged = fetch.success && response.unchanged();
+        fetch.status = response.status();
+        return fetch;
+    }
+
+    /**
+     * Returns the tiles of a search which are not already loaded.
+     * @param tiles The tiles of the search.
+     * @param loaded The geohashes of the tiles already loaded.
+     * @return The tiles to fetch, in the order given.
+     */
+    static List<GeoTile> missing(List<GeoTile> tiles, Set<String> loaded){
+        List<GeoTile> missing=new ArrayList<GeoTile>();
+        for(GeoTile tile : tiles){
+            if(!loaded.contains(tile.hash())){
+                missing.add(tile);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Fetches tiles side by side, with at most PARALLELISM queries at once, and blocks until they
+     * are fetched or the deadline passes. The tiles are fetched by helpers, so that the wait is
+     * bounded by the deadline; only if no helper can be started does the calling thread fetch them
+     * itself, in which case a tile started before the deadline may run past it.
+     * @param tiles The tiles to fetch, nearest first.
+     * @param conditional true to skip tiles which have not changed since they were last fetched.
+     * @param listener Called with each record as it is parsed, on the thread fetching its tile, or
+     * null.
+     * @param deadline The time in milliseconds by which to return.
+     * @return The outcome of every tile fetched in time; tiles not fetched in time are left out.
+     */
+    static List<Fetch> fetchAll(List<GeoTile> tiles, boolean conditional, AvlRecordConsumer listener,
+                                long deadline){
+        Plan plan=new Plan(tiles, conditional, listener, deadline);
+        List<Future<Void>> helpers=new ArrayList<Future<Void>>();
+        for(int i=0; i<Math.min(PARALLELISM, tiles.size()); i++){
+            try {
+                helpers.add(RequestExecutor.submit(plan));
+            } catch (RejectedExecutionException e) { // Too many requests pending; fetch with fewer
+                break;
+            }
+        }
+        boolean complete=false;
+        try {
+            if(helpers.isEmpty()){
+                plan.call();
+            }
+            complete=plan.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for(Future<Void> helper : helpers){
+            // Helpers not yet started have nothing left to fetch; late ones are abandoned
+            helper.cancel(!complete);
+        }
+        return new ArrayList<Fetch>(plan.done);
+    }
+
+    /**
+     * Merges the locations of several tiles, keeping one of each location fetched by more than one
+     * tile, as those near the edges of a tile are.
+     * @param fetches The outcome of the queries of the tiles.
+     * @return The locations, each once, by BFID for on street locations and OSPID for off street.
+     */
+    static Collection<ParkingLocation> merge(List<Fetch> fetches){
+        Map<String, ParkingLocation> merged=new LinkedHashMap<String, ParkingLocation>();
+        for(Fetch fetch : fetches){
+            for(ParkingLocation loc : fetch.locations){
+                String key=PricingCache.key(loc);
+                if(!merged.containsKey(key)){
+                    merged.put(key, loc);
+                }
+            }
+        }
+        return merged.values();
+    }
+}
@@ -1,22 +1,302 @@
 package com.csc413.sfsu.sfpark_simplified;
 
+import android.util.JsonReader;
+
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /** The AVLElement class deals with the storage and passing of data extracted from a SFPark availability element.
  * Availability elements are associated with the AVL tag name.
+ * All child data is decoded once, when the element is constructed, into typed fields; accessors simply return
+ * those fields. Whether an optional field was present in the response can be checked with {@code has(int field)}.
+ * When built from a stream, the OPHRS and RATES subtrees are kept unparsed and are only decoded the first time
+ * {@code ophrs()} or {@code rates()} is called; this also holds when built from a JSON response, whose subtrees are
+ * kept as equivalent XML.
  *
  * @author      Jeremy Erickson
  * @version     %I%, %G%
  */
-public class AVLElement extends BranchElement {
+public class AVLElement extends SFParkElement {
+    // FIELD FLAGS //
+    //
+    /** Flag denoting the TYPE field */
+    public static final int TYPE = 1;
+    /** Flag denoting the NAME field */
+    public static final int NAME = 1 << 1;
+    /** Flag denoting the DESC field */
+    public static final int DESC = 1 << 2;
+    /** Flag denoting the INTER field */
+    public static final int INTER = 1 << 3;
+    /** Flag denoting the TEL field */
+    public static final int TEL = 1 << 4;
+    /** Flag denoting the OSPID field */
+    public static final int OSPID = 1 << 5;
+    /** Flag denoting the BFID field */
+    public static final int BFID = 1 << 6;
+    /** Flag denoting the OCC field */
+    public static final int OCC = 1 << 7;
+    /** Flag denoting the OPER field */
+    public static final int OPER = 1 << 8;
+    /** Flag denoting the PTS field */
+    public static final int PTS = 1 << 9;
+    /** Flag denoting the LOC field */
+    public static final int LOC = 1 << 10;
+    /** Flag denoting the OPHRS field */
+    public static final int OPHRS = 1 << 11;
+    /** Flag denoting the RATES field */
+    public static final int RATES = 1 << 12;
+
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** Holds the flags of every field that was present and successfully decoded */
+    private int present;
+    /** The type of parking (ON or OFF) */
+    private String type;
+    /** The name of the parking location */
+    private String name;
+    /** The description of the parking location */
+    private String desc;
+    /** The nearby intersection */
+    private String inter;
+    /** The contact telephone number */
+    private String tel;
+    /** The off street parking ID */
+    private int ospid;
+    /** The on street block face ID */
+    private int bfid;
+    /** The number of spaces currently occupied */
+    private int occ;
+    /** The number of spaces currently operational */
+    private int oper;
+    /** The number of location points */
+    private int pts;
+    /** The coordinates of the parking location */
+    private SFParkLocation loc;
+    /** The operating hours of the parking location */
+    private OPHRSElement ophrs;
+    /** The parking rates of the parking location */
+    private RATESElement rates;
+    /** Holds the unparsed OPHRS and RATES subtrees of a streamed element, or null if built from a document tree */
+    private XmlFragments fragments;
+    /** The range of the unparsed OPHRS subtree in fragments, or -1 if not pending */
+    private int ophrsStart, ophrsEnd;
+    /** The range of the unparsed RATES subtree in fragments, or -1 if not pending */
+    private int ratesStart, ratesEnd;
+
+    /** Sets all fields to their "not present" values.
+     * Strings are set to empty, numerical data is set to -1, and elements are set to null.
+     */
+    private void reset () {
+        present = 0;
+        type = name = desc = inter = tel = "";
+        ospid = bfid = occ = oper = pts = -1;
+        loc = null;
+        ophrs = null;
+        rates = null;
+        ophrsStart = ophrsEnd = ratesStart = ratesEnd = -1;
+    }
+
+    /** Decodes the textual data of a leaf element into the field associated with its tag name.
+     * Tags not associated with any field are ignored, as are numerical values that cannot be parsed.
+     *
+     * @param   symbol  the SFParkTags symbol of the leaf element's tag name
+     * @param   data    the textual data of the leaf element
+     */
+    private void decode (int symbol, String data) {
+        try {
+            switch (symbol) {
+                case SFParkTags.TYPE:
+                    type = data;
+                    present |= TYPE;
+                    break;
+                case SFParkTags.NAME:
+                    name = data;
+                    present |= NAME;
+                    break;
+                case SFParkTags.DESC:
+                    desc = data;
+                    present |= DESC;
+                    break;
+                case SFParkTags.INTER:
+                    inter = data;
+                    present |= INTER;
+                    break;
+                case SFParkTags.TEL:
+                    tel = data;
+                    present |= TEL;
+                    break;
+                case SFParkTags.OSPID:
+                    ospid = Integer.parseInt(data);
+                    present |= OSPID;
+                    break;
+                case SFParkTags.BFID:
+                    bfid = Integer.parseInt(data);
+                    present |= BFID;
+                    break;
+                case SFParkTags.OCC:
+                    occ = Integer.parseInt(data);
+                    present |= OCC;
+                    break;
+                case SFParkTags.OPER:
+                    oper = Integer.parseInt(data);
+                    present |= OPER;
+                    break;
+                case SFParkTags.PTS:
+                    pts = Integer.parseInt(data);
+                    present |= PTS;
+                    break;
+                case SFParkTags.LOC:
+                    loc = new SFParkLocation(data);
+                    present |= LOC;
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            // Leave the field at its "not present" value
+        }
+    }
+
+    /** Indicates whether a tag symbol denotes a branch child element (OPHRS or RATES).
+     *
+     * @param   symbol  the SFParkTags symbol of a child element's tag name
+     * @return  true if the child element contains further child elements, false if it is a leaf
+     */
+    private static boolean isBranch (int symbol) {
+        return symbol == SFParkTags.OPHRS || symbol == SFParkTags.RATES;
+    }
+
+    /** Keeps a branch child element (OPHRS or RATES) of a streamed element unparsed until it is requested.
+     *
+     * @param   symbol  the SFParkTags symbol of the child element's tag name
+     * @param   start   the start of the child element's range in fragments, as returned by {@code capture};
+     *                  the range ends at {@code fragments.end()}
+     */
+    private void defer (int symbol, int start) {
+        if (symbol == SFParkTags.OPHRS) {
+            ophrsStart = start;
+            ophrsEnd = fragments.end();
+            present |= OPHRS;
+        } else {
+            ratesStart = start;
+            ratesEnd = fragments.end();
+            present |= RATES;
+        }
+    }
+
+    /** Stores a branch child element (OPHRS or RATES) in its associated field.
+     *
+     * @param   elem    the SFParkElement built for the child element
+     */
+    private void attach (SFParkElement elem) {
+        if (elem instanceof OPHRSElement) {
+            ophrs = (OPHRSElement) elem;
+            present |= OPHRS;
+        } else if (elem instanceof RATESElement) {
+            rates = (RATESElement) elem;
+            present |= RATES;
+        }
+    }
+
     // PUBLIC METHODS //
     //
     /** Constructor.
      *
-     * @param   elem    an org.w3c.dom.Element object with the tag name AVL, passed to the BranchElement class for data extraction
+     * @param   elem    an org.w3c.dom.Element object with the tag name AVL from which to decode data
      */
     public AVLElement (Element elem) {
-        super(elem);
+        super(elem.getTagName(), "Branch");
+        reset();
+        NodeList childElements = elem.getChildNodes();
+        for (int i = 0; i < childElements.getLength(); i++) {
+            Node child = childElements.item(i);
+            if (child.getNodeType() != Node.ELEMENT_NODE)
+                continue;
+            Element e = (Element) child;
+            int symbol = SFParkTags.lookup(e.getTagName());
+            if (isBranch(symbol))
+                attach(SFParkElement.newInstanceByTag(e));
+            else
+                decode(symbol, e.getTextContent());
+        }
+    }
+
+    /** Constructor.
+     * The OPHRS and RATES subtrees are kept unparsed in a buffer owned by this element.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of an element with the tag name AVL;
+     *                                  on return the parser is positioned at the matching END_TAG
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    public AVLElement (XmlPullParser parser) throws XmlPullParserException, IOException {
+        this(parser, new XmlFragments());
+    }
+
+    /** Constructor.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of an element with the tag name AVL;
+     *                                  on return the parser is positioned at the matching END_TAG
+     * @param   fragments               the buffer in which the OPHRS and RATES subtrees are kept unparsed;
+     *                                  may be shared by every element of a response
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    AVLElement (XmlPullParser parser, XmlFragments fragments) throws XmlPullParserException, IOException {
+        super(parser.getName(), SFParkTags.AVL, "Branch");
+        reset();
+        this.fragments = fragments;
+        int depth = parser.getDepth();
+        int event;
+        while ((event = parser.next()) != XmlPullParser.END_TAG || parser.getDepth() > depth) {
+            if (event != XmlPullParser.START_TAG)
+                continue;
+            int symbol = SFParkTags.lookup(parser.getName());
+            if (isBranch(symbol)) {
+                defer(symbol, fragments.capture(parser));
+            } else if (symbol == SFParkTags.LOC) { // Decode coordinates straight from the parser's buffer
+                loc = SFParkLocation.decode(parser);
+                present |= LOC;
+            } else {
+                decode(symbol, parser.nextText());
+            }
+        }
+    }
+
+    /** Constructor.
+     * Builds the element from a record of a JSON response, in which each child element is a member of the record.
+     *
+     * @param   reader          a JsonReader positioned at the object of a record; on return the object has been consumed
+     * @param   fragments       the buffer in which the OPHRS and RATES subtrees are kept unparsed;
+     *                          may be shared by every element of a response
+     * @throws  IOException     if the streamed document is malformed or an error occurs while reading the stream
+     */
+    AVLElement (JsonReader reader, XmlFragments fragments) throws IOException {
+        super(SFParkTags.name(SFParkTags.AVL), SFParkTags.AVL, "Branch");
+        reset();
+        this.fragments = fragments;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String tag = reader.nextName();
+            int symbol = SFParkTags.lookup(tag);
+            if (isBranch(symbol))
+                defer(symbol, fragments.capture(reader, tag));
+            else
+                decode(symbol, XmlFragments.text(reader));
+        }
+        reader.endObject();
+    }
+
+    /** Indicates whether a field was present in the response and successfully decoded.
+     *
+     * @param   field   one of the field flags of this class (e.g. {@code AVLElement.OCC})
+     * @return  true if the field was present, false otherwise
+     */
+    public boolean has (int field) {
+        return (present & field) != 0;
     }
 
     /** Returns the type of parking at the location, either on street or off street.
@@ -25,11 +305,7 @@ public class AVLElement extends BranchElement {
      * @return  a String representing the type of parking (on street or off street) if available, or an empty String otherwise
      */
     public String type () {
-        try {
-            return ((DataElement)getValue("TYPE")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return type;
     }
 
     /** Returns the name of the parking location (structure name or street with from and to addresses).
@@ -38,11 +314,7 @@ public class AVLElement extends BranchElement {
      * @return  a String representing the name of the parking location if available, or an empty String otherwise
      */
     public String name () {
-        try {
-            return ((DataElement)getValue("NAME")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return name;
     }
 
     /** Returns the description (usually the address) for the parking location.
@@ -51,11 +323,7 @@ public class AVLElement extends BranchElement {
      * @return  a String representing the description/address for the parking location if available, or an empty String otherwise
      */
     public String desc () {
-        try {
-            return ((DataElement)getValue("DESC")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return desc;
     }
 
     /** Returns the nearby intersection to the parking location.
@@ -64,11 +332,7 @@ public class AVLElement extends BranchElement {
      * @return  a String representing the nearby intersection if available, or an empty String otherwise
      */
     public String inter () {
-        try {
-            return ((DataElement)getValue("INTER")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return inter;
     }
 
     /** Returns the contact telephone number of the parking location.
@@ -77,11 +341,7 @@ public class AVLElement extends BranchElement {
      * @return  a String representing the contact telephone number of the parking structure if it exists, or an empty String otherwise
      */
     public String tel () {
-        try {
-            return ((DataElement)getValue("TEL")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return tel;
     }
 
     /** Returns the off street parking ID of the parking location.
@@ -90,11 +350,7 @@ public class AVLElement extends BranchElement {
      * @return  an int representing the off street parking ID if available, or -1 otherwise
      */
     public int ospid () {
-        try {
-            return Integer.parseInt(((DataElement)getValue("OSPID")).getData());
-        } catch (IndexOutOfBoundsException | NumberFormatException e) {
-            return -1;
-        }
+        return ospid;
     }
 
     /** Returns the on street block face ID of the parking location.
@@ -103,11 +359,7 @@ public class AVLElement extends BranchElement {
      * @return  an int representing the on street block face ID if available, or -1 otherwise
      */
     public int bfid () {
-        try {
-            return Integer.parseInt(((DataElement)getValue("BFID")).getData());
-        } catch (IndexOutOfBoundsException | NumberFormatException e) {
-            return -1;
-        }
+        return bfid;
     }
 
     /** Returns the number of spaces currently occupied at the parking location.
@@ -119,11 +371,7 @@ public class AVLElement extends BranchElement {
      * @return  an int representing the number of spaces occupied if available, or -1 otherwise
      */
     public int occ () {
-        try {
-            return Integer.parseInt(((DataElement)getValue("OCC")).getData());
-        } catch (IndexOutOfBoundsException | NumberFormatException e) {
-            return -1;
-        }
+        return occ;
     }
 
     /** Returns the number of spaces currently operational at the parking location.
@@ -135,11 +383,7 @@ public class AVLElement extends BranchElement {
      * @return  an int representing the number of spaces operational if available, or -1 otherwise
      */
     public int oper () {
-        try {
-            return Integer.parseInt(((DataElement)getValue("OPER")).getData());
-        } catch (IndexOutOfBoundsException | NumberFormatException e) {
-            return -1;
-        }
+        return oper;
     }
 
     /** Returns the number of location points for the parking location.
@@ -149,11 +393,7 @@ public class AVLElement extends BranchElement {
      * @return  an int representing the number of location points if available, or -1 otherwise
      */
     public int pts () {
-        try {
-            return Integer.parseInt(((DataElement)getValue("PTS")).getData());
-        } catch (IndexOutOfBoundsException | NumberFormatException e) {
-            return -1;
-        }
+        return pts;
     }
 
     /** Returns the longitudinal and latitudinal coordinates of the parking location.
@@ -165,11 +405,7 @@ public class AVLElement extends BranchElement {
      *          or null otherwise
      */
     public SFParkLocation loc () {
-        try {
-            return new SFParkLocation(((DataElement)getValue("LOC")).getData());
-        } catch (IndexOutOfBoundsException e) {
-            return null;
-        }
+        return loc;
     }
 
     /** Returns the operating hours of the parking location.
@@ -178,12 +414,17 @@ public class AVLElement extends BranchElement {
      *
      * @return  an OPHRSElement containing operating schedules if available, or null otherwise
      */
-    public OPHRSElement ophrs () {
-        try {
-            return (OPHRSElement)getValue("OPHRS");
-        } catch (IndexOutOfBoundsException e) {
-            return null;
+    public synchronized OPHRSElement ophrs () {
+        if (ophrsStart >= 0) {
+            try {
+                ophrs = new OPHRSElement(fragments.parser(ophrsStart, ophrsEnd));
+            } catch (XmlPullParserException | IOException e) {
+                ophrs = null;
+                present &= ~OPHRS;
+            }
+            ophrsStart = ophrsEnd = -1;
         }
+        return ophrs;
     }
 
     /** Returns the parking rates for the parking location.
@@ -191,11 +432,16 @@ public class AVLElement extends BranchElement {
      *
      * @return  a RSElement containing rate schedules if available, or null otherwise
      */
-    public RATESElement rates () {
-        try {
-            return (RATESElement)getValue("RATES");
-        } catch (IndexOutOfBoundsException e) {
-            return null;
+    public synchronized RATESElement rates () {
+        if (ratesStart >= 0) {
+            try {
+                rates = new RATESElement(fragments.parser(ratesStart, ratesEnd));
+            } catch (XmlPullParserException | IOException e) {
+                rates = null;
+                present &= ~RATES;
+            }
+            ratesStart = ratesEnd = -1;
         }
+        return rates;
     }
 }
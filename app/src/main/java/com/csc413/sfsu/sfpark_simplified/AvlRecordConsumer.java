@@ -0,0 +1,17 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+/** The AvlRecordConsumer interface receives the availability records of a SFPark Availability response one at a time,
+ * as soon as each record has been parsed from the stream.
+ *
+ * @version     %I%, %G%
+ * @see         com.csc413.sfsu.sfpark_simplified.SFParkXMLResponse#populate(SFParkQuery, AvlRecordConsumer)
+ */
+public interface AvlRecordConsumer {
+    /** Receives a single availability record.
+     * This method is called on the thread streaming the response, in document order; the rest of the response
+     * is not read until it returns.
+     *
+     * @param   avl     the decoded availability record
+     */
+    void onRecord (AVLElement avl);
+}
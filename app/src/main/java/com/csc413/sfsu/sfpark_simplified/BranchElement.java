@@ -1,8 +1,11 @@
 package com.csc413.sfsu.sfpark_simplified;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
 
 /** The BranchElement class extends the SFParkElement class and provides further functionality intended for non-leaf
  * elements (specifically elements which contain additional child elements).
@@ -13,24 +16,39 @@ import org.w3c.dom.NodeList;
 public abstract class BranchElement extends SFParkElement {
     // PRIVATE DATA MEMBERS AND METHODS //
     //
-    /** Holds a list of Tuples, each containing a "key" in the form of a tag name
-     * and a data value in the form of a SFParkElement object */
-    private ArrayList<Tuple<String, SFParkElement>> elements;
+    /** Holds the SFParkTags symbol of each child element, in document order */
+    private int [] keys;
+    /** Holds each child element, at the same index as its symbol in keys */
+    private SFParkElement [] values;
+    /** The number of child elements */
+    private int size;
 
-    /** Retrieves the index of a Tuple in the elements list based on the value of the key.
+    /** Retrieves the index of a child element based on the symbol of its tag name.
      *
-     * @param   key     the tag name of an element to be used as a search key
-     * @return          the index location of a Tuple in the elements list if found, or -1 otherwise
+     * @param   symbol  the SFParkTags symbol of an element to be used as a search key
+     * @return          the index location of the element if found, or -1 otherwise
      */
-    private int getIndexByKey (String key) {
-        for (int i = 0; i < elements.size(); i++) {
-            Tuple elem = elements.get(i);
-            if (elem.first().equals(key))
+    private int getIndexBySymbol (int symbol) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == symbol)
                 return i;
         }
         return -1;
     }
 
+    /** Appends a child element.
+     *
+     * @param   elem    the child element to append
+     */
+    private void add (SFParkElement elem) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = elem.getSymbol();
+        values[size++] = elem;
+    }
+
     // PROTECTED METHODS //
     //
     /** Constructor.
@@ -41,16 +59,49 @@ public abstract class BranchElement extends SFParkElement {
         // Initialize tag and type
         super(elem.getTagName(), "Branch");
 
-        // Initialize and populate entries map
-        elements = new ArrayList<Tuple<String, SFParkElement>>();
+        // Initialize and populate entries
+        keys = new int[8];
+        values = new SFParkElement[8];
+        size = 0;
         NodeList childElements = elem.getChildNodes();
-        for (int i = 0; i < childElements.getLength(); i++) {
-            // Check whether a leaf or branch node
-            Element e = (Element) childElements.item(i);
-            if (e.hasChildNodes())
-                elements.add(new Tuple<String, SFParkElement>(e.getTagName(), SFParkElement.newInstanceByTag(e)));
-            else
-                elements.add(new Tuple<String, SFParkElement>(e.getTagName(), SFParkElement.newInstanceByTag(e)));
+        for (int i = 0; i < childElements.getLength(); i++)
+            add(SFParkElement.newInstanceByTag((Element) childElements.item(i)));
+    }
+
+    /** Constructor.
+     * Child elements are read from the stream in a single forward pass; no document tree is built.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of this element;
+     *                                  on return the parser is positioned at the matching END_TAG
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    protected BranchElement (XmlPullParser parser) throws XmlPullParserException, IOException {
+        this(parser, SFParkTags.lookup(parser.getName()));
+    }
+
+    /** Constructor.
+     * Child elements are read from the stream in a single forward pass; no document tree is built.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of this element;
+     *                                  on return the parser is positioned at the matching END_TAG
+     * @param   symbol                  the SFParkTags symbol of the tag name of this element
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    protected BranchElement (XmlPullParser parser, int symbol) throws XmlPullParserException, IOException {
+        // Initialize tag and type
+        super(parser.getName(), symbol, "Branch");
+
+        // Initialize and populate entries
+        keys = new int[8];
+        values = new SFParkElement[8];
+        size = 0;
+        int depth = parser.getDepth();
+        int event;
+        while ((event = parser.next()) != XmlPullParser.END_TAG || parser.getDepth() > depth) {
+            if (event == XmlPullParser.START_TAG)
+                add(SFParkElement.newInstanceByTag(parser));
         }
     }
 
@@ -59,41 +110,51 @@ public abstract class BranchElement extends SFParkElement {
      * @return  the number of child elements of this element
      */
     protected int numChildElements () {
-        return elements.size();
+        return size;
     }
 
 
-    /** Retrieves a key from a Tuple in the elements list at the specified index.
-     * The value of the key is the tag name of the element data stored in this location.
+    /** Retrieves the tag name of the child element at the specified index.
      *
-     * @param   index                       the index location of the Tuple containing the desired key value
-     * @return                              the key String at index
+     * @param   index                       the index location of the desired child element
+     * @return                              the tag name String at index
      * @throws  IndexOutOfBoundsException   if an invalid index value is passed as a parameter
      */
     protected String getKey (int index) {
-        return elements.get(index).first();
+        return getValue(index).getTag();
     }
 
-    /** Retrieves a value from a Tuple in the elements list at the specified index.
-     * The value is a SFParkElement object representing a child element of this class.
+    /** Retrieves the child element at the specified index.
      *
-     * @param   index                       the index location of the Tuple containing the desired value
+     * @param   index                       the index location of the desired child element
      * @return                              the SFParkElement object at index
      * @throws  IndexOutOfBoundsException   if an invalid index value is passed as a parameter
      */
     protected SFParkElement getValue (int index) {
-        return elements.get(index).last();
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return values[index];
     }
 
-    /** Retrieves a value from a Tuple in the elements list at the specified index.
-     * The value is a SFParkElement object representing a child element of this class.
+    /** Retrieves the first child element with the specified tag name.
      *
-     * @param   key                         the tag name of the Tuple containing the desired value
+     * @param   key                         the tag name of the desired child element
      * @return                              the SFParkElement object matched to the key
-     * @throws  IndexOutOfBoundsException   if the index value returned by getIndexByKey is -1 (meaning the key was not found)
-     *                                      and passed as an invalid index parameter to getValue(int index)
+     * @throws  IndexOutOfBoundsException   if the key was not found
      */
     protected SFParkElement getValue (String key) {
-        return getValue(getIndexByKey(key));
+        return getValue(getIndexBySymbol(SFParkTags.lookup(key)));
+    }
+
+    /** Retrieves the textual data of the first leaf child element with the specified tag symbol.
+     *
+     * @param   symbol  the SFParkTags symbol of the desired child element
+     * @return          the data of the child element if found, or an empty String otherwise
+     */
+    protected String getData (int symbol) {
+        int index = getIndexBySymbol(symbol);
+        if (index < 0 || !(values[index] instanceof DataElement))
+            return "";
+        return ((DataElement) values[index]).getData();
     }
 }
@@ -1,6 +1,10 @@
 package com.csc413.sfsu.sfpark_simplified;
 
 import org.w3c.dom.Element;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /** The DataElement class is a wrapper for textual data that is intended to work with the SFPark Simplified API.
  * This class works only with leaf elements (that is elements with no child elements); branch (or parent) elements contain
@@ -29,6 +33,32 @@ public class DataElement extends SFParkElement {
         data = elem.getTextContent();
     }
 
+    /** Constructor.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of a leaf element;
+     *                                  on return the parser is positioned at the matching END_TAG
+     * @throws  XmlPullParserException  if a non-leaf element is passed to the constructor
+     * @throws  IOException             if an error occurs while reading the stream
+     * @see     org.xmlpull.v1.XmlPullParser#nextText
+     */
+    public DataElement (XmlPullParser parser) throws XmlPullParserException, IOException {
+        this(parser, SFParkTags.lookup(parser.getName()));
+    }
+
+    /** Constructor.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of a leaf element;
+     *                                  on return the parser is positioned at the matching END_TAG
+     * @param   symbol                  the SFParkTags symbol of the tag name of the element
+     * @throws  XmlPullParserException  if a non-leaf element is passed to the constructor
+     * @throws  IOException             if an error occurs while reading the stream
+     * @see     org.xmlpull.v1.XmlPullParser#nextText
+     */
+    DataElement (XmlPullParser parser, int symbol) throws XmlPullParserException, IOException {
+        super(parser.getName(), symbol, "Data");
+        data = parser.nextText();
+    }
+
     /** Returns the data held by the DataElement.
      *
      * @return  the DataElement's data in the form of a String
@@ -0,0 +1,462 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** The DiskCache class keeps the decompressed response bodies of recent queries on local storage, so that repeat
+ * searches, including those made after the app restarts, are answered without going to the network.
+ * Responses are keyed by their canonical URL and stay fresh for a time which depends on the service: minutes for
+ * SFPark availability, which is republished every few minutes, and days for Crimespotting reports, which rarely
+ * change once filed. Responses of other hosts are not cached. The total size of the cache is bounded; the least
+ * recently used responses are evicted first.
+ *
+ * The cache is off until {@code install} is called with a directory, typically the app's cache directory.
+ *
+ * @version     %I%, %G%
+ */
+public final class DiskCache {
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** The time in milliseconds a SFPark Availability response stays fresh */
+    private static final long SFPARK_TTL = 2 * 60 * 1000L;
+    /** The time in milliseconds a San Francisco Crimespotting response stays fresh */
+    private static final long CRIMESPOTTING_TTL = 3 * 24 * 60 * 60 * 1000L;
+    /** The suffix of the file of a cached response */
+    private static final String SUFFIX = ".body";
+    /** The suffix of the file of a response being written */
+    private static final String TEMP_SUFFIX = ".tmp";
+    /** The size of the buffers of the streams of cached responses */
+    private static final int BUFFER = 8192;
+
+    /** The time in milliseconds responses stay fresh, by host */
+    private static final Map<String, Long> TTL = new HashMap<String, Long>();
+
+    static {
+        TTL.put("api.sfpark.org", SFPARK_TTL);
+        TTL.put("sanfrancisco.crimespotting.org", CRIMESPOTTING_TTL);
+    }
+
+    /** The directory of the cache, or null if the cache is not installed */
+    private static File directory;
+    /** The maximum total size in bytes of the cached responses */
+    private static long maxBytes;
+    /** The total size in bytes of the cached responses */
+    private static long size;
+    /** The sizes of the cached responses, by file name, in access order */
+    private static final LinkedHashMap<String, Long> ENTRIES = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+    /** The number of requests answered from the cache */
+    private static final AtomicLong hits = new AtomicLong();
+    /** The number of cacheable requests sent to the network */
+    private static final AtomicLong misses = new AtomicLong();
+    /** The number of requests answered with a response no longer fresh because the service could not be reached */
+    private static final AtomicLong stale = new AtomicLong();
+
+    /** The Writer class streams a response body to its reader while copying it to the cache.
+     * The copy is committed once the body has been read in full, and discarded if the stream is closed earlier or
+     * the copy cannot be written.
+     */
+    private static final class Writer extends FilterInputStream {
+        private final String name;
+        private final File temp;
+        private DataOutputStream out;
+
+        Writer (InputStream in, String name, File temp, DataOutputStream out) {
+            super(in);
+            this.name = name;
+            this.temp = temp;
+            this.out = out;
+        }
+
+        @Override
+        public int read () throws IOException {
+            int b = in.read();
+            if (b == -1)
+                commit();
+            else
+                copy(new byte [] { (byte) b }, 0, 1);
+            return b;
+        }
+
+        @Override
+        public int read (byte [] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n == -1)
+                commit();
+            else
+                copy(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip (long n) throws IOException {
+            abandon(); // Skipped bytes are not copied
+            return in.skip(n);
+        }
+
+        @Override
+        public boolean markSupported () {
+            return false;
+        }
+
+        @Override
+        public void close () throws IOException {
+            try {
+                abandon();
+            } finally {
+                in.close();
+            }
+        }
+
+        /** Copies bytes of the body to the cache; on failure the copy is abandoned and the body is still read. */
+        private void copy (byte [] b, int off, int len) {
+            if (out == null)
+                return;
+            try {
+                out.write(b, off, len);
+            } catch (IOException e) {
+                abandon();
+            }
+        }
+
+        /** Commits the copy to the cache. */
+        private void commit () {
+            if (out == null)
+                return;
+            try {
+                out.close();
+                out = null;
+                DiskCache.commit(name, temp);
+            } catch (IOException e) {
+                abandon();
+            }
+        }
+
+        /** Discards the copy. */
+        private void abandon () {
+            if (out == null)
+                return;
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Discarded anyway
+            }
+            out = null;
+            temp.delete();
+        }
+    }
+
+    /** Constructor is private; this class only holds static members. */
+    private DiskCache () {}
+
+    /** Returns the time responses of a URL stay fresh.
+     *
+     * @param   url     a String containing a URL
+     * @return  the time in milliseconds, or 0 if responses of the URL are not cached
+     */
+    private static long timeToLive (String url) {
+        try {
+            URL parsed = new URL(url);
+            if (!"http".equals(parsed.getProtocol()) && !"https".equals(parsed.getProtocol()))
+                return 0;
+            synchronized (TTL) {
+                Long ttl = TTL.get(parsed.getHost());
+                return ttl == null ? 0 : ttl;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /** Returns the name of the file of a cached response.
+     *
+     * @param   key     the canonical URL of the response
+     * @return  the hexadecimal SHA-1 digest of the key followed by the suffix
+     */
+    private static String name (String key) {
+        try {
+            byte [] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(digest.length * 2 + SUFFIX.length());
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.append(SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-1 is always available
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // UTF-8 is always available
+        }
+    }
+
+    /** Records a written response in the index, replacing any previous one, and evicts the least recently used
+     * responses while the cache is over its size.
+     *
+     * @param   name    the name of the file of the response
+     * @param   temp    the file to which the response was written
+     */
+    private static synchronized void commit (String name, File temp) {
+        if (directory == null) {
+            temp.delete();
+            return;
+        }
+        File file = new File(directory, name);
+        if (!temp.renameTo(file)) {
+            file.delete();
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return;
+            }
+        }
+        Long previous = ENTRIES.put(name, file.length());
+        size += file.length() - (previous == null ? 0 : previous);
+        trim();
+    }
+
+    /** Removes a response from the index and deletes its file. */
+    private static synchronized void remove (String name) {
+        Long previous = ENTRIES.remove(name);
+        if (previous != null)
+            size -= previous;
+        if (directory != null)
+            new File(directory, name).delete();
+    }
+
+    /** Evicts the least recently used responses while the cache is over its size. */
+    private static void trim () {
+        Iterator<Map.Entry<String, Long>> it = ENTRIES.entrySet().iterator();
+        while (size > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            size -= eldest.getValue();
+            new File(directory, eldest.getKey()).delete();
+            it.remove();
+        }
+    }
+
+    /** Opens the cached response of a URL if it is still fresh.
+     *
+     * @param   url             a String containing a URL
+     * @param   validators      receives the validators stored with the response, or null
+     * @return  an InputStream reading the cached response body, or null if none is fresh
+     */
+    static InputStream open (String url, HttpTransport.Validators validators) {
+        return open(url, validators, false);
+    }
+
+    /** Opens the cached response of a URL however old it is; used when the service cannot be reached.
+     *
+     * @param   url             a String containing a URL
+     * @param   validators      receives the validators stored with the response, or null
+     * @return  an InputStream reading the cached response body, or null if none is cached
+     */
+    static InputStream openStale (String url, HttpTransport.Validators validators) {
+        InputStream in = open(url, validators, true);
+        if (in != null)
+            stale.incrementAndGet();
+        return in;
+    }
+
+    /** Opens the cached response of a URL.
+     *
+     * @param   url             a String containing a URL
+     * @param   validators      receives the validators stored with the response, or null
+     * @param   anyAge          true to open the response even if it is no longer fresh
+     * @return  an InputStream reading the cached response body, or null if none is cached or, unless anyAge is set,
+     *          none is fresh
+     */
+    private static InputStream open (String url, HttpTransport.Validators validators, boolean anyAge) {
+        long ttl = timeToLive(url);
+        String key = RefreshRegistry.canonical(url);
+        String name;
+        File file;
+        synchronized (DiskCache.class) {
+            if (directory == null || ttl <= 0)
+                return null;
+            name = name(key);
+            if (ENTRIES.get(name) == null) { // Also marks the entry as recently used
+                if (!anyAge)
+                    misses.incrementAndGet();
+                return null;
+            }
+            file = new File(directory, name);
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER));
+            String stored = in.readUTF();
+            long storedAt = in.readLong();
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            long age = System.currentTimeMillis() - storedAt;
+            if (!stored.equals(key) || (!anyAge && (age < 0 || age > ttl))) {
+                in.close();
+                if (!anyAge)
+                    misses.incrementAndGet();
+                return null;
+            }
+            if (validators != null) {
+                validators.etag = etag.isEmpty() ? null : etag;
+                validators.lastModified = lastModified.isEmpty() ? null : lastModified;
+            }
+            file.setLastModified(System.currentTimeMillis()); // Keeps the access order across restarts
+            if (!anyAge)
+                hits.incrementAndGet();
+            return in;
+        } catch (IOException e) {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    // Unreadable; removed below
+                }
+            }
+            remove(name);
+            if (!anyAge)
+                misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /** Wraps a response body fetched from the network so that it is copied to the cache as it is read.
+     *
+     * @param   url             a String containing the URL of the response
+     * @param   validators      the validators of the response, or null
+     * @param   body            the response body
+     * @return  a stream reading the response body; the body itself if the response is not cached
+     */
+    static InputStream store (String url, HttpTransport.Validators validators, InputStream body) {
+        long ttl = timeToLive(url);
+        String key = RefreshRegistry.canonical(url);
+        File temp;
+        synchronized (DiskCache.class) {
+            if (directory == null || ttl <= 0)
+                return body;
+            temp = new File(directory, name(key) + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
+        }
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), BUFFER));
+            out.writeUTF(key);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF(validators == null || validators.etag == null ? "" : validators.etag);
+            out.writeUTF(validators == null || validators.lastModified == null ? "" : validators.lastModified);
+            return new Writer(body, name(key), temp, out);
+        } catch (IOException e) {
+            temp.delete();
+            return body;
+        }
+    }
+
+    // PUBLIC METHODS //
+    //
+    /** Turns the cache on, keeping responses in a directory. Responses already in the directory from earlier runs
+     * are served while they are fresh; the least recently used are evicted if they exceed the size.
+     *
+     * @param   dir     the directory in which to keep responses; created if necessary
+     * @param   bytes   the maximum total size in bytes of the cached responses
+     */
+    public static synchronized void install (File dir, long bytes) {
+        dir.mkdirs();
+        directory = dir;
+        maxBytes = bytes;
+        ENTRIES.clear();
+        size = 0;
+        File [] files = dir.listFiles();
+        if (files == null)
+            return;
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare (File a, File b) {
+                long x = a.lastModified(), y = b.lastModified();
+                return x < y ? -1 : (x == y ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete(); // Left over from an interrupted write
+            } else if (file.getName().endsWith(SUFFIX)) {
+                ENTRIES.put(file.getName(), file.length());
+                size += file.length();
+            }
+        }
+        trim();
+    }
+
+    /** Turns the cache off. Responses already cached are left in place for a later {@code install}. */
+    public static synchronized void uninstall () {
+        directory = null;
+        ENTRIES.clear();
+        size = 0;
+    }
+
+    /** Deletes every cached response. */
+    public static synchronized void clear () {
+        if (directory != null) {
+            for (String name : ENTRIES.keySet())
+                new File(directory, name).delete();
+        }
+        ENTRIES.clear();
+        size = 0;
+    }
+
+    /** Sets the time responses of a host stay fresh.
+     *
+     * @param   host    the host name, such as "api.sfpark.org"
+     * @param   millis  the time in milliseconds; 0 stops responses of the host from being cached
+     */
+    public static void setTimeToLive (String host, long millis) {
+        synchronized (TTL) {
+            TTL.put(host, millis);
+        }
+    }
+
+    /** Returns the total size of the cached responses.
+     *
+     * @return  the size in bytes
+     */
+    public static synchronized long size () {
+        return size;
+    }
+
+    /** Returns the number of requests answered from the cache.
+     *
+     * @return  the number of hits
+     */
+    public static long hitCount () {
+        return hits.get();
+    }
+
+    /** Returns the number of cacheable requests which found no fresh response in the cache.
+     *
+     * @return  the number of misses
+     */
+    public static long missCount () {
+        return misses.get();
+    }
+
+    /** Returns the number of requests answered with a response no longer fresh because the service could not be
+     * reached.
+     *
+     * @return  the number of stale responses served
+     */
+    public static long staleCount () {
+        return stale.get();
+    }
+}
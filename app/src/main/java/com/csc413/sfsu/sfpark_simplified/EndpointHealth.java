@@ -0,0 +1,224 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/** The EndpointHealth class tracks how a remote service has been responding, one instance per host (and port, if
+ * the service's URL names one).
+ * It keeps the latencies of the most recent requests, from which the time to wait for a response and the time after
+ * which to send a hedged second request are derived, and it acts as a circuit breaker: after several consecutive
+ * failures the service is considered down and requests to it fail fast until a cool-down has passed, after which a
+ * single trial request is let through to find out whether the service has recovered.
+ *
+ * @version     %I%, %G%
+ */
+public final class EndpointHealth {
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** The number of latencies kept */
+    private static final int WINDOW = 64;
+    /** The number of latencies needed before they replace the defaults */
+    private static final int MIN_SAMPLES = 8;
+    /** The time in milliseconds to wait for a response while too few latencies are known */
+    private static final int DEFAULT_TIMEOUT = 10000;
+    /** The shortest time in milliseconds to wait for a response */
+    private static final int MIN_TIMEOUT = 1500;
+    /** The multiple of the 99th percentile latency waited for a response */
+    private static final int TIMEOUT_FACTOR = 4;
+    /** The shortest time in milliseconds after which a hedged request is sent */
+    private static final long MIN_HEDGE_DELAY = 50;
+    /** The number of consecutive failures which opens the circuit */
+    private static final int FAILURE_THRESHOLD = 4;
+    /** The time in milliseconds the circuit stays open before a trial request is let through */
+    private static final long COOL_DOWN = 30000;
+
+    /** The instances, by host */
+    private static final Map<String, EndpointHealth> HOSTS = new HashMap<String, EndpointHealth>();
+
+    /** The host of the service */
+    private final String host;
+    /** The latencies in milliseconds of the most recent successful requests, as a ring */
+    private final long [] latencies = new long[WINDOW];
+    /** The number of latencies recorded, up to WINDOW */
+    private int samples;
+    /** The position in the ring of the next latency */
+    private int next;
+    /** The number of consecutive failures */
+    private int failures;
+    /** The time at which the circuit opened, or 0 if it is closed */
+    private long openedAt;
+    /** True while a trial request is in flight through a half-open circuit */
+    private boolean trial;
+    /** The number of hedged requests sent */
+    private long hedges;
+
+    /** Creates the health of a host.
+     *
+     * @param   host    the host of the service
+     */
+    private EndpointHealth (String host) {
+        this.host = host;
+    }
+
+    /** Returns a percentile of the recorded latencies. Must be called while holding the monitor.
+     *
+     * @param   p   the percentile, between 0 and 100
+     * @return  the latency in milliseconds, or -1 if too few latencies are known
+     */
+    private long latency (double p) {
+        if (samples < MIN_SAMPLES)
+            return -1;
+        long [] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(p / 100 * samples) - 1;
+        return sorted[Math.max(0, Math.min(samples - 1, index))];
+    }
+
+    /** Returns the health of the host of a URL.
+     *
+     * @param   url     a String containing a URL
+     * @return  the health of its host, or null if the URL is not an HTTP URL
+     */
+    static EndpointHealth of (String url) {
+        try {
+            URL parsed = new URL(url);
+            if (!"http".equals(parsed.getProtocol()) && !"https".equals(parsed.getProtocol()))
+                return null;
+            return forHost(parsed.getPort() == -1 ? parsed.getHost() : parsed.getHost() + ":" + parsed.getPort());
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    /** Indicates whether a request may be sent. While the circuit is open requests are refused; once the cool-down
+     * has passed a single trial request is allowed.
+     *
+     * @return  true if a request may be sent, false if it should fail fast
+     */
+    synchronized boolean allowRequest () {
+        if (openedAt == 0)
+            return true;
+        if (trial || System.currentTimeMillis() - openedAt < COOL_DOWN)
+            return false;
+        trial = true;
+        return true;
+    }
+
+    /** Records a successful request, closing the circuit.
+     *
+     * @param   latency     the time in milliseconds until the response headers arrived
+     */
+    synchronized void recordSuccess (long latency) {
+        latencies[next] = latency;
+        next = (next + 1) % WINDOW;
+        if (samples < WINDOW)
+            samples++;
+        failures = 0;
+        openedAt = 0;
+        trial = false;
+    }
+
+    /** Records a failed request; the circuit opens after FAILURE_THRESHOLD consecutive failures, or at once if the
+     * request was a trial.
+     */
+    synchronized void recordFailure () {
+        failures++;
+        if (trial || failures >= FAILURE_THRESHOLD)
+            openedAt = System.currentTimeMillis();
+        trial = false;
+    }
+
+    /** Records a request cancelled by its caller, which says nothing of the service; a trial request may be sent
+     * again.
+     */
+    synchronized void recordCancelled () {
+        trial = false;
+    }
+
+    /** Records that a slow request was hedged by a second one. */
+    synchronized void recordHedge () {
+        hedges++;
+    }
+
+    /** Returns the time to wait for a connection or for the response headers: a multiple of the 99th percentile
+     * latency, bounded by the default.
+     *
+     * @return  the timeout in milliseconds
+     */
+    synchronized int timeout () {
+        long p99 = latency(99);
+        if (p99 < 0)
+            return DEFAULT_TIMEOUT;
+        return (int) Math.max(MIN_TIMEOUT, Math.min(DEFAULT_TIMEOUT, p99 * TIMEOUT_FACTOR));
+    }
+
+    /** Returns the time after which a request still awaiting its response is hedged by a second one: the 95th
+     * percentile latency, so that only the slowest requests are duplicated.
+     *
+     * @return  the delay in milliseconds, or -1 if too few latencies are known to hedge
+     */
+    synchronized long hedgeDelay () {
+        long p95 = latency(95);
+        return p95 < 0 ? -1 : Math.max(MIN_HEDGE_DELAY, p95);
+    }
+
+    // PUBLIC METHODS //
+    //
+    /** Returns the health of a host, creating it if necessary.
+     *
+     * @param   host    the host of the service, such as "api.sfpark.org", followed by ":" and the port if its URL
+     *                  names one
+     * @return  the health of the host
+     */
+    public static EndpointHealth forHost (String host) {
+        synchronized (HOSTS) {
+            EndpointHealth health = HOSTS.get(host);
+            if (health == null) {
+                health = new EndpointHealth(host);
+                HOSTS.put(host, health);
+            }
+            return health;
+        }
+    }
+
+    /** Returns the host of the service.
+     *
+     * @return  the host name
+     */
+    public String host () {
+        return host;
+    }
+
+    /** Returns a percentile of the latencies of the most recent successful requests.
+     *
+     * @param   p   the percentile, between 0 and 100
+     * @return  the latency in milliseconds until the response headers arrived, or -1 if too few are known
+     */
+    public synchronized long percentile (double p) {
+        return latency(p);
+    }
+
+    /** Returns the number of slow requests which were hedged by a second one.
+     *
+     * @return  the number of hedged requests sent
+     */
+    public synchronized long hedgeCount () {
+        return hedges;
+    }
+
+    /** Returns the state of the circuit breaker.
+     *  CLOSED: requests are sent
+     *  OPEN: requests fail fast, or are answered from cached data
+     *  HALF_OPEN: the cool-down has passed; the next request is a trial
+     *
+     * @return  a String containing the state
+     */
+    public synchronized String state () {
+        if (openedAt == 0)
+            return "CLOSED";
+        return trial || System.currentTimeMillis() - openedAt >= COOL_DOWN ? "HALF_OPEN" : "OPEN";
+    }
+}
@@ -0,0 +1,95 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/** The Endpoints class holds the locations of the remote services and the Transport through which they are reached.
+ * By default queries are sent to the live SFPark Availability and San Francisco Crimespotting services over the
+ * HttpTransport; both may be pointed elsewhere, such as at a local server replaying recorded responses. Queries built
+ * after a change use the new endpoints.
+ *
+ * @version     %I%, %G%
+ */
+public final class Endpoints {
+    /** The endpoint URL of the live SFPark Availability service */
+    public static final String SFPARK = "http://api.sfpark.org/sfpark/rest/availabilityservice";
+    /** The endpoint URL of the live San Francisco Crimespotting service */
+    public static final String CRIMESPOTTING = "http://sanfrancisco.crimespotting.org/crime-data";
+
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** Opens responses over HTTP */
+    private static final Transport HTTP = new Transport() {
+        @Override
+        public InputStream open (String url, HttpTransport.Validators validators, int timeout) throws IOException {
+            return HttpTransport.open(url, validators, timeout);
+        }
+    };
+
+    /** The endpoint URL of the SFPark Availability service */
+    private static volatile String sfpark = SFPARK;
+    /** The endpoint URL of the San Francisco Crimespotting service */
+    private static volatile String crimespotting = CRIMESPOTTING;
+    /** The Transport through which every request is sent */
+    private static volatile Transport transport = HTTP;
+
+    /** Constructor is private; this class only holds static members. */
+    private Endpoints () {}
+
+    // PUBLIC METHODS //
+    //
+    /** Returns the endpoint URL of the SFPark Availability service.
+     *
+     * @return  the endpoint URL, without a query
+     */
+    public static String sfpark () {
+        return sfpark;
+    }
+
+    /** Sets the endpoint URL of the SFPark Availability service.
+     *
+     * @param   url     the endpoint URL, without a query
+     */
+    public static void setSFPark (String url) {
+        sfpark = url;
+    }
+
+    /** Returns the endpoint URL of the San Francisco Crimespotting service.
+     *
+     * @return  the endpoint URL, without a query
+     */
+    public static String crimespotting () {
+        return crimespotting;
+    }
+
+    /** Sets the endpoint URL of the San Francisco Crimespotting service.
+     *
+     * @param   url     the endpoint URL, without a query
+     */
+    public static void setCrimespotting (String url) {
+        crimespotting = url;
+    }
+
+    /** Returns the Transport through which every request is sent.
+     *
+     * @return  the Transport
+     */
+    public static Transport transport () {
+        return transport;
+    }
+
+    /** Sets the Transport through which every request is sent.
+     *
+     * @param   t   the Transport, or null to restore the HttpTransport
+     */
+    public static void setTransport (Transport t) {
+        transport = t == null ? HTTP : t;
+    }
+
+    /** Restores the live endpoints and the HttpTransport. */
+    public static void reset () {
+        sfpark = SFPARK;
+        crimespotting = CRIMESPOTTING;
+        transport = HTTP;
+    }
+}
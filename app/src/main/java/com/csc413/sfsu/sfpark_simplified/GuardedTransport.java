@@ -0,0 +1,249 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** The GuardedTransport class opens response bodies through the Transport set in Endpoints on behalf of the
+ * EndpointHealth of their service, which bounds the time a slow or dead service can cost a request:
+ *  - the time to wait for a response is derived from the service's recent latencies
+ *  - a request still awaiting its response after the service's 95th percentile latency is hedged by a second,
+ *    identical request, and whichever answers first is used
+ *  - while the service's circuit is open, requests fail fast without going to the network
+ * When the service cannot be reached, a cached response is served however old it is, if the DiskCache has one.
+ * Responses fetched from the network are copied to the DiskCache.
+ *
+ * @version     %I%, %G%
+ */
+final class GuardedTransport {
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** The largest number of attempts run at once on behalf of waiting requests */
+    private static final int MAX_ATTEMPTS = 4;
+    /** The time in seconds an idle attempt thread is kept */
+    private static final int KEEP_ALIVE = 30;
+
+    /** Runs the attempts of requests which may be hedged. It queues nothing: an attempt is only handed off to an idle
+     * or new thread, and is refused once MAX_ATTEMPTS are running */
+    private static final ThreadPoolExecutor ATTEMPTS;
+
+    static {
+        final AtomicInteger count = new AtomicInteger();
+        ATTEMPTS = new ThreadPoolExecutor(0, MAX_ATTEMPTS, KEEP_ALIVE, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread (Runnable r) {
+                Thread thread = new Thread(r, "sfpark-hedge-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        });
+    }
+
+    /** The Attempt class is one request for a response body. An attempt which loses to another is abandoned; its
+     * body is closed as soon as it arrives.
+     */
+    private static final class Attempt implements Callable<InputStream> {
+        private final String url;
+        private final int timeout;
+        /** The validators sent, replaced by those of the response */
+        private final HttpTransport.Validators validators = new HttpTransport.Validators();
+        /** The time in milliseconds until the response headers arrived */
+        private long latency;
+        private InputStream body;
+        private boolean abandoned;
+
+        Attempt (String url, HttpTransport.Validators sent, int timeout) {
+            this.url = url;
+            this.timeout = timeout;
+            if (sent != null) {
+                validators.etag = sent.etag;
+                validators.lastModified = sent.lastModified;
+            }
+        }
+
+        @Override
+        public InputStream call () throws IOException {
+            long start = System.currentTimeMillis();
+            InputStream in = Endpoints.transport().open(url, validators, timeout);
+            latency = System.currentTimeMillis() - start;
+            synchronized (this) {
+                if (abandoned) {
+                    close(in);
+                    return null;
+                }
+                body = in;
+            }
+            return in;
+        }
+
+        /** Abandons the attempt, closing its body if it has already arrived. */
+        synchronized void abandon () {
+            abandoned = true;
+            close(body);
+            body = null;
+        }
+
+        /** Copies the validators of the response to those of the caller. */
+        void copyTo (HttpTransport.Validators target) {
+            if (target != null) {
+                target.etag = validators.etag;
+                target.lastModified = validators.lastModified;
+            }
+        }
+    }
+
+    /** Constructor is private; this class only holds static members. */
+    private GuardedTransport () {}
+
+    /** Closes a stream, ignoring any error.
+     *
+     * @param   in  the stream to close, or null
+     */
+    private static void close (InputStream in) {
+        if (in == null)
+            return;
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Abandoned anyway
+        }
+    }
+
+    /** Sends a request on the calling thread, without hedging it.
+     *
+     * @param   attempt         the request
+     * @param   validators      receives the validators of the response, or null
+     * @param   health          the health of the service
+     * @return  the decompressed response body, or null if the server answered 304 Not Modified
+     * @throws  IOException     if the request failed
+     */
+    private static InputStream call (Attempt attempt, HttpTransport.Validators validators, EndpointHealth health)
+            throws IOException {
+        InputStream in = attempt.call();
+        health.recordSuccess(attempt.latency);
+        attempt.copyTo(validators);
+        return in;
+    }
+
+    /** Sends a request, hedging it if it is slow. The request is handed off to an attempt thread only while one is
+     * free, so that the calling thread can take whichever attempt answers first; otherwise it is sent unhedged.
+     *
+     * @param   url             a String containing a URL from which to read
+     * @param   validators      the validators of the previous response, or null; on return holds those of the response
+     * @param   health          the health of the service
+     * @return  the decompressed response body, or null if the server answered 304 Not Modified
+     * @throws  IOException     if every attempt failed
+     */
+    private static InputStream request (String url, HttpTransport.Validators validators, EndpointHealth health)
+            throws IOException {
+        int timeout = health.timeout();
+        long delay = health.hedgeDelay();
+        Attempt first = new Attempt(url, validators, timeout);
+        if (delay < 0) // Too little is known of the service to tell a slow response; no hedging
+            return call(first, validators, health);
+
+        CompletionService<InputStream> attempts = new ExecutorCompletionService<InputStream>(ATTEMPTS);
+        Future<InputStream> firstFuture;
+        try {
+            firstFuture = attempts.submit(first);
+        } catch (RejectedExecutionException e) { // Every attempt thread is busy
+            return call(first, validators, health);
+        }
+        Attempt second = null;
+        int outstanding = 1;
+        IOException failure = null;
+        try {
+            Future<InputStream> completed = attempts.poll(delay, TimeUnit.MILLISECONDS);
+            if (completed == null) { // Slower than 95% of requests; hedge
+                Attempt hedge = new Attempt(url, validators, timeout);
+                try {
+                    attempts.submit(hedge);
+                    second = hedge;
+                    outstanding++;
+                    health.recordHedge();
+                } catch (RejectedExecutionException e) {
+                    // Every attempt thread is busy; wait for the first attempt alone
+                }
+            }
+            while (true) {
+                if (completed == null)
+                    completed = attempts.take(); // Bounded by the attempts' timeouts
+                outstanding--;
+                Attempt attempt = completed == firstFuture ? first : second;
+                try {
+                    InputStream in = completed.get();
+                    health.recordSuccess(attempt.latency);
+                    attempt.copyTo(validators);
+                    Attempt loser = attempt == first ? second : first;
+                    if (loser != null)
+                        loser.abandon();
+                    return in;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                }
+                if (outstanding == 0)
+                    throw failure;
+                completed = null;
+            }
+        } catch (InterruptedException e) {
+            first.abandon();
+            if (second != null)
+                second.abandon();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + url);
+        }
+    }
+
+    /** Opens the response body of a network location for streaming through the Transport set in Endpoints, guarded
+     * by the health of its service.
+     *
+     * @param   url             a String containing a URL from which to read
+     * @param   validators      the validators of the previous response, or null to request the body unconditionally;
+     *                          on return holds the validators of the response
+     * @return  an InputStream reading the decompressed response body, or null if the server answered 304 Not Modified
+     * @throws  IOException     if the service could not be reached, or its circuit is open, and no response is cached
+     */
+    static InputStream open (String url, HttpTransport.Validators validators) throws IOException {
+        EndpointHealth health = EndpointHealth.of(url);
+        if (health == null) // Not an HTTP URL
+            return Endpoints.transport().open(url, validators, HttpTransport.SOCKET_TIMEOUT);
+        if (!health.allowRequest()) {
+            InputStream stale = DiskCache.openStale(url, validators);
+            if (stale != null)
+                return stale;
+            throw new IOException("Circuit open for " + health.host());
+        }
+        InputStream in;
+        try {
+            in = request(url, validators, health);
+        } catch (IOException e) {
+            if (Thread.currentThread().isInterrupted()) { // Cancelled; says nothing of the service
+                health.recordCancelled();
+                throw e;
+            }
+            health.recordFailure();
+            InputStream stale = DiskCache.openStale(url, validators);
+            if (stale != null)
+                return stale;
+            throw e;
+        } catch (RuntimeException e) {
+            health.recordFailure();
+            throw e;
+        }
+        return in == null ? null : DiskCache.store(url, validators, in);
+    }
+}
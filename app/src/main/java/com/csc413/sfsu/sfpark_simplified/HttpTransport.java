@@ -0,0 +1,156 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.zip.GZIPInputStream;
+
+/** The HttpTransport class opens the response bodies of the SFPark Availability and San Francisco Crimespotting
+ * services for streaming.
+ * Connections are kept alive and pooled per host, so consecutive requests to the same service skip the TCP
+ * handshake, and responses are requested gzip-compressed and decompressed as they are streamed. The body is never
+ * buffered in full; it is handed to the parser as it arrives.
+ *
+ * @version     %I%, %G%
+ */
+public final class HttpTransport {
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** The time in milliseconds until a connection attempt or a read times out */
+    static final int SOCKET_TIMEOUT = 10000;
+    /** The number of idle connections kept alive per host */
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    /** The number of unread bytes of a closed body that are drained so that its connection may be reused;
+     * connections with more unread data are dropped instead */
+    private static final int MAX_DRAIN = 64 * 1024;
+    /** The buffer size of the gzip decoder */
+    private static final int GZIP_BUFFER = 8192;
+
+    static {
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+    }
+
+    /** The Validators class holds the cache validators of a response: the ETag and Last-Modified header values.
+     * Passed to {@code open}, its values are sent as conditional request headers and are replaced by those of
+     * the new response.
+     */
+    public static final class Validators {
+        /** The value of the ETag header, or null */
+        public String etag;
+        /** The value of the Last-Modified header, or null */
+        public String lastModified;
+    }
+
+    /** The Body class is the stream of a response body.
+     * Closing it first drains any unread data, which returns the connection to the pool rather than dropping it.
+     */
+    private static class Body extends FilterInputStream {
+        Body (InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close () throws IOException {
+            try {
+                drain(in);
+            } finally {
+                super.close();
+            }
+        }
+    }
+
+    /** Constructor is private; this class only holds static members. */
+    private HttpTransport () {}
+
+    /** Reads and discards the remainder of a stream, up to MAX_DRAIN bytes.
+     *
+     * @param   in              the stream to drain, or null
+     * @throws  IOException     if an error occurs while reading the stream
+     */
+    private static void drain (InputStream in) throws IOException {
+        if (in == null)
+            return;
+        byte [] buffer = new byte[1024];
+        int drained = 0, n;
+        while (drained < MAX_DRAIN && (n = in.read(buffer)) != -1)
+            drained += n;
+    }
+
+    // PUBLIC METHODS //
+    //
+    /** Opens the response body of a network location for streaming.
+     * HTTP responses other than 200 OK are rejected. Non-HTTP locations (such as {@code file:} URLs) are opened
+     * as is.
+     *
+     * @param   url             a String containing a URL from which to read
+     * @return  an InputStream reading the decompressed response body; closing it releases the connection
+     * @throws  IOException     if the connection could not be established or the response is not 200 OK
+     */
+    public static InputStream open (String url) throws IOException {
+        return open(url, null);
+    }
+
+    /** Opens the response body of a network location for streaming, unless it has not changed since the response
+     * from which a set of validators was taken.
+     *
+     * @param   url             a String containing a URL from which to read
+     * @param   validators      the validators of the previous response, or null to request the body unconditionally;
+     *                          on return holds the validators of the new response
+     * @return  an InputStream reading the decompressed response body, or null if the server answered 304 Not Modified
+     * @throws  IOException     if the connection could not be established or the response is neither 200 nor 304
+     */
+    static InputStream open (String url, Validators validators) throws IOException {
+        return open(url, validators, SOCKET_TIMEOUT);
+    }
+
+    /** Opens the response body of a network location for streaming, as with {@code open(String, Validators)}, with
+     * a given time to wait for the connection and for each read.
+     *
+     * @param   url             a String containing a URL from which to read
+     * @param   validators      the validators of the previous response, or null to request the body unconditionally;
+     *                          on return holds the validators of the new response
+     * @param   timeout         the time in milliseconds until a connection attempt or a read times out
+     * @return  an InputStream reading the decompressed response body, or null if the server answered 304 Not Modified
+     * @throws  IOException     if the connection could not be established or the response is neither 200 nor 304
+     */
+    static InputStream open (String url, Validators validators, int timeout) throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        if (!(connection instanceof HttpURLConnection))
+            return connection.getInputStream();
+
+        HttpURLConnection http = (HttpURLConnection) connection;
+        // Setting Accept-Encoding explicitly turns off transparent decompression, so the body is decoded below
+        http.setRequestProperty("Accept-Encoding", "gzip");
+        http.setRequestProperty("Connection", "keep-alive");
+        if (validators != null && validators.etag != null)
+            http.setRequestProperty("If-None-Match", validators.etag);
+        if (validators != null && validators.lastModified != null)
+            http.setRequestProperty("If-Modified-Since", validators.lastModified);
+        int code = http.getResponseCode();
+        if (code == HttpURLConnection.HTTP_NOT_MODIFIED && validators != null) {
+            new Body(http.getInputStream()).close(); // Empty; returns the connection to the pool
+            return null;
+        }
+        if (code != HttpURLConnection.HTTP_OK) {
+            InputStream error = http.getErrorStream();
+            if (error != null)
+                new Body(error).close();
+            throw new IOException("HTTP " + code + " from " + url);
+        }
+
+        if (validators != null) {
+            validators.etag = http.getHeaderField("ETag");
+            validators.lastModified = http.getHeaderField("Last-Modified");
+        }
+        InputStream in = new Body(http.getInputStream());
+        if ("gzip".equalsIgnoreCase(http.getContentEncoding()))
+            in = new GZIPInputStream(in, GZIP_BUFFER);
+        return in;
+    }
+}
@@ -0,0 +1,423 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** The InFlightRequests class coalesces concurrent requests for the same query.
+ * The first request for a query opens the connection; any identical request made while it is still in flight
+ * attaches to it instead of issuing a duplicate, and reads the same response body from the start as it arrives.
+ * Queries are matched by their canonical URL, so the order in which their parameters were set does not matter.
+ * Once the response has been read in full, the next request for the query goes to the network again.
+ *
+ * The body is only kept in memory for as long as a request may still attach and need it replayed: until no request
+ * has attached and the body grows past REPLAY_LIMIT, or the request in flight ends with none attached. A request for
+ * a query whose flight no longer keeps its body goes to the network, so a response read by a single request is
+ * still streamed a record at a time rather than held whole.
+ *
+ * @version     %I%, %G%
+ */
+public final class InFlightRequests {
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** The time in milliseconds an attached request waits for more of the body before giving up */
+    private static final int READ_TIMEOUT = 10000;
+    /** The initial capacity in bytes of a shared body */
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+    /** The number of bytes of a body kept for requests which may attach, until one does */
+    private static final int REPLAY_LIMIT = 64 * 1024;
+
+    /** Requests in flight, by canonical URL and validators */
+    private static final ConcurrentHashMap<String, Flight> FLIGHTS = new ConcurrentHashMap<String, Flight>();
+    /** The number of requests sent to the network */
+    private static final AtomicLong requests = new AtomicLong();
+    /** The number of requests which attached to one already in flight */
+    private static final AtomicLong coalesced = new AtomicLong();
+
+    /** The Flight class is a request in flight: the response body read so far, shared by all attached requests.
+     * All members are guarded by the Flight's monitor.
+     */
+    private static final class Flight {
+        /** The body read so far, or null once it is no longer kept */
+        private byte [] data = new byte[INITIAL_CAPACITY];
+        /** The number of bytes of data read so far */
+        private int length;
+        /** True once the response headers are known */
+        private boolean open;
+        /** True if the server answered 304 Not Modified */
+        private boolean notModified;
+        /** The validators of the response */
+        private String etag, lastModified;
+        /** True once the body has been read in full */
+        private boolean done;
+        /** The exception which ended the request, or null */
+        private IOException error;
+        /** True once the requesting stream was closed or the body is no longer kept; no more requests may attach */
+        private boolean closed;
+        /** The number of attached requests */
+        private int readers;
+
+        /** Attaches a request to the flight.
+         *
+         * @return  true if the request was attached, false if the flight is closing
+         */
+        synchronized boolean attach () {
+            if (closed)
+                return false;
+            readers++;
+            return true;
+        }
+
+        /** Detaches a request from the flight, releasing the body once no requests remain attached. */
+        synchronized void detach () {
+            if (--readers == 0)
+                drop();
+        }
+
+        /** Indicates whether any requests are attached to the flight.
+         *
+         * @return  true if at least one request is attached
+         */
+        synchronized boolean attached () {
+            return readers > 0;
+        }
+
+        /** Waits for the response headers and copies the validators of the response.
+         *
+         * @param   validators      receives the validators of the response, or null
+         * @return  false if the server answered 304 Not Modified, true otherwise
+         * @throws  IOException     if the request failed or the headers did not arrive in time
+         */
+        synchronized boolean await (HttpTransport.Validators validators) throws IOException {
+            while (!open && error == null)
+                pause();
+            if (error != null && !open)
+                throw error;
+            if (validators != null) {
+                validators.etag = etag;
+                validators.lastModified = lastModified;
+            }
+            return !notModified;
+        }
+
+        /** Records the response headers and wakes the attached requests. */
+        synchronized void opened (boolean notModified, HttpTransport.Validators validators) {
+            this.open = true;
+            this.notModified = notModified;
+            if (validators != null) {
+                etag = validators.etag;
+                lastModified = validators.lastModified;
+            }
+            if (notModified)
+                done = true;
+            notifyAll();
+        }
+
+        /** Appends bytes to the body and wakes the attached requests. With no request attached, the body is dropped
+         * rather than kept past REPLAY_LIMIT.
+         *
+         * @return  true if the body is still kept, false if no more requests may attach
+         */
+        synchronized boolean append (byte [] b, int off, int len) {
+            if (data == null)
+                return false;
+            if (readers == 0 && length + len > REPLAY_LIMIT) {
+                drop();
+                return false;
+            }
+            if (length + len > data.length) {
+                byte [] grown = new byte[Math.max(data.length * 2, length + len)];
+                System.arraycopy(data, 0, grown, 0, length);
+                data = grown;
+            }
+            System.arraycopy(b, off, data, length, len);
+            length += len;
+            notifyAll();
+            return true;
+        }
+
+        /** Ends the body, normally if error is null, and wakes the attached requests. */
+        synchronized void finish (IOException error) {
+            if (done || this.error != null)
+                return;
+            if (error == null)
+                done = true;
+            else
+                this.error = error;
+            if (readers == 0)
+                drop();
+            notifyAll();
+        }
+
+        /** Closes the flight to further requests.
+         *
+         * @return  true if any requests are attached, in which case the rest of the body must still be read
+         */
+        synchronized boolean close () {
+            closed = true;
+            if (readers == 0)
+                drop();
+            return readers > 0;
+        }
+
+        /** Releases the body and closes the flight to further requests. Must be called while holding the monitor,
+         * with no requests attached. */
+        private void drop () {
+            data = null;
+            closed = true;
+        }
+
+        /** Copies bytes of the body from a position, waiting for them to arrive.
+         *
+         * @return  the number of bytes copied, or -1 at the end of the body
+         * @throws  IOException     if the request failed or no data arrived in time
+         */
+        synchronized int read (int pos, byte [] b, int off, int len) throws IOException {
+            while (pos >= length && !done && error == null)
+                pause();
+            if (pos < length) {
+                int n = Math.min(len, length - pos);
+                System.arraycopy(data, pos, b, off, n);
+                return n;
+            }
+            if (error != null)
+                throw error;
+            return -1;
+        }
+
+        /** Waits for the flight to make progress. Must be called while holding the monitor.
+         *
+         * @throws  IOException     if no progress was made in time or the thread was interrupted
+         */
+        private void pause () throws IOException {
+            int before = length;
+            boolean wasOpen = open;
+            try {
+                wait(READ_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a coalesced request");
+            }
+            if (length == before && open == wasOpen && !done && error == null)
+                throw new SocketTimeoutException("Coalesced request timed out");
+        }
+    }
+
+    /** The Leader class is the stream of the request which opened a flight.
+     * Everything read through it is shared with the attached requests, if any attach while the body is kept.
+     * Closing it early still reads the rest of the body for as long as any requests remain attached.
+     */
+    private static final class Leader extends InputStream {
+        private final String key;
+        private final Flight flight;
+        private final InputStream in;
+        private final byte [] single = new byte[1];
+
+        Leader (String key, Flight flight, InputStream in) {
+            this.key = key;
+            this.flight = flight;
+            this.in = in;
+        }
+
+        @Override
+        public int read () throws IOException {
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read (byte [] b, int off, int len) throws IOException {
+            int n;
+            try {
+                n = in.read(b, off, len);
+            } catch (IOException e) {
+                FLIGHTS.remove(key, flight);
+                flight.finish(e);
+                throw e;
+            }
+            if (n > 0) {
+                if (!flight.append(b, off, n))
+                    FLIGHTS.remove(key, flight); // Body no longer kept; identical requests go to the network
+            } else if (n == -1) {
+                FLIGHTS.remove(key, flight);
+                flight.finish(null);
+            }
+            return n;
+        }
+
+        @Override
+        public void close () throws IOException {
+            FLIGHTS.remove(key, flight);
+            try {
+                if (flight.close()) {
+                    byte [] buffer = new byte[4096];
+                    while (flight.attached() && read(buffer, 0, buffer.length) != -1)
+                        ;
+                }
+            } finally {
+                flight.finish(new IOException("Coalesced request was abandoned"));
+                in.close();
+            }
+        }
+    }
+
+    /** The Follower class is the stream of a request attached to a flight; it reads the shared body from the start.
+     * Closing it detaches the request, so that the flight neither keeps the body nor is read to its end for it.
+     */
+    private static final class Follower extends InputStream {
+        private final Flight flight;
+        private final byte [] single = new byte[1];
+        private int pos;
+        private boolean closed;
+
+        Follower (Flight flight) {
+            this.flight = flight;
+        }
+
+        @Override
+        public int read () throws IOException {
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read (byte [] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            int n = flight.read(pos, b, off, len);
+            if (n > 0)
+                pos += n;
+            return n;
+        }
+
+        @Override
+        public void close () {
+            if (closed)
+                return;
+            closed = true;
+            flight.detach();
+        }
+    }
+
+    /** Constructor is private; this class only holds static members. */
+    private InFlightRequests () {}
+
+    /** Returns the key of a request: its canonical URL and the validators it is conditional on.
+     *
+     * @param   url             a String containing a URL
+     * @param   validators      the validators sent with the request, or null
+     * @return  the key of the request
+     */
+    private static String key (String url, HttpTransport.Validators validators) {
+        String key = RefreshRegistry.canonical(url);
+        if (validators == null || (validators.etag == null && validators.lastModified == null))
+            return key;
+        return key + '\n' + validators.etag + '\n' + validators.lastModified;
+    }
+
+    /** Opens the response body of a network location for streaming: from the DiskCache if it holds a fresh copy,
+     * by attaching to an identical request if one is already in flight, or otherwise through the GuardedTransport,
+     * which copies the body to the DiskCache.
+     *
+     * @param   url             a String containing a URL from which to read
+     * @param   validators      the validators of the previous response, or null to request the body unconditionally;
+     *                          on return holds the validators of the new response
+     * @return  an InputStream reading the decompressed response body, or null if the server answered 304 Not Modified
+     * @throws  IOException     if the connection could not be established or the response is neither 200 nor 304
+     */
+    static InputStream open (String url, HttpTransport.Validators validators) throws IOException {
+        return open(url, validators, true);
+    }
+
+    /** Opens the response body of a network location for streaming, as {@code open(String, Validators)} does,
+     * optionally skipping the DiskCache's copy however fresh it is. The response is still copied to the DiskCache.
+     *
+     * @param   url             a String containing a URL from which to read
+     * @param   validators      the validators of the previous response, or null to request the body unconditionally;
+     *                          on return holds the validators of the new response
+     * @param   useCache        false to go to the network even if the DiskCache holds a fresh copy
+     * @return  an InputStream reading the decompressed response body, or null if the server answered 304 Not Modified
+     * @throws  IOException     if the connection could not be established or the response is neither 200 nor 304
+     */
+    static InputStream open (String url, HttpTransport.Validators validators, boolean useCache) throws IOException {
+        InputStream cached = useCache ? DiskCache.open(url, validators) : null;
+        if (cached != null)
+            return cached;
+        String key = key(url, validators);
+        while (true) {
+            Flight flight = new Flight();
+            Flight pending = FLIGHTS.putIfAbsent(key, flight);
+            if (pending == null)
+                return lead(key, flight, url, validators);
+            if (pending.attach()) {
+                coalesced.incrementAndGet();
+                boolean modified = false;
+                try {
+                    modified = pending.await(validators);
+                } finally {
+                    if (!modified)
+                        pending.detach();
+                }
+                return modified ? new Follower(pending) : null;
+            }
+            FLIGHTS.remove(key, pending); // Closing; start a new flight
+        }
+    }
+
+    /** Sends a request to the network on behalf of a new flight.
+     *
+     * @return  the stream of the response body, or null if the server answered 304 Not Modified
+     * @throws  IOException     if the connection could not be established or the response is neither 200 nor 304
+     */
+    private static InputStream lead (String key, Flight flight, String url, HttpTransport.Validators validators)
+            throws IOException {
+        requests.incrementAndGet();
+        InputStream in;
+        try {
+            in = GuardedTransport.open(url, validators);
+        } catch (IOException e) {
+            FLIGHTS.remove(key, flight);
+            flight.finish(e);
+            throw e;
+        } catch (RuntimeException e) {
+            FLIGHTS.remove(key, flight);
+            flight.finish(new IOException(e));
+            throw e;
+        }
+        if (in == null) {
+            FLIGHTS.remove(key, flight);
+            flight.opened(true, validators);
+            return null;
+        }
+        flight.opened(false, validators);
+        return new Leader(key, flight, in);
+    }
+
+    // PUBLIC METHODS //
+    //
+    /** Returns the number of requests sent to the network through this class.
+     *
+     * @return  the number of requests sent
+     */
+    public static long requestCount () {
+        return requests.get();
+    }
+
+    /** Returns the number of requests which attached to an identical request already in flight rather than being
+     * sent to the network.
+     *
+     * @return  the number of requests coalesced
+     */
+    public static long coalescedCount () {
+        return coalesced.get();
+    }
+
+    /** Returns the number of requests currently in flight.
+     *
+     * @return  the number of requests in flight
+     */
+    public static int inFlightCount () {
+        return FLIGHTS.size();
+    }
+}
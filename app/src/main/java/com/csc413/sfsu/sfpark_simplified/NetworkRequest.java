@@ -3,14 +3,93 @@ package com.csc413.sfsu.sfpark_simplified;
 import android.os.AsyncTask;
 
 import org.w3c.dom.Document;
+import org.xmlpull.v1.XmlPullParser;
 
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+
+import javax.xml.parsers.DocumentBuilder;
 
 /** The NetworkRequest class allows the user to make network requests asynchronously.
  * Networking operations in Android are not permitted on the main thread, so this class is
  * necessary for their execution.
 */
 public class NetworkRequest extends AsyncTask<String, Void, Document> {
+    /** The PullHandler interface reads a document from an XmlPullParser as it is streamed.
+     *
+     * @param   <T>     the type of the result read from the document
+     */
+    public interface PullHandler<T> {
+        /** Reads a document.
+         *
+         * @param   parser      an XmlPullParser positioned at the start of the document
+         * @return  the result read from the document
+         * @throws  Exception   if the document could not be read
+         */
+        T parse (XmlPullParser parser) throws Exception;
+    }
+
+    /** Creates and returns an org.w3c.dom.Document containing data parsed from a network location.
+     * The response body is streamed straight into this thread's pooled DocumentBuilder over a kept-alive connection;
+     * an identical request already in flight is joined rather than sent again.
+     * The document is fetched on the calling thread, which must not be the main thread; call this method from a
+     * request run by the RequestExecutor.
+     *
+     * @param   url         a String containing a URL from which to parse data
+     * @return              an org.w3c.dom.Document containing data parsed from the location at url
+     * @throws  Exception   if the location could not be read or its data could not be parsed
+     */
+    public static Document fetch (String url) throws Exception {
+        InputStream in = InFlightRequests.open(url, null);
+        try {
+            DocumentBuilder builder = ParserPool.acquireDocumentBuilder();
+            try {
+                return builder.parse(in, url);
+            } finally {
+                ParserPool.releaseDocumentBuilder(builder);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Streams the document at a network location through this thread's pooled XmlPullParser, without building a
+     * document tree; an identical request already in flight is joined rather than sent again.
+     * As with {@code fetch(String)}, the document is fetched on the calling thread, which must not be the main thread.
+     *
+     * @param   url         a String containing a URL from which to parse data
+     * @param   handler     the PullHandler which reads the document
+     * @return              the result of the handler
+     * @throws  Exception   if the location could not be read or the handler failed
+     */
+    public static <T> T fetch (String url, PullHandler<T> handler) throws Exception {
+        return fetch(url, true, handler);
+    }
+
+    /** Streams the document at a network location through this thread's pooled XmlPullParser, as
+     * {@code fetch(String, PullHandler)} does, optionally skipping the response cache's copy however fresh it is.
+     *
+     * @param   url         a String containing a URL from which to parse data
+     * @param   useCache    false to fetch the document from the network even if the response cache holds a fresh copy
+     * @param   handler     the PullHandler which reads the document
+     * @return              the result of the handler
+     * @throws  Exception   if the location could not be read or the handler failed
+     */
+    public static <T> T fetch (String url, boolean useCache, PullHandler<T> handler) throws Exception {
+        InputStream in = InFlightRequests.open(url, null, useCache);
+        try {
+            XmlPullParser parser = ParserPool.acquirePullParser();
+            try {
+                parser.setInput(new BufferedInputStream(in), null);
+                return handler.parse(parser);
+            } finally {
+                ParserPool.releasePullParser(parser);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
     /** Creates and returns an org.w3c.dom.Document containing data parsed from a network location.
      *
      * @param   url     a String containing a URL from which to parse data
@@ -18,7 +97,7 @@ public class NetworkRequest extends AsyncTask<String, Void, Document> {
     */
     protected Document doInBackground (String... url) {
         try {
-            return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(url[0]);
+            return fetch(url[0]);
         } catch (Exception e) {
             return null;
         }
@@ -1,6 +1,10 @@
 package com.csc413.sfsu.sfpark_simplified;
 
 import org.w3c.dom.Element;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /** The OPHRSElement class deals with the storage and passing of data extracted from a SFPark operating hours element.
  * Data is in the form of OPSElement objects.
@@ -20,6 +24,17 @@ public class OPHRSElement extends BranchElement {
         super(elem);
     }
 
+    /** Constructor.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of an element with the tag name OPHRS,
+     *                                  passed to the BranchElement class for data extraction
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    public OPHRSElement (XmlPullParser parser) throws XmlPullParserException, IOException {
+        super(parser, SFParkTags.OPHRS);
+    }
+
     /** Returns an operating schedule for the parking location.
      * This data is associated with the OPS tag.
      *
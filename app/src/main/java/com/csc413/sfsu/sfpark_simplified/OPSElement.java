@@ -1,6 +1,10 @@
 package com.csc413.sfsu.sfpark_simplified;
 
 import org.w3c.dom.Element;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /** The OPSElement class deals with the storage and passing of data extracted from a SFPark operating schedule element.
  * Operating schedule elements are associated with the OPS tag name.
@@ -19,17 +23,24 @@ public class OPSElement extends BranchElement {
         super(elem);
     }
 
+    /** Constructor.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of an element with the tag name OPS,
+     *                                  passed to the BranchElement class for data extraction
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    public OPSElement (XmlPullParser parser) throws XmlPullParserException, IOException {
+        super(parser, SFParkTags.OPS);
+    }
+
     /** Returns the start day for the schedule.
      * This data is associated with the FROM tag.
      *
      * @return  a String containing the start day for the schedule
      */
     public String from () {
-        try {
-            return ((DataElement)getValue("FROM")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.FROM);
     }
 
     /** Returns the end day for the schedule.
@@ -38,11 +49,7 @@ public class OPSElement extends BranchElement {
      * @return  a String containing the end day for the schedule
      */
     public String to () {
-        try {
-            return ((DataElement)getValue("TO")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.TO);
     }
 
     /** Returns the begin time for the schedule.
@@ -51,11 +58,7 @@ public class OPSElement extends BranchElement {
      * @return  a String containing the begin time for the schedule
      */
     public String beg () {
-        try {
-            return ((DataElement)getValue("BEG")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.BEG);
     }
 
     /** Returns the end time for the schedule.
@@ -64,10 +67,6 @@ public class OPSElement extends BranchElement {
      * @return  a String containing the end time for the schedule
      */
     public String end () {
-        try {
-            return ((DataElement)getValue("END")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.END);
     }
 }
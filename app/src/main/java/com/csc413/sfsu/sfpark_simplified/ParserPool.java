@@ -0,0 +1,94 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+/** The ParserPool class keeps one parser of each kind, and the factory that creates it, per thread.
+ * Creating a parser factory involves a service lookup and creating a parser allocates its buffers, so both are
+ * reused across the requests a thread runs. A parser is checked out for the duration of one document; if a thread
+ * parses a nested document while its pooled parser is checked out, a new parser is created for it.
+ *
+ * @version     %I%, %G%
+ */
+final class ParserPool {
+    private static final ThreadLocal<XmlPullParserFactory> PULL_FACTORY = new ThreadLocal<XmlPullParserFactory>();
+    private static final ThreadLocal<XmlPullParser> PULL_PARSER = new ThreadLocal<XmlPullParser>();
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<DocumentBuilder>();
+    /** Creates every DocumentBuilder; created on first use and guarded by the class lock */
+    private static DocumentBuilderFactory documentBuilderFactory;
+
+    /** Constructor is private; this class only holds static members. */
+    private ParserPool () {}
+
+    /** Returns a new XmlPullParser from this thread's factory, which is not pooled.
+     *
+     * @return  a new XmlPullParser
+     * @throws  XmlPullParserException  if no XmlPullParser implementation is available
+     */
+    static XmlPullParser newPullParser () throws XmlPullParserException {
+        XmlPullParserFactory factory = PULL_FACTORY.get();
+        if (factory == null) {
+            factory = XmlPullParserFactory.newInstance();
+            PULL_FACTORY.set(factory);
+        }
+        return factory.newPullParser();
+    }
+
+    /** Checks out this thread's XmlPullParser.
+     *
+     * @return  the pooled XmlPullParser, or a new one if it is already checked out
+     * @throws  XmlPullParserException  if no XmlPullParser implementation is available
+     */
+    static XmlPullParser acquirePullParser () throws XmlPullParserException {
+        XmlPullParser parser = PULL_PARSER.get();
+        if (parser == null)
+            return newPullParser();
+        PULL_PARSER.set(null);
+        return parser;
+    }
+
+    /** Returns a checked out XmlPullParser to this thread's pool, releasing its input.
+     *
+     * @param   parser  the XmlPullParser returned by {@code acquirePullParser()}
+     */
+    static void releasePullParser (XmlPullParser parser) {
+        try {
+            parser.setInput(null);
+        } catch (XmlPullParserException e) {
+            return; // Cannot be reset; let it be collected
+        }
+        PULL_PARSER.set(parser);
+    }
+
+    /** Checks out this thread's DocumentBuilder.
+     *
+     * @return  the pooled DocumentBuilder, reset to its initial state, or a new one if it is already checked out
+     * @throws  ParserConfigurationException    if no DocumentBuilder implementation is available
+     */
+    static DocumentBuilder acquireDocumentBuilder () throws ParserConfigurationException {
+        DocumentBuilder builder = DOCUMENT_BUILDER.get();
+        if (builder != null) {
+            DOCUMENT_BUILDER.set(null);
+            builder.reset();
+            return builder;
+        }
+        synchronized (ParserPool.class) {
+            if (documentBuilderFactory == null)
+                documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            return documentBuilderFactory.newDocumentBuilder();
+        }
+    }
+
+    /** Returns a checked out DocumentBuilder to this thread's pool.
+     *
+     * @param   builder     the DocumentBuilder returned by {@code acquireDocumentBuilder()}
+     */
+    static void releaseDocumentBuilder (DocumentBuilder builder) {
+        DOCUMENT_BUILDER.set(builder);
+    }
+}
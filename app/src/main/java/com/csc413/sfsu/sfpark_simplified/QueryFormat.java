@@ -0,0 +1,53 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+/** The QueryFormat class writes the values of query parameters in a canonical form, so that queries for the same
+ * data are spelled the same way and may be matched by their URLs.
+ *
+ * @version     %I%, %G%
+ */
+public final class QueryFormat {
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** Powers of ten, by exponent */
+    private static final long [] POWERS = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L};
+
+    /** Constructor is private; this class only holds static members. */
+    private QueryFormat () {}
+
+    // PUBLIC METHODS //
+    //
+    /** Appends a decimal value in plain notation, rounded to a number of decimal places and without trailing zeros:
+     * 37.78190 is written "37.7819", -122.4200 "-122.42", 1.0 "1" and 0.0001 "0.0001" rather than "1.0E-4".
+     *
+     * @param   sb          the StringBuilder to append to
+     * @param   value       the value to append
+     * @param   decimals    the number of decimal places to round to, between 0 and 8
+     * @return  the StringBuilder
+     * @throws  java.lang.IllegalArgumentException if the number of decimal places is out of range, or the value is
+     *          not finite or too large to be rounded
+     */
+    public static StringBuilder appendDecimal (StringBuilder sb, double value, int decimals) {
+        if (decimals < 0 || decimals >= POWERS.length)
+            throw new IllegalArgumentException("Decimal places out of range: " + decimals);
+        double scaled = value * POWERS[decimals];
+        if (Double.isNaN(scaled) || Math.abs(scaled) >= Long.MAX_VALUE)
+            throw new IllegalArgumentException("Value cannot be rounded: " + value);
+        long units = Math.round(scaled);
+        if (units < 0) {
+            sb.append('-');
+            units = -units;
+        }
+        sb.append(units / POWERS[decimals]);
+        long fraction = units % POWERS[decimals];
+        if (fraction == 0)
+            return sb;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            decimals--;
+        }
+        sb.append('.');
+        for (long p = POWERS[decimals - 1]; p > fraction; p /= 10)
+            sb.append('0');
+        return sb.append(fraction);
+    }
+}
@@ -1,6 +1,10 @@
 package com.csc413.sfsu.sfpark_simplified;
 
 import org.w3c.dom.Element;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /** The RATESElement class deals with the storage and passing of data extracted from a SFPark rates element.
  * Rates elements are associated with the RATE tag name.
@@ -19,6 +23,17 @@ public class RATESElement extends BranchElement {
         super(elem);
     }
 
+    /** Constructor.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of an element with the tag name RATES,
+     *                                  passed to the BranchElement class for data extraction
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    public RATESElement (XmlPullParser parser) throws XmlPullParserException, IOException {
+        super(parser, SFParkTags.RATES);
+    }
+
     /** Returns a rate schedule for the parking location.
      * This data is associated with the RS tag.
      *
@@ -29,4 +44,12 @@ public class RATESElement extends BranchElement {
     public RSElement rs (int index) {
         return (RSElement)getValue(index);
     }
+
+    /** Returns the number of rate schedules for the parking location.
+     *
+     * @return  the number of RS elements
+     */
+    public int numSchedules () {
+        return numChildElements();
+    }
 }
@@ -1,6 +1,10 @@
 package com.csc413.sfsu.sfpark_simplified;
 
 import org.w3c.dom.Element;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /** The RSElement class deals with the storage and passing of data extracted from a SFPark rate schedule element.
  * Rate schedule elements are associated with the RS tag name.
@@ -19,17 +23,24 @@ public class RSElement extends BranchElement {
         super(elem);
     }
 
+    /** Constructor.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of an element with the tag name RS,
+     *                                  passed to the BranchElement class for data extraction
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    public RSElement (XmlPullParser parser) throws XmlPullParserException, IOException {
+        super(parser, SFParkTags.RS);
+    }
+
     /** Returns the begin time for the schedule.
      * This data is associated with the BEG tag.
      *
      * @return  a String containing the begin time for the schedule if available, or an empty String otherwise
      */
     public String beg () {
-        try {
-            return ((DataElement)getValue("BEG")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.BEG);
     }
 
     /** Returns the end time for the schedule.
@@ -38,11 +49,7 @@ public class RSElement extends BranchElement {
      * @return  a String containing the end time for the schedule if available, or an empty String otherwise
      */
     public String end () {
-        try {
-            return ((DataElement)getValue("END")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.END);
     }
 
     /** Returns the applicable rate for the schedule.
@@ -51,11 +58,7 @@ public class RSElement extends BranchElement {
      * @return  a String containing the applicable rate for the schedule if available, or an empty String otherwise
      */
     public String rate () {
-        try {
-            return ((DataElement)getValue("RATE")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.RATE);
     }
 
     /** Returns the descriptive rate for the schedule.
@@ -64,11 +67,7 @@ public class RSElement extends BranchElement {
      * @return  a String containing the descriptive rate for the schedule if available, or an empty String otherwise
      */
     public String desc () {
-        try {
-            return ((DataElement)getValue("DESC")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.DESC);
     }
 
     /** Returns the rate qualifier for the schedule (eg Per Hr).
@@ -77,11 +76,7 @@ public class RSElement extends BranchElement {
      * @return  a String containing the rate qualifier for the schedule if available, or an empty String otherwise
      */
     public String rq () {
-        try {
-            return ((DataElement)getValue("RQ")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.RQ);
     }
 
     /** Returns any rate restriction for the schedule.
@@ -90,10 +85,6 @@ public class RSElement extends BranchElement {
      * @return  a String containing a rate restriction for the schedule if available, or an empty String otherwise
      */
     public String rr () {
-        try {
-            return ((DataElement)getValue("RR")).getData();
-        } catch (IndexOutOfBoundsException e) {
-            return "";
-        }
+        return getData(SFParkTags.RR);
     }
 }
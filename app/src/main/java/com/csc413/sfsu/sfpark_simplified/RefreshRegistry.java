@@ -0,0 +1,114 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** The RefreshRegistry class remembers, for each canonical query, what the last complete response to it contained:
+ * its availability updated time stamp and the ETag and Last-Modified validators sent by the server.
+ * A later conditional refresh of the same query uses them to skip a response which has not changed.
+ * Only the most recently used queries are remembered.
+ *
+ * @version     %I%, %G%
+ */
+final class RefreshRegistry {
+    /** The number of queries remembered */
+    private static final int CAPACITY = 64;
+
+    /** The Entry class holds what is remembered of the last complete response to a query.
+     */
+    static final class Entry {
+        /** The availability updated time stamp of the response, or null if it had none */
+        final String timeStamp;
+        /** The validators of the response */
+        final String etag, lastModified;
+
+        Entry (String timeStamp, String etag, String lastModified) {
+            this.timeStamp = timeStamp == null || timeStamp.isEmpty() ? null : timeStamp;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /** Entries by canonical query, in access order */
+    private static final LinkedHashMap<String, Entry> ENTRIES = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry (Map.Entry<String, RefreshRegistry.Entry> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    /** Constructor is private; this class only holds static members. */
+    private RefreshRegistry () {}
+
+    /** Indicates whether the parameters of a query URL are already sorted, as those of the URLs built by SFParkQuery
+     * are, by comparing each parameter in place with the one before it.
+     *
+     * @param   url     a String containing a query in the form of a URL
+     * @param   q       the index of the '?' which starts the parameters
+     * @return  true if the parameters are sorted, false otherwise
+     */
+    private static boolean sorted (String url, int q) {
+        int prev = q + 1;
+        int start = url.indexOf('&', prev) + 1;
+        while (start > 0) {
+            int end = url.indexOf('&', start);
+            int prevLength = start - 1 - prev;
+            int length = (end < 0 ? url.length() : end) - start;
+            int n = Math.min(prevLength, length);
+            int cmp = prevLength - length;
+            for (int i = 0; i < n; i++) {
+                int diff = url.charAt(prev + i) - url.charAt(start + i);
+                if (diff != 0) {
+                    cmp = diff;
+                    break;
+                }
+            }
+            if (cmp > 0)
+                return false;
+            prev = start;
+            start = end + 1;
+        }
+        return true;
+    }
+
+    /** Returns the canonical form of a query URL, in which the parameters are sorted, so that queries built by
+     * setting the same parameters in a different order share an entry. A URL which is already canonical is returned
+     * as is.
+     *
+     * @param   url     a String containing a query in the form of a URL
+     * @return  the canonical form of the query
+     */
+    static String canonical (String url) {
+        int q = url.indexOf('?');
+        if (q < 0 || q == url.length() - 1 || sorted(url, q))
+            return url;
+        String [] params = url.substring(q + 1).split("&");
+        Arrays.sort(params);
+        StringBuilder sb = new StringBuilder(url.length()).append(url, 0, q + 1);
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0)
+                sb.append('&');
+            sb.append(params[i]);
+        }
+        return sb.toString();
+    }
+
+    /** Returns what is remembered of the last complete response to a query.
+     *
+     * @param   query   a canonical query
+     * @return  the entry of the query, or null if none is remembered
+     */
+    static synchronized Entry get (String query) {
+        return ENTRIES.get(query);
+    }
+
+    /** Remembers the last complete response to a query.
+     *
+     * @param   query   a canonical query
+     * @param   entry   what is to be remembered of the response
+     */
+    static synchronized void put (String query, Entry entry) {
+        ENTRIES.put(query, entry);
+    }
+}
@@ -0,0 +1,203 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** The RequestExecutor class runs network requests on a dedicated, bounded pool of background threads.
+ * Requests may either be submitted with a ResponseCallback, whose outcome is delivered on the main thread, or be
+ * called synchronously from a background thread. A request already running on one of the executor's threads
+ * calls any nested request inline, so requests never wait on the pool they occupy.
+ *
+ * Every submitted request returns a java.util.concurrent.Future; cancelling it interrupts the request, which stops
+ * parsing at the next record, and guarantees that its ResponseCallback is not called.
+ *
+ * @version     %I%, %G%
+ */
+public final class RequestExecutor {
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** The number of requests that may run at once: enough for a search waiting on the tiles it fetches side by
+     * side, and its crime query */
+    private static final int POOL_SIZE = 6;
+    /** The number of requests that may wait for a thread; further requests are rejected */
+    private static final int QUEUE_CAPACITY = 32;
+    /** The time in seconds an idle thread is kept alive */
+    private static final int KEEP_ALIVE = 30;
+
+    /** The NetworkThread class marks the threads owned by the executor.
+     */
+    private static class NetworkThread extends Thread {
+        NetworkThread (Runnable r, String name) {
+            super(r, name);
+            setDaemon(true);
+            setPriority(Thread.NORM_PRIORITY - 1); // Keep the main thread responsive
+        }
+    }
+
+    /** The pool on which every request is run */
+    private static final ThreadPoolExecutor EXECUTOR;
+
+    static {
+        final AtomicInteger count = new AtomicInteger();
+        EXECUTOR = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread (Runnable r) {
+                        return new NetworkThread(r, "sfpark-network-" + count.incrementAndGet());
+                    }
+                });
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /** Posts runnables to the main thread; created on first use */
+    private static Handler mainHandler;
+
+    /** Constructor is private; this class only holds static members. */
+    private RequestExecutor () {}
+
+    /** Returns the Handler of the main thread, creating it if necessary.
+     *
+     * @return  a Handler posting to the main thread's Looper
+     */
+    private static synchronized Handler mainHandler () {
+        if (mainHandler == null)
+            mainHandler = new Handler(Looper.getMainLooper());
+        return mainHandler;
+    }
+
+    /** Queues a task, first discarding cancelled requests still waiting in a full queue.
+     *
+     * @param   task    the task to queue
+     * @throws  RejectedExecutionException  if the queue is full of requests that have not been cancelled
+     */
+    private static void enqueue (Runnable task) {
+        try {
+            EXECUTOR.execute(task);
+        } catch (RejectedExecutionException e) {
+            EXECUTOR.purge(); // Superseded requests are cancelled but stay queued until purged
+            EXECUTOR.execute(task);
+        }
+    }
+
+    /** Describes the failure of a request in the form of the status of a response.
+     *
+     * @param   e   the exception thrown by the request
+     * @return  the status of a RequestFailedException, or "FAILED: " followed by the class of any other exception
+     */
+    private static String status (Throwable e) {
+        if (e instanceof RequestFailedException)
+            return e.getMessage();
+        return "FAILED: " + e.getClass();
+    }
+
+    // PUBLIC METHODS //
+    //
+    /** Indicates whether the current thread is one of the executor's threads.
+     *
+     * @return  true if called from a request run by the executor, false otherwise
+     */
+    public static boolean isNetworkThread () {
+        return Thread.currentThread() instanceof NetworkThread;
+    }
+
+    /** Runs a request and waits for its result.
+     * When called from one of the executor's threads, the request is run inline and the timeout is not applied,
+     * as the caller is already bounded by its own timeout.
+     *
+     * @param   request         the request to run
+     * @param   timeout         the time in seconds to wait for the result; on timeout the request is cancelled
+     * @param   <T>             the type of the result of the request
+     * @return  the result of the request
+     * @throws  Exception       the exception thrown by the request, a TimeoutException if the request did not complete
+     *                          in time, or a RejectedExecutionException if too many requests are pending
+     */
+    public static <T> T call (Callable<T> request, int timeout) throws Exception {
+        if (isNetworkThread())
+            return request.call();
+        FutureTask<T> future = new FutureTask<T>(request);
+        enqueue(future);
+        try {
+            return future.get(timeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    /** Runs a request in the background; its outcome is retrieved through the returned Future.
+     * Requests running on the executor may use this to run independent requests side by side, but should bound
+     * their wait on the Future, since the request may queue behind others.
+     *
+     * @param   request     the request to run
+     * @param   <T>         the type of the result of the request
+     * @return  a Future holding the outcome of the request, which may also be used to cancel it
+     * @throws  RejectedExecutionException  if too many requests are pending
+     */
+    public static <T> Future<T> submit (Callable<T> request) {
+        FutureTask<T> future = new FutureTask<T>(request);
+        enqueue(future);
+        return future;
+    }
+
+    /** Runs a request in the background and delivers its outcome to a callback on the main thread.
+     * If the request returns, its result is passed to {@code onSuccess}; if it throws, its status is passed to
+     * {@code onFailure}. Nothing is delivered once the returned Future has been cancelled.
+     *
+     * @param   request     the request to run
+     * @param   callback    the ResponseCallback to receive the outcome of the request
+     * @param   <T>         the type of the result of the request
+     * @return  a Future which may be used to cancel the request
+     * @throws  RejectedExecutionException  if too many requests are pending
+     */
+    public static <T> Future<T> submit (Callable<T> request, final ResponseCallback<T> callback) {
+        FutureTask<T> future = new FutureTask<T>(request) {
+            @Override
+            protected void done () {
+                if (isCancelled())
+                    return;
+                final FutureTask<T> task = this;
+                mainHandler().post(new Runnable() {
+                    @Override
+                    public void run () {
+                        if (task.isCancelled()) // Superseded while waiting for the main thread
+                            return;
+                        T result;
+                        try {
+                            result = task.get(); // Already complete; does not block
+                        } catch (ExecutionException e) {
+                            callback.onFailure(status(e.getCause()));
+                            return;
+                        } catch (InterruptedException e) {
+                            callback.onFailure(status(e));
+                            return;
+                        }
+                        callback.onSuccess(result);
+                    }
+                });
+            }
+        };
+        enqueue(future);
+        return future;
+    }
+}
@@ -0,0 +1,18 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+/** This class extends java.lang.Exception and is thrown by a request run by the RequestExecutor to report a failure
+ * whose status is already known; the status is passed on to {@code ResponseCallback.onFailure(String)} as is.
+ *
+ * @version     %I%, %G%
+ */
+public class RequestFailedException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor.
+     *
+     * @param   status  the status describing the failure
+     */
+    public RequestFailedException (String status) {
+        super(status);
+    }
+}
@@ -0,0 +1,22 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+/** The ResponseCallback interface receives the outcome of a request run by the RequestExecutor.
+ * Both methods are called on the main thread, so the result may be applied to the user interface directly.
+ * Neither method is called if the request is cancelled before its outcome is delivered.
+ *
+ * @param   <T>     the type of the result of the request
+ * @version     %I%, %G%
+ */
+public interface ResponseCallback<T> {
+    /** Called when the request completed successfully.
+     *
+     * @param   result  the result of the request
+     */
+    void onSuccess (T result);
+
+    /** Called when the request failed.
+     *
+     * @param   status  a String describing the failure, in the form of the status of a response
+     */
+    void onFailure (String status);
+}
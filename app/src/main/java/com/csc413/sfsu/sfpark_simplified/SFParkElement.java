@@ -1,6 +1,10 @@
 package com.csc413.sfsu.sfpark_simplified;
 
 import org.w3c.dom.Element;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
 
 /** The SFParkElement class provides a fundamental implementation  and generic representation
  * of all extending "element" classes used with the SFPark Simplified API.
@@ -13,6 +17,8 @@ public abstract class SFParkElement {
     //
     /** Tag name of the SFParkElement object */
     private final String tag;
+    /** Symbol of the tag name, as resolved by SFParkTags */
+    private final int symbol;
     /** Denotes whether a BranchElement or DataElement, both of which extend this class */
     private final String category;
 
@@ -32,29 +38,72 @@ public abstract class SFParkElement {
      *              this should be cast as the appropriate child class after return.
      */
     protected static SFParkElement newInstanceByTag (Element e) {
-        switch (e.getTagName()) {
-            case "AVL": // Availability element
+        switch (SFParkTags.lookup(e.getTagName())) {
+            case SFParkTags.AVL: // Availability element
                 return new AVLElement(e);
-            case "OPHRS": // Operating hours element
+            case SFParkTags.OPHRS: // Operating hours element
                 return new OPHRSElement(e);
-            case "OPS": // Operating schedule element
+            case SFParkTags.OPS: // Operating schedule element
                 return new OPSElement(e);
-            case "RATES": // Rates element
+            case SFParkTags.RATES: // Rates element
                 return new RATESElement(e);
-            case "RS": // Rate schedule element
+            case SFParkTags.RS: // Rate schedule element
                 return new RSElement(e);
             default: // Data element otherwise
                 return new DataElement(e);
         }
     }
 
+    /** Initializes and returns an appropriate instance of one of several child classes of SFParkElement.
+     * The exact class is chosen in accordance with the tag name at the current position of an XmlPullParser,
+     * using the same mapping as {@code newInstanceByTag(Element e)}.
+     *
+     * @param   parser  an XmlPullParser positioned at the START_TAG of an element;
+     *                  the parser is then passed to the constructor of the appropriate child class,
+     *                  which leaves it positioned at the matching END_TAG.
+     * @return          an instance of a child class of SFParkElement as a SFParkElement object;
+     *                  this should be cast as the appropriate child class after return.
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    protected static SFParkElement newInstanceByTag (XmlPullParser parser) throws XmlPullParserException, IOException {
+        int symbol = SFParkTags.lookup(parser.getName());
+        switch (symbol) {
+            case SFParkTags.AVL: // Availability element
+                return new AVLElement(parser);
+            case SFParkTags.OPHRS: // Operating hours element
+                return new OPHRSElement(parser);
+            case SFParkTags.OPS: // Operating schedule element
+                return new OPSElement(parser);
+            case SFParkTags.RATES: // Rates element
+                return new RATESElement(parser);
+            case SFParkTags.RS: // Rate schedule element
+                return new RSElement(parser);
+            default: // Data element otherwise
+                return new DataElement(parser, symbol);
+        }
+    }
+
     /** Constructor.
+     * The tag name is resolved to its SFParkTags symbol here, once per element.
      *
      * @param   tag         the tag name of the SFParkElement
      * @param   category    "Branch" for BranchElements or "Data" for DataElements
      */
     protected SFParkElement (String tag, String category) {
+        this(tag, SFParkTags.lookup(tag), category);
+    }
+
+    /** Constructor.
+     * Used when the symbol of the tag name is already known, so that it is not resolved again.
+     *
+     * @param   tag         the tag name of the SFParkElement
+     * @param   symbol      the SFParkTags symbol of the tag name
+     * @param   category    "Branch" for BranchElements or "Data" for DataElements
+     */
+    protected SFParkElement (String tag, int symbol, String category) {
         this.tag = tag;
+        this.symbol = symbol;
         this.category = category;
     }
 
@@ -66,6 +115,14 @@ public abstract class SFParkElement {
         return tag;
     }
 
+    /** Returns the symbol of the tag for this element.
+     *
+     * @return  the SFParkTags symbol of the tag for this element, or SFParkTags.UNKNOWN
+     */
+    protected int getSymbol () {
+        return symbol;
+    }
+
     /** Returns the category of this element ("Branch" or "Data")
      *
      * @return  the category of this element
@@ -2,6 +2,12 @@ package com.csc413.sfsu.sfpark_simplified;
 
 import com.google.android.gms.maps.model.LatLng;
 
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
 /** The SFParkLocation class stores and retrieves one or more latitude / longitude coordinate pairs that form a geolocation.
  * While the SFPark Availability REST Service API currently contains anywhere from 0 to 2 locations, this class is capable of
  * handling any number of coordinates.
@@ -10,8 +16,13 @@ import com.google.android.gms.maps.model.LatLng;
  * @version     %I%, %G%
  */
 public class SFParkLocation {
-    // PRIVATE DATA MEMBERS //
+    // PRIVATE DATA MEMBERS AND METHODS //
     //
+    /** Exact powers of ten that may be represented by a double */
+    private static final double [] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
     /** Stores all latitudinal values */
     private double [] lat;
     /** Stores all longitudinal values */
@@ -19,6 +30,172 @@ public class SFParkLocation {
     /** Represents the number of longitude/latitude pairs that form a location point */
     private int numPoints;
 
+    /** Parses a decimal number from a range of characters without creating any intermediate objects.
+     * Numbers with more than 15 significant digits or an exponent outside of the range of exactly representable
+     * powers of ten are handed to Double.parseDouble so the result is always correctly rounded.
+     *
+     * @param   s       the characters containing the number
+     * @param   start   the index of the first character of the number
+     * @param   end     the index after the last character of the number
+     * @return  the value of the number
+     * @throws  NumberFormatException   if the range does not contain a valid number
+     */
+    static double parseNumber (CharSequence s, int start, int end) {
+        // Trim surrounding whitespace
+        while (start < end && s.charAt(start) <= ' ')
+            start++;
+        while (end > start && s.charAt(end - 1) <= ' ')
+            end--;
+        if (start == end)
+            throw new NumberFormatException("empty coordinate");
+
+        int i = start;
+        boolean negative = false;
+        if (s.charAt(i) == '-' || s.charAt(i) == '+')
+            negative = s.charAt(i++) == '-';
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDigit = false, seenPoint = false;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (mantissa == 0 && c == '0') { // Leading zeros are not significant
+                    if (seenPoint)
+                        scale--;
+                    continue;
+                }
+                if (++digits > 15)
+                    return Double.parseDouble(s.subSequence(start, end).toString());
+                mantissa = mantissa * 10 + (c - '0');
+                if (seenPoint)
+                    scale--;
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if ((c == 'e' || c == 'E') && seenDigit) {
+                i++;
+                boolean negativeExponent = false;
+                if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+                    negativeExponent = s.charAt(i++) == '-';
+                if (i == end)
+                    throw new NumberFormatException("malformed coordinate");
+                int exponent = 0;
+                for (; i < end; i++) {
+                    c = s.charAt(i);
+                    if (c < '0' || c > '9' || exponent > 10000)
+                        throw new NumberFormatException("malformed coordinate");
+                    exponent = exponent * 10 + (c - '0');
+                }
+                scale += negativeExponent ? -exponent : exponent;
+                break;
+            } else {
+                throw new NumberFormatException("malformed coordinate");
+            }
+        }
+        if (!seenDigit)
+            throw new NumberFormatException("malformed coordinate");
+
+        double value;
+        if (mantissa == 0)
+            value = 0.0;
+        else if (scale < 0 && -scale < POWERS_OF_TEN.length)
+            value = mantissa / POWERS_OF_TEN[-scale];
+        else if (scale >= 0 && scale < POWERS_OF_TEN.length)
+            value = mantissa * POWERS_OF_TEN[scale];
+        else
+            return Double.parseDouble(s.subSequence(start, end).toString());
+        return negative ? -value : value;
+    }
+
+    /** Decodes a comma-delimited list of coordinates directly into the latitude and longitude arrays.
+     *
+     * @param   loc     the characters containing the coordinates
+     * @param   start   the index of the first character of the list
+     * @param   end     the index after the last character of the list
+     * @throws  NumberFormatException   if a coordinate is malformed or the number of coordinates is odd
+     */
+    private void decode (CharSequence loc, int start, int end) {
+        // Count the coordinates so the arrays are allocated once at their final size
+        int count = 1;
+        boolean blank = true;
+        for (int i = start; i < end; i++) {
+            char c = loc.charAt(i);
+            if (c == ',')
+                count++;
+            else if (c > ' ')
+                blank = false;
+        }
+        if (blank && count == 1)
+            count = 0;
+        // Throw a NumberFormatException if the number of coordinates are odd (must have both a longitude and latitude for every point)
+        if (count%2 != 0)
+            throw new NumberFormatException();
+
+        numPoints = count/2;
+        lat = new double[numPoints];
+        lng = new double[numPoints];
+
+        for (int i = 0, tokenStart = start; i < count; i++) {
+            int tokenEnd = tokenStart;
+            while (tokenEnd < end && loc.charAt(tokenEnd) != ',')
+                tokenEnd++;
+            if (i%2 == 0) // Coordinates at even indices are longitudinal
+                lng[i/2] = parseNumber(loc, tokenStart, tokenEnd);
+            else // Coordinates at odd indices are latitudinal
+                lat[i/2] = parseNumber(loc, tokenStart, tokenEnd);
+            tokenStart = tokenEnd + 1;
+        }
+    }
+
+    /** Decodes the LOC element at the current position of a streamed document.
+     * The coordinates are read straight from the parser's character buffer.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of a LOC element;
+     *                                  on return the parser is positioned at the matching END_TAG
+     * @return  the decoded location, which is empty if the coordinates are malformed
+     * @throws  XmlPullParserException  if the LOC element is not a leaf element
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    static SFParkLocation decode (XmlPullParser parser) throws XmlPullParserException, IOException {
+        int event = parser.next();
+        if (event == XmlPullParser.END_TAG)
+            return new SFParkLocation("");
+        if (event != XmlPullParser.TEXT)
+            throw new XmlPullParserException("LOC must contain text only");
+        int [] range = new int[2];
+        char [] chars = parser.getTextCharacters(range);
+        SFParkLocation loc = new SFParkLocation(CharBuffer.wrap(chars, range[0], range[1]));
+        if (parser.next() != XmlPullParser.END_TAG)
+            throw new XmlPullParserException("LOC must contain text only");
+        return loc;
+    }
+
+    /** Returns a single coordinate of a comma-delimited list without decoding the rest of the list.
+     *
+     * @param   loc     the comma-delimited list of coordinates
+     * @param   index   the index of the coordinate in the list (longitudes at even indices, latitudes at odd)
+     * @return  the coordinate, or NaN if it does not exist or is malformed
+     */
+    static double coordinate (CharSequence loc, int index) {
+        int tokenStart = 0;
+        for (int i = 0; i < index; i++) {
+            while (tokenStart < loc.length() && loc.charAt(tokenStart) != ',')
+                tokenStart++;
+            if (tokenStart++ == loc.length())
+                return Double.NaN;
+        }
+        int tokenEnd = tokenStart;
+        while (tokenEnd < loc.length() && loc.charAt(tokenEnd) != ',')
+            tokenEnd++;
+        try {
+            return parseNumber(loc, tokenStart, tokenEnd);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
     // PUBLIC METHODS //
     //
     /** Constructor.
@@ -26,30 +203,13 @@ public class SFParkLocation {
      * There is no theoretical limit to the number of coordinates, and the object may contain no coordinates at all;
      * an error in parsing the numerical value from the String parameter results in such an empty object.
      *
-     * @param   loc a String containing an even amount of double values delimited by commas;
-     *              every two values represent a longitude / latitude coordinate pair that form a location,
-     *              with longitude values as the first item in each pair.
+     * @param   loc a String (or any other sequence of characters) containing an even amount of double values
+     *              delimited by commas; every two values represent a longitude / latitude coordinate pair that
+     *              form a location, with longitude values as the first item in each pair.
      */
-    public SFParkLocation (String loc) {
+    public SFParkLocation (CharSequence loc) {
         try {
-            // Split String into tokens
-            // Throw a NumberFormatException if the number of coordinates are odd (must have both a longitude and latitude for every point)
-            String [] coords = loc.split(",");
-            if (coords.length%2 != 0)
-                throw new NumberFormatException();
-
-            numPoints = coords.length/2;
-
-            lat = new double[numPoints];
-            lng = new double[numPoints];
-
-            for (int i = 0, lngIndex = 0, latIndex = 0; i < coords.length; i++) {
-                if (i%2 == 0) // Coordinates at even indices are longitudinal
-                    lng[lngIndex++] = Double.parseDouble(coords[i]);
-                else // Coordinates at odd indices are latitudinal
-                    lat[latIndex++] = Double.parseDouble(coords[i]);
-            }
-
+            decode(loc, 0, loc.length());
         } catch (NumberFormatException e) {
             lat = new double[0];
             lng = new double[0];
@@ -71,7 +231,7 @@ public class SFParkLocation {
      * @return                              a latitude value in the form of a double
      * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
      */
-    public Double latitude (int index) {
+    public double latitude (int index) {
         return lat[index];
     }
 
@@ -81,7 +241,7 @@ public class SFParkLocation {
      * @return  a longitude value in the form of a double
      * @throws  IndexOutOfBoundsException   if the index is invalid
      */
-    public Double longitude (int index) {
+    public double longitude (int index) {
         return lng[index];
     }
 
@@ -98,12 +258,12 @@ public class SFParkLocation {
 
     @Override
     public String toString () {
-        String allLocs = "";
+        StringBuilder allLocs = new StringBuilder(numPoints * 40);
         for (int i = 0; i < numPoints; i++) {
-            allLocs += "(" + lat[i] + "," + lng[i] + ")";
+            allLocs.append('(').append(lat[i]).append(',').append(lng[i]).append(')');
             if (i < numPoints-1)
-                allLocs += ",";
+                allLocs.append(',');
         }
-        return allLocs;
+        return allLocs.toString();
     }
 }
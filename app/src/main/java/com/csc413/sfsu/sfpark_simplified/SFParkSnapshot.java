@@ -0,0 +1,528 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import android.util.JsonReader;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** The SFParkSnapshot class is a columnar representation of the records of a SFPark Availability response.
+ * Rather than holding one AVLElement per record, every field is stored in a parallel primitive array indexed by
+ * record number, and the NAME and DESC fields are dictionary-encoded. A snapshot is immutable once built, so it is
+ * cheap to keep in memory and may be compared against the snapshot of a later refresh.
+ *
+ * Only the first coordinate pair of each record is kept; this is the point used for map markers.
+ *
+ * @version     %I%, %G%
+ */
+public class SFParkSnapshot {
+    /** Type code of a record whose TYPE is missing or unrecognized */
+    public static final byte TYPE_UNKNOWN = 0;
+    /** Type code of an on street (TYPE = ON) record */
+    public static final byte TYPE_ON = 1;
+    /** Type code of an off street (TYPE = OFF) record */
+    public static final byte TYPE_OFF = 2;
+
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** The number of records in the snapshot */
+    private final int size;
+    /** The availability updated time stamp of the response the snapshot was built from */
+    private final String availabilityUpdatedTimeStamp;
+    /** Type code of every record */
+    private final byte [] type;
+    /** Off street parking ID of every record, or -1 */
+    private final int [] ospid;
+    /** On street block face ID of every record, or -1 */
+    private final int [] bfid;
+    /** Number of occupied spaces of every record, or -1 */
+    private final int [] occ;
+    /** Number of operational spaces of every record, or -1 */
+    private final int [] oper;
+    /** Latitude of the first point of every record, or NaN */
+    private final double [] lat;
+    /** Longitude of the first point of every record, or NaN */
+    private final double [] lng;
+    /** Index into nameDictionary of every record */
+    private final int [] nameCode;
+    /** Index into descDictionary of every record */
+    private final int [] descCode;
+    /** Every distinct NAME value */
+    private final String [] nameDictionary;
+    /** Every distinct DESC value */
+    private final String [] descDictionary;
+    /** Record keys (see key(byte, int)) in ascending order */
+    private final long [] sortedKeys;
+    /** Record index of each entry in sortedKeys */
+    private final int [] sortedIndex;
+
+    /** Combines a type code and ID into a single key that identifies a record across snapshots.
+     *
+     * @param   type    the type code of the record
+     * @param   id      the BFID of an on street record or the OSPID of an off street record
+     * @return  the key of the record
+     */
+    private static long key (byte type, int id) {
+        return ((long) type << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /** Converts a TYPE value into a type code.
+     *
+     * @param   type    a TYPE value (ON or OFF)
+     * @return  the corresponding type code, or TYPE_UNKNOWN
+     */
+    static byte typeCode (String type) {
+        if (type.equals("ON"))
+            return TYPE_ON;
+        if (type.equals("OFF"))
+            return TYPE_OFF;
+        return TYPE_UNKNOWN;
+    }
+
+    /** Constructor.
+     * Copies the columns of a Builder, trimmed to the number of records, and builds the key index.
+     *
+     * @param   b                               the Builder containing the records
+     * @param   availabilityUpdatedTimeStamp    the availability updated time stamp of the response
+     */
+    private SFParkSnapshot (Builder b, String availabilityUpdatedTimeStamp) {
+        this.size = b.size;
+        this.availabilityUpdatedTimeStamp = availabilityUpdatedTimeStamp;
+        this.type = Arrays.copyOf(b.type, size);
+        this.ospid = Arrays.copyOf(b.ospid, size);
+        this.bfid = Arrays.copyOf(b.bfid, size);
+        this.occ = Arrays.copyOf(b.occ, size);
+        this.oper = Arrays.copyOf(b.oper, size);
+        this.lat = Arrays.copyOf(b.lat, size);
+        this.lng = Arrays.copyOf(b.lng, size);
+        this.nameCode = Arrays.copyOf(b.nameCode, size);
+        this.descCode = Arrays.copyOf(b.descCode, size);
+        this.nameDictionary = b.names.toArray();
+        this.descDictionary = b.descs.toArray();
+
+        // Sort (key, index) pairs packed into one non-negative long; keys fit in 34 bits and indices in 29
+        long [] packed = new long[size];
+        for (int i = 0; i < size; i++)
+            packed[i] = (key(i) << 29) | i;
+        Arrays.sort(packed);
+        sortedKeys = new long[size];
+        sortedIndex = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedKeys[i] = packed[i] >>> 29;
+            sortedIndex[i] = (int) (packed[i] & ((1 << 29) - 1));
+        }
+    }
+
+    /** Returns the key of the record at the specified index.
+     *
+     * @param   index   index of the record
+     * @return  the key of the record
+     */
+    private long key (int index) {
+        return key(type[index], type[index] == TYPE_OFF ? ospid[index] : bfid[index]);
+    }
+
+    // PUBLIC METHODS //
+    //
+    /** Builds a snapshot from the records of a populated SFParkXMLResponse.
+     *
+     * @param   response    a populated SFParkXMLResponse
+     * @return  a snapshot containing every record of the response
+     */
+    public static SFParkSnapshot of (SFParkXMLResponse response) {
+        Builder b = new Builder();
+        for (int i = 0; i < response.numRecords(); i++)
+            b.add(response.avl(i));
+        return b.build(response.availabilityUpdatedTimeStamp());
+    }
+
+    /** Returns the number of records in the snapshot.
+     *
+     * @return  the number of records
+     */
+    public int size () {
+        return size;
+    }
+
+    /** Returns the availability updated time stamp of the response the snapshot was built from.
+     *
+     * @return  the availability updated time stamp if it exists, or an empty String otherwise
+     */
+    public String availabilityUpdatedTimeStamp () {
+        return availabilityUpdatedTimeStamp;
+    }
+
+    /** Returns the type code of a record (TYPE_ON, TYPE_OFF or TYPE_UNKNOWN).
+     *
+     * @param   index                       index of the record
+     * @return                              the type code of the record
+     * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
+     */
+    public byte type (int index) {
+        return type[index];
+    }
+
+    /** Returns the off street parking ID of a record.
+     *
+     * @param   index                       index of the record
+     * @return                              the off street parking ID if available, or -1 otherwise
+     * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
+     */
+    public int ospid (int index) {
+        return ospid[index];
+    }
+
+    /** Returns the on street block face ID of a record.
+     *
+     * @param   index                       index of the record
+     * @return                              the on street block face ID if available, or -1 otherwise
+     * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
+     */
+    public int bfid (int index) {
+        return bfid[index];
+    }
+
+    /** Returns the number of spaces occupied at a record.
+     *
+     * @param   index                       index of the record
+     * @return                              the number of spaces occupied if available, or -1 otherwise
+     * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
+     */
+    public int occ (int index) {
+        return occ[index];
+    }
+
+    /** Returns the number of spaces operational at a record.
+     *
+     * @param   index                       index of the record
+     * @return                              the number of spaces operational if available, or -1 otherwise
+     * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
+     */
+    public int oper (int index) {
+        return oper[index];
+    }
+
+    /** Returns the latitude of the first point of a record.
+     *
+     * @param   index                       index of the record
+     * @return                              the latitude if available, or NaN otherwise
+     * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
+     */
+    public double latitude (int index) {
+        return lat[index];
+    }
+
+    /** Returns the longitude of the first point of a record.
+     *
+     * @param   index                       index of the record
+     * @return                              the longitude if available, or NaN otherwise
+     * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
+     */
+    public double longitude (int index) {
+        return lng[index];
+    }
+
+    /** Returns the name of a record.
+     *
+     * @param   index                       index of the record
+     * @return                              the name if available, or an empty String otherwise
+     * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
+     */
+    public String name (int index) {
+        return nameDictionary[nameCode[index]];
+    }
+
+    /** Returns the description of a record.
+     *
+     * @param   index                       index of the record
+     * @return                              the description if available, or an empty String otherwise
+     * @throws  IndexOutOfBoundsException   if an invalid index is passed as a parameter
+     */
+    public String desc (int index) {
+        return descDictionary[descCode[index]];
+    }
+
+    /** Returns the index of the record with the specified type and ID.
+     *
+     * @param   type    the type code of the record
+     * @param   id      the BFID of an on street record or the OSPID of an off street record
+     * @return  the index of the record if found, or -1 otherwise
+     */
+    public int indexOf (byte type, int id) {
+        int i = Arrays.binarySearch(sortedKeys, key(type, id));
+        return i < 0 ? -1 : sortedIndex[i];
+    }
+
+    /** Returns the indices of all records of a type that lie within a bounding box and have at least
+     * a minimum number of free (operational but unoccupied) spaces.
+     *
+     * @param   type        the type code of the records to return, or TYPE_UNKNOWN for all types
+     * @param   south       the southern bound of the box in degrees latitude
+     * @param   west        the western bound of the box in degrees longitude
+     * @param   north       the northern bound of the box in degrees latitude
+     * @param   east        the eastern bound of the box in degrees longitude
+     * @param   minFree     the minimum number of free spaces
+     * @return  the indices of all matching records in ascending order
+     */
+    public int [] findAvailable (byte type, double south, double west, double north, double east, int minFree) {
+        int [] matches = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if ((type == TYPE_UNKNOWN || this.type[i] == type)
+                    && lat[i] >= south && lat[i] <= north && lng[i] >= west && lng[i] <= east
+                    && occ[i] >= 0 && oper[i] - occ[i] >= minFree)
+                matches[count++] = i;
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /** Returns the indices of all records whose availability differs from a previous snapshot.
+     * A record is considered changed if it does not exist in the previous snapshot or if its
+     * occupied or operational space count differs.
+     *
+     * @param   previous    a snapshot of an earlier refresh, or null
+     * @return  the indices of all changed records in ascending order
+     */
+    public int [] changedSince (SFParkSnapshot previous) {
+        int [] changes = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int j = previous == null ? -1 : previous.indexOf(type[i], type[i] == TYPE_OFF ? ospid[i] : bfid[i]);
+            if (j < 0 || previous.occ[j] != occ[i] || previous.oper[j] != oper[i])
+                changes[count++] = i;
+        }
+        return Arrays.copyOf(changes, count);
+    }
+
+    /** The Builder class accumulates records into growable columns from which a SFParkSnapshot is built.
+     */
+    static class Builder {
+        /** The number of records added so far */
+        private int size;
+        private byte [] type;
+        private int [] ospid;
+        private int [] bfid;
+        private int [] occ;
+        private int [] oper;
+        private double [] lat;
+        private double [] lng;
+        private int [] nameCode;
+        private int [] descCode;
+        /** Dictionary of NAME values */
+        private final Dictionary names;
+        /** Dictionary of DESC values */
+        private final Dictionary descs;
+
+        /** Constructor.
+         */
+        Builder () {
+            size = 0;
+            grow(64);
+            names = new Dictionary();
+            descs = new Dictionary();
+        }
+
+        /** Resizes every column to a new capacity.
+         *
+         * @param   capacity    the new capacity of the columns
+         */
+        private void grow (int capacity) {
+            type = type == null ? new byte[capacity] : Arrays.copyOf(type, capacity);
+            ospid = ospid == null ? new int[capacity] : Arrays.copyOf(ospid, capacity);
+            bfid = bfid == null ? new int[capacity] : Arrays.copyOf(bfid, capacity);
+            occ = occ == null ? new int[capacity] : Arrays.copyOf(occ, capacity);
+            oper = oper == null ? new int[capacity] : Arrays.copyOf(oper, capacity);
+            lat = lat == null ? new double[capacity] : Arrays.copyOf(lat, capacity);
+            lng = lng == null ? new double[capacity] : Arrays.copyOf(lng, capacity);
+            nameCode = nameCode == null ? new int[capacity] : Arrays.copyOf(nameCode, capacity);
+            descCode = descCode == null ? new int[capacity] : Arrays.copyOf(descCode, capacity);
+        }
+
+        /** Opens a new record with every field at its "not present" value.
+         *
+         * @return  the index of the new record
+         */
+        private int open () {
+            if (size == type.length)
+                grow(size * 2);
+            int i = size++;
+            type[i] = TYPE_UNKNOWN;
+            ospid[i] = bfid[i] = occ[i] = oper[i] = -1;
+            lat[i] = lng[i] = Double.NaN;
+            nameCode[i] = names.encode("");
+            descCode[i] = descs.encode("");
+            return i;
+        }
+
+        /** Parses an int, returning -1 if the value cannot be parsed.
+         *
+         * @param   data    the textual value
+         * @return  the parsed value, or -1
+         */
+        private static int parseInt (String data) {
+            try {
+                return Integer.parseInt(data);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        /** Appends the record held by an AVLElement.
+         *
+         * @param   avl     the AVLElement to append
+         */
+        void add (AVLElement avl) {
+            int i = open();
+            type[i] = typeCode(avl.type());
+            ospid[i] = avl.ospid();
+            bfid[i] = avl.bfid();
+            occ[i] = avl.occ();
+            oper[i] = avl.oper();
+            SFParkLocation loc = avl.loc();
+            if (loc != null && loc.numPoints() > 0) {
+                lat[i] = loc.latitude(0);
+                lng[i] = loc.longitude(0);
+            }
+            nameCode[i] = names.encode(avl.name());
+            descCode[i] = descs.encode(avl.desc());
+        }
+
+        /** Appends the record held by an AVL element of a streamed document.
+         * Fields are decoded straight into the columns; no AVLElement is built and
+         * OPHRS and RATES subtrees are skipped.
+         *
+         * @param   parser                  an XmlPullParser positioned at the START_TAG of an AVL element;
+         *                                  on return the parser is positioned at the matching END_TAG
+         * @throws  XmlPullParserException  if the streamed document is malformed
+         * @throws  IOException             if an error occurs while reading the stream
+         */
+        void add (XmlPullParser parser) throws XmlPullParserException, IOException {
+            int i = open();
+            int depth = parser.getDepth();
+            int event;
+            while ((event = parser.next()) != XmlPullParser.END_TAG || parser.getDepth() > depth) {
+                if (event != XmlPullParser.START_TAG || parser.getDepth() != depth + 1)
+                    continue;
+                switch (SFParkTags.lookup(parser.getName())) {
+                    case SFParkTags.TYPE:
+                        type[i] = typeCode(parser.nextText());
+                        break;
+                    case SFParkTags.NAME:
+                        nameCode[i] = names.encode(parser.nextText());
+                        break;
+                    case SFParkTags.DESC:
+                        descCode[i] = descs.encode(parser.nextText());
+                        break;
+                    case SFParkTags.OSPID:
+                        ospid[i] = parseInt(parser.nextText());
+                        break;
+                    case SFParkTags.BFID:
+                        bfid[i] = parseInt(parser.nextText());
+                        break;
+                    case SFParkTags.OCC:
+                        occ[i] = parseInt(parser.nextText());
+                        break;
+                    case SFParkTags.OPER:
+                        oper[i] = parseInt(parser.nextText());
+                        break;
+                    case SFParkTags.LOC: // Only the first point is kept
+                        String loc = parser.nextText();
+                        lng[i] = SFParkLocation.coordinate(loc, 0);
+                        lat[i] = SFParkLocation.coordinate(loc, 1);
+                        break;
+                }
+            }
+        }
+
+        /** Appends a record of a streamed JSON response.
+         * Fields are decoded straight into the columns; no AVLElement is built and
+         * OPHRS and RATES members are skipped.
+         *
+         * @param   reader          a JsonReader positioned at the object of a record; on return the object has been consumed
+         * @throws  IOException     if the streamed document is malformed or an error occurs while reading the stream
+         */
+        void add (JsonReader reader) throws IOException {
+            int i = open();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (SFParkTags.lookup(reader.nextName())) {
+                    case SFParkTags.TYPE:
+                        type[i] = typeCode(XmlFragments.text(reader));
+                        break;
+                    case SFParkTags.NAME:
+                        nameCode[i] = names.encode(XmlFragments.text(reader));
+                        break;
+                    case SFParkTags.DESC:
+                        descCode[i] = descs.encode(XmlFragments.text(reader));
+                        break;
+                    case SFParkTags.OSPID:
+                        ospid[i] = parseInt(XmlFragments.text(reader));
+                        break;
+                    case SFParkTags.BFID:
+                        bfid[i] = parseInt(XmlFragments.text(reader));
+                        break;
+                    case SFParkTags.OCC:
+                        occ[i] = parseInt(XmlFragments.text(reader));
+                        break;
+                    case SFParkTags.OPER:
+                        oper[i] = parseInt(XmlFragments.text(reader));
+                        break;
+                    case SFParkTags.LOC: // Only the first point is kept
+                        String loc = XmlFragments.text(reader);
+                        lng[i] = SFParkLocation.coordinate(loc, 0);
+                        lat[i] = SFParkLocation.coordinate(loc, 1);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        /** Builds an immutable snapshot of every record added so far.
+         *
+         * @param   availabilityUpdatedTimeStamp    the availability updated time stamp of the response
+         * @return  the snapshot
+         */
+        SFParkSnapshot build (String availabilityUpdatedTimeStamp) {
+            return new SFParkSnapshot(this, availabilityUpdatedTimeStamp);
+        }
+    }
+
+    /** The Dictionary class assigns consecutive codes to distinct String values.
+     */
+    private static class Dictionary {
+        /** Maps each distinct value to its code */
+        private final HashMap<String, Integer> codes = new HashMap<String, Integer>();
+        /** Holds each distinct value at the index of its code */
+        private String [] values = new String[16];
+
+        /** Returns the code of a value, assigning a new code if the value has not been seen.
+         *
+         * @param   value   the value to encode
+         * @return  the code of the value
+         */
+        int encode (String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                if (code == values.length)
+                    values = Arrays.copyOf(values, code * 2);
+                values[code] = value;
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        /** Returns every distinct value, indexed by code.
+         *
+         * @return  an array of every distinct value
+         */
+        String [] toArray () {
+            return Arrays.copyOf(values, codes.size());
+        }
+    }
+}
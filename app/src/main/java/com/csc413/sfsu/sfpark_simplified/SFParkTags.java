@@ -0,0 +1,115 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+/** The SFParkTags class is a fixed symbol table of the tag names used by the SFPark Availability REST Service API.
+ * Each tag name is resolved to a small int symbol once, when its element is parsed; element storage, lookups and
+ * dispatch then operate on the symbol rather than on the tag name String.
+ *
+ * @version     %I%, %G%
+ */
+public final class SFParkTags {
+    /** Symbol of any tag name not in the vocabulary */
+    public static final int UNKNOWN = 0;
+
+    // RESPONSE HEADER //
+    public static final int SFP_AVAILABILITY = 1;
+    public static final int STATUS = 2;
+    public static final int REQUESTID = 3;
+    public static final int UDF1 = 4;
+    public static final int NUM_RECORDS = 5;
+    public static final int ERROR_CODE = 6;
+    public static final int MESSAGE = 7;
+    public static final int AVAILABILITY_UPDATED_TIMESTAMP = 8;
+    public static final int AVAILABILITY_REQUEST_TIMESTAMP = 9;
+
+    // AVAILABILITY ELEMENT //
+    public static final int AVL = 10;
+    public static final int TYPE = 11;
+    public static final int OSPID = 12;
+    public static final int BFID = 13;
+    public static final int NAME = 14;
+    public static final int DESC = 15;
+    public static final int INTER = 16;
+    public static final int TEL = 17;
+    public static final int OCC = 18;
+    public static final int OPER = 19;
+    public static final int PTS = 20;
+    public static final int LOC = 21;
+
+    // OPERATING HOURS AND RATES ELEMENTS //
+    public static final int OPHRS = 22;
+    public static final int OPS = 23;
+    public static final int FROM = 24;
+    public static final int TO = 25;
+    public static final int BEG = 26;
+    public static final int END = 27;
+    public static final int RATES = 28;
+    public static final int RS = 29;
+    public static final int RATE = 30;
+    public static final int RQ = 31;
+    public static final int RR = 32;
+
+    /** Tag names indexed by symbol */
+    private static final String [] NAMES = {
+            "",
+            "SFP_AVAILABILITY", "STATUS", "REQUESTID", "UDF1", "NUM_RECORDS", "ERROR_CODE", "MESSAGE",
+            "AVAILABILITY_UPDATED_TIMESTAMP", "AVAILABILITY_REQUEST_TIMESTAMP",
+            "AVL", "TYPE", "OSPID", "BFID", "NAME", "DESC", "INTER", "TEL", "OCC", "OPER", "PTS", "LOC",
+            "OPHRS", "OPS", "FROM", "TO", "BEG", "END", "RATES", "RS", "RATE", "RQ", "RR"
+    };
+
+    /** Constructor is private; this class only holds static members. */
+    private SFParkTags () {}
+
+    /** Resolves a tag name to its symbol.
+     *
+     * @param   name    a tag name
+     * @return  the symbol of the tag name, or UNKNOWN if the tag name is not in the vocabulary
+     */
+    public static int lookup (String name) {
+        switch (name) {
+            case "SFP_AVAILABILITY": return SFP_AVAILABILITY;
+            case "STATUS": return STATUS;
+            case "REQUESTID": return REQUESTID;
+            case "UDF1": return UDF1;
+            case "NUM_RECORDS": return NUM_RECORDS;
+            case "ERROR_CODE": return ERROR_CODE;
+            case "MESSAGE": return MESSAGE;
+            case "AVAILABILITY_UPDATED_TIMESTAMP": return AVAILABILITY_UPDATED_TIMESTAMP;
+            case "AVAILABILITY_REQUEST_TIMESTAMP": return AVAILABILITY_REQUEST_TIMESTAMP;
+            case "AVL": return AVL;
+            case "TYPE": return TYPE;
+            case "OSPID": return OSPID;
+            case "BFID": return BFID;
+            case "NAME": return NAME;
+            case "DESC": return DESC;
+            case "INTER": return INTER;
+            case "TEL": return TEL;
+            case "OCC": return OCC;
+            case "OPER": return OPER;
+            case "PTS": return PTS;
+            case "LOC": return LOC;
+            case "OPHRS": return OPHRS;
+            case "OPS": return OPS;
+            case "FROM": return FROM;
+            case "TO": return TO;
+            case "BEG": return BEG;
+            case "END": return END;
+            case "RATES": return RATES;
+            case "RS": return RS;
+            case "RATE": return RATE;
+            case "RQ": return RQ;
+            case "RR": return RR;
+            default: return UNKNOWN;
+        }
+    }
+
+    /** Returns the tag name of a symbol.
+     *
+     * @param   symbol                      a symbol of this class
+     * @return                              the tag name of the symbol, or an empty String for UNKNOWN
+     * @throws  IndexOutOfBoundsException   if the symbol is not defined by this class
+     */
+    public static String name (int symbol) {
+        return NAMES[symbol];
+    }
+}
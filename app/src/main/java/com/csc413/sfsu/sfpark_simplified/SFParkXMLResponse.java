@@ -1,21 +1,26 @@
 package com.csc413.sfsu.sfpark_simplified;
 
-import android.os.AsyncTask;
+import android.util.JsonReader;
+import android.util.JsonToken;
 
-import org.w3c.dom.Element;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
+import org.xmlpull.v1.XmlPullParser;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.concurrent.TimeUnit;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /** The SFParkXMLResponse class is a helper class that allows the user to conveniently interface with a
  * response returned from a SFPark Availability database query and easily retrieve associated data.
  * This class initializes a data tree based on the hierarchy detailed in the SFPark Availability
  * REST Service API documentation.
+ * Both the XML and the JSON response formats (see {@code SFParkQuery.setResponseFormat(String)}) are supported;
+ * the format is detected from the response itself.
  *
  * @author      Jeremy Erickson
  * @version     %I%, %G%
@@ -23,14 +28,18 @@ import javax.xml.parsers.DocumentBuilderFactory;
 public class SFParkXMLResponse {
     // PRIVATE DATA MEMBERS AND METHODS //
     //
+    /** The time in seconds a synchronous query waits for its response */
+    private static final int TIMEOUT = 10;
     /** Holds the query to passed to the SFPark Availability database */
     private String query;
 
     /** The status of the response.
-     * Three possible values exist for this data member:
+     * Four possible values exist for this data member:
      *  - SUCCESS: database accessed and query returned successfully (official SFPark API value)
      *  - ERROR: database accessed but encountered an error with the query (official SFPark API value)
      *  - FAILURE: complete failure to access database (custom SFPark Simplicity API value)
+     *  - UNCHANGED: a conditional refresh found that the data has not been updated since the last complete response
+     *    to the same query, so no records were read (custom SFPark Simplicity API value)
      */
     private String status;
     /** The request ID of the response */
@@ -49,6 +58,9 @@ public class SFParkXMLResponse {
     private String availabilityRequestTimeStamp;
     /** Holds all availability (AVL) elements; an AVL element represents one record */
     private ArrayList<AVLElement> avlList;
+    /** During a conditional refresh, the availability updated time stamp of the last complete response to the
+     * query; parsing stops as soon as the response is found to carry the same time stamp. Null otherwise. */
+    private String knownTimeStamp;
 
     /** Resets all data members to their starting values.
      * Numerical data is set to -1; Strings and Lists are reinitialized as empty.
@@ -65,101 +77,396 @@ public class SFParkXMLResponse {
         avlList = new ArrayList<AVLElement>();
     }
 
-    // PUBLIC METHODS //
-    //
-    /** Constructor.
-     * This is the sole constructor which instantiates an empty SFParkXMLResponse object.
-     * <b>Note:</b>The method {@code createResponse(String url)} or {@code createResponse(SFParkQuery query)} must be called
-     * in order to populate the object with xml data.
+    /** Sets all data members to those of another response.
+     *
+     * @param   other   the SFParkXMLResponse to copy
      */
-    public SFParkXMLResponse () {}
+    private void copy (SFParkXMLResponse other) {
+        status = other.status;
+        requestID = other.requestID;
+        udf1 = other.udf1;
+        numRecords = other.numRecords;
+        errorCode = other.errorCode;
+        message = other.message;
+        availabilityUpdatedTimeStamp = other.availabilityUpdatedTimeStamp;
+        availabilityRequestTimeStamp = other.availabilityRequestTimeStamp;
+        avlList = other.avlList;
+    }
 
-    /** Populates the SFParkXMLResponse object with data parsed from a successful SFPark Availability REST Service API query.
+    /** Streams and parses a SFPark Availability REST Service API query on the current thread.
+     * The response is parsed as it is streamed; header fields and records are built in a single forward pass
+     * and no intermediate document tree is created.
+     * The time stamp and validators of every complete response are remembered in the RefreshRegistry. A conditional
+     * refresh sends the remembered validators and stops reading as soon as the server or the response's time stamp
+     * shows that nothing has changed, in which case the status is UNCHANGED and no records are delivered.
+     * An identical query already in flight is joined rather than sent again.
      *
-     * @param   url a String representing a SFPark Availability REST Service API query in the form of a URL
+     * @param   url         a String representing a SFPark Availability REST Service API query in the form of a URL
+     * @param   columns     a SFParkSnapshot.Builder to which records are appended, or null
+     * @param   consumer    an AvlRecordConsumer to which records are handed as they are parsed, or null;
+     *                      if both columns and consumer are null, records are appended to the availability list
+     * @param   conditional true to skip the response if it has not changed since the last complete response
      * @return  true if the query was successful and no exceptions were thrown, false otherwise
      */
-    public boolean populate (String url) {
+    private boolean fetch (String url, SFParkSnapshot.Builder columns, AvlRecordConsumer consumer, boolean conditional) {
+        // Reset all data members to their default values
+        reset();
+        String key = RefreshRegistry.canonical(url);
+        RefreshRegistry.Entry known = conditional ? RefreshRegistry.get(key) : null;
+        HttpTransport.Validators validators = new HttpTransport.Validators();
+        if (known != null) {
+            validators.etag = known.etag;
+            validators.lastModified = known.lastModified;
+            knownTimeStamp = known.timeStamp;
+        }
+        InputStream in = null;
         try {
-            // Reset all data members to their default values
+            in = InFlightRequests.open(url, validators);
+            if (in == null) { // 304 Not Modified
+                status = "UNCHANGED";
+                availabilityUpdatedTimeStamp = known.timeStamp == null ? "" : known.timeStamp;
+                return true;
+            }
+            boolean success = parse(in, columns, consumer);
+            if (success && !unchanged()) {
+                drain(in);
+                RefreshRegistry.put(key, new RefreshRegistry.Entry(availabilityUpdatedTimeStamp,
+                        validators.etag, validators.lastModified));
+            }
+            return success;
+        } catch (Exception e) {
             reset();
-
-            Document document = new NetworkRequest().execute(url).get(10, TimeUnit.SECONDS);
-
-            // Extract root element which contains all data
-            Element root;
-            try {
-                root = (Element) document.getElementsByTagName("SFP_AVAILABILITY").item(0);
-            } catch (NullPointerException e) {
-                status = "FAILURE"; // FAILURE status indicates that the root element - and therefore all data within - could not be extracted
-                return false;
+            status = "FAILED: " + e.getClass();
+            return false;
+        } finally {
+            knownTimeStamp = null;
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Nothing left to read; ignore
+                }
             }
+        }
+    }
 
-            // Extract non-AVL elements and copy their data into the appropriate data member.
-            // If a tag name does not match any available element, String variables are set to empty
-            // and int variables are set to -1.
-            try {
-                status = ((Element) root.getElementsByTagName("STATUS").item(0)).getTextContent();
-                if (status.equals("ERROR")) // Return on error status
-                    return false;
-            } catch (NullPointerException e) {
-                status = "";
+    /** Populates the SFParkXMLResponse object with data parsed from a SFPark Availability REST Service API query,
+     * waiting for the query to complete on the RequestExecutor.
+     * The response is parsed into a separate object and only copied into this one once the query completes, so that
+     * a query abandoned at the timeout, which may still be reading when this method returns, never writes into this
+     * object; nor does it hand any further records to the consumer.
+     *
+     * @param   url         a String representing a SFPark Availability REST Service API query in the form of a URL
+     * @param   columns     a SFParkSnapshot.Builder to which records are appended, or null
+     * @param   consumer    an AvlRecordConsumer to which records are handed as they are parsed, or null;
+     *                      if both columns and consumer are null, records are appended to the availability list
+     * @param   conditional true to skip the response if it has not changed since the last complete response
+     * @return  true if the query was successful and no exceptions were thrown, false otherwise
+     */
+    private boolean populate (final String url, final SFParkSnapshot.Builder columns, final AvlRecordConsumer consumer,
+                              final boolean conditional) {
+        final SFParkXMLResponse fresh = new SFParkXMLResponse();
+        final AtomicBoolean abandoned = new AtomicBoolean();
+        final AvlRecordConsumer guarded = consumer == null ? null : new AvlRecordConsumer() {
+            @Override
+            public void onRecord (AVLElement avl) {
+                if (abandoned.get())
+                    throw new CancellationException("Query abandoned");
+                consumer.onRecord(avl);
             }
+        };
+        boolean success;
+        try {
+            success = RequestExecutor.call(new Callable<Boolean>() {
+                @Override
+                public Boolean call () {
+                    return fresh.fetch(url, columns, guarded, conditional);
+                }
+            }, TIMEOUT);
+        } catch (Exception e) {
+            abandoned.set(true);
+            reset();
+            status = "FAILED: " + e.getClass();
+            return false;
+        }
+        copy(fresh);
+        return success;
+    }
 
-            try {
-                requestID = Integer.parseInt(((Element)root.getElementsByTagName("REQUESTID").item(0)).getTextContent());
-            } catch (NullPointerException e) {
-                requestID = -1;
+    /** Populates the SFParkXMLResponse object in the background and delivers it to a callback on the main thread.
+     *
+     * @param   url         a String representing a SFPark Availability REST Service API query in the form of a URL
+     * @param   consumer    an AvlRecordConsumer to which records are handed as they are parsed, or null
+     * @param   callback    the ResponseCallback to receive this object, or the status of the response on failure
+     * @return  a Future which may be used to cancel the query
+     */
+    private Future<SFParkXMLResponse> populateAsync (final String url, final AvlRecordConsumer consumer,
+                                                     ResponseCallback<SFParkXMLResponse> callback) {
+        return RequestExecutor.submit(new Callable<SFParkXMLResponse>() {
+            @Override
+            public SFParkXMLResponse call () throws RequestFailedException {
+                if (!fetch(url, null, consumer, false))
+                    throw new RequestFailedException(status);
+                return SFParkXMLResponse.this;
             }
+        }, callback);
+    }
 
-            try {
-                udf1 = Integer.parseInt(((Element)root.getElementsByTagName("UDF1").item(0)).getTextContent());
-            } catch (NullPointerException e) {
-                udf1 = -1;
-            }
+    /** Reads a response body to its end. Parsing a JSON response stops at its closing brace, short of the end of the
+     * stream, and the DiskCache only keeps a copy of a body which has been read to its end.
+     *
+     * @param   in              the response body
+     * @throws  IOException     if an error occurs while reading the stream
+     */
+    private static void drain (InputStream in) throws IOException {
+        byte [] buffer = new byte[512];
+        while (in.read(buffer) != -1)
+            ;
+    }
 
-            try {
-                numRecords = Integer.parseInt(((Element)root.getElementsByTagName("NUM_RECORDS").item(0)).getTextContent());
-            } catch (NullPointerException e) {
-                numRecords = -1;
+    /** Indicates whether a stream holds a JSON document, without consuming any of it.
+     * A JSON response starts with an object; an XML response starts with a declaration or the root element.
+     *
+     * @param   in              a stream which supports mark and reset, positioned at the start of the document
+     * @return  true if the first non-whitespace character of the stream opens a JSON object, false otherwise
+     * @throws  IOException     if an error occurs while reading the stream
+     */
+    private static boolean isJSON (InputStream in) throws IOException {
+        in.mark(64);
+        try {
+            int c;
+            for (int i = 0; i < 64 && (c = in.read()) != -1; i++) {
+                if (c == 0xEF || c == 0xBB || c == 0xBF || Character.isWhitespace(c)) // Skip a UTF-8 byte order mark
+                    continue;
+                return c == '{';
             }
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
 
-            try {
-                errorCode = Integer.parseInt(((Element)root.getElementsByTagName("ERROR_CODE").item(0)).getTextContent());
-            } catch (NullPointerException e) {
-                errorCode = -1;
-            }
+    /** Reads the value of a JSON header member as an int.
+     *
+     * @param   reader                  a JsonReader positioned at the value
+     * @return  the value
+     * @throws  IOException             if an error occurs while reading the stream
+     * @throws  NumberFormatException   if the value is not an int
+     */
+    private static int nextInt (JsonReader reader) throws IOException {
+        return Integer.parseInt(XmlFragments.text(reader));
+    }
 
-            try {
-                message = ((Element)root.getElementsByTagName("MESSAGE").item(0)).getTextContent();
-            } catch (NullPointerException e) {
-                message = "";
-            }
+    /** Builds a record of a JSON response and hands it to its destination.
+     *
+     * @param   reader      a JsonReader positioned at the object of a record
+     * @param   fragments   the buffer in which the OPHRS and RATES subtrees of the response are kept unparsed
+     * @param   columns     a SFParkSnapshot.Builder to which the record is appended, or null
+     * @param   consumer    an AvlRecordConsumer to which the record is handed, or null;
+     *                      if both columns and consumer are null, the record is appended to the availability list
+     * @throws  Exception   if the stream could not be read, or an InterruptedException if the request was cancelled
+     */
+    private void addRecord (JsonReader reader, XmlFragments fragments, SFParkSnapshot.Builder columns,
+                            AvlRecordConsumer consumer) throws Exception {
+        if (Thread.currentThread().isInterrupted())
+            throw new InterruptedException();
+        if (columns != null)
+            columns.add(reader);
+        else if (consumer != null)
+            consumer.onRecord(new AVLElement(reader, fragments));
+        else
+            avlList.add(new AVLElement(reader, fragments));
+    }
 
-            try {
-                availabilityUpdatedTimeStamp = ((Element)root.getElementsByTagName("AVAILABILITY_UPDATED_TIMESTAMP").item(0)).getTextContent();
-            } catch (NullPointerException e) {
-                availabilityUpdatedTimeStamp = "";
-            }
+    // PUBLIC METHODS //
+    //
+    /** Constructor.
+     * This is the sole constructor which instantiates an empty SFParkXMLResponse object.
+     * <b>Note:</b>The method {@code createResponse(String url)} or {@code createResponse(SFParkQuery query)} must be called
+     * in order to populate the object with xml data.
+     */
+    public SFParkXMLResponse () {
+        reset();
+    }
 
-            try {
-                availabilityRequestTimeStamp = ((Element)root.getElementsByTagName("AVAILABILITY_REQUEST_TIMESTAMP").item(0)).getTextContent();
-            } catch (NullPointerException e) {
-                availabilityRequestTimeStamp = "";
-            }
+    /** Parses a SFPark Availability REST Service API response from a stream into this object.
+     * The response may be in either the XML or the JSON format.
+     *
+     * @param   in          a stream positioned at the start of the response document
+     * @param   columns     a SFParkSnapshot.Builder to which records are appended, or null
+     * @param   consumer    an AvlRecordConsumer to which records are handed as they are parsed, or null;
+     *                      if both columns and consumer are null, records are appended to the availability list
+     * @return  true if the response was parsed and its status is not ERROR, false otherwise
+     * @throws  Exception   if the stream could not be read or a numeric field could not be parsed,
+     *                      or an InterruptedException if the request was cancelled
+     */
+    boolean parse (InputStream in, SFParkSnapshot.Builder columns, AvlRecordConsumer consumer) throws Exception {
+        in = new BufferedInputStream(in);
+        if (isJSON(in))
+            return parse(new JsonReader(new InputStreamReader(in, "UTF-8")), columns, consumer);
+        XmlPullParser parser = ParserPool.acquirePullParser();
+        try {
+            parser.setInput(in, null);
+            return parse(parser, columns, consumer);
+        } finally {
+            ParserPool.releasePullParser(parser);
+        }
+    }
 
-            // Populate availability list
-            NodeList avlNodes = root.getElementsByTagName("AVL");
-            for (int i = 0; i < avlNodes.getLength(); i++) {
-                avlList.add(new AVLElement((Element) avlNodes.item(i)));
+    /** Parses a SFPark Availability REST Service API response from a stream into this object.
+     * Elements directly beneath the root are handled as they are encountered: header fields are copied into the
+     * appropriate data member, and each AVL element is built and appended to the availability list.
+     * If a tag name does not match any available element, String variables remain empty
+     * and int variables remain -1.
+     *
+     * @param   parser      an XmlPullParser positioned at the start of the response document
+     * @param   columns     a SFParkSnapshot.Builder to which records are appended, or null
+     * @param   consumer    an AvlRecordConsumer to which records are handed as they are parsed, or null;
+     *                      if both columns and consumer are null, records are appended to the availability list
+     * @return  true if the response was parsed and its status is not ERROR, false otherwise
+     * @throws  Exception   if the stream could not be read or a numeric field could not be parsed,
+     *                      or an InterruptedException if the request was cancelled
+     */
+    boolean parse (XmlPullParser parser, SFParkSnapshot.Builder columns, AvlRecordConsumer consumer) throws Exception {
+        // Extract root element which contains all data
+        if (parser.nextTag() != XmlPullParser.START_TAG || SFParkTags.lookup(parser.getName()) != SFParkTags.SFP_AVAILABILITY) {
+            status = "FAILURE"; // FAILURE status indicates that the root element - and therefore all data within - could not be extracted
+            return false;
+        }
+
+        // OPHRS and RATES subtrees of every record are kept unparsed in one shared buffer
+        XmlFragments fragments = new XmlFragments();
+        int event;
+        while ((event = parser.next()) != XmlPullParser.END_DOCUMENT) {
+            if (event != XmlPullParser.START_TAG)
+                continue;
+            switch (SFParkTags.lookup(parser.getName())) {
+                case SFParkTags.STATUS:
+                    status = parser.nextText();
+                    if (status.equals("ERROR")) // Return on error status
+                        return false;
+                    break;
+                case SFParkTags.REQUESTID:
+                    requestID = Integer.parseInt(parser.nextText());
+                    break;
+                case SFParkTags.UDF1:
+                    udf1 = Integer.parseInt(parser.nextText());
+                    break;
+                case SFParkTags.NUM_RECORDS:
+                    numRecords = Integer.parseInt(parser.nextText());
+                    break;
+                case SFParkTags.ERROR_CODE:
+                    errorCode = Integer.parseInt(parser.nextText());
+                    break;
+                case SFParkTags.MESSAGE:
+                    message = parser.nextText();
+                    break;
+                case SFParkTags.AVAILABILITY_UPDATED_TIMESTAMP:
+                    availabilityUpdatedTimeStamp = parser.nextText();
+                    if (availabilityUpdatedTimeStamp.equals(knownTimeStamp)) { // Not republished; skip the records
+                        status = "UNCHANGED";
+                        return true;
+                    }
+                    break;
+                case SFParkTags.AVAILABILITY_REQUEST_TIMESTAMP:
+                    availabilityRequestTimeStamp = parser.nextText();
+                    break;
+                case SFParkTags.AVL: // Populate availability list
+                    if (Thread.currentThread().isInterrupted())
+                        throw new InterruptedException();
+                    if (columns != null)
+                        columns.add(parser);
+                    else if (consumer != null)
+                        consumer.onRecord(new AVLElement(parser, fragments));
+                    else
+                        avlList.add(new AVLElement(parser, fragments));
+                    break;
             }
-            // Return true upon success
-            return true;
-        } catch (Exception e) {
-            reset();
-            status = "FAILED: " + e.getClass();
+        }
+        // Return true upon success
+        return true;
+    }
+
+    /** Parses a SFPark Availability REST Service API response in the JSON format from a stream into this object.
+     * The response is a single object whose members are the header fields and an AVL member holding either one
+     * record or an array of records. Members are handled exactly as the equivalent elements of an XML response.
+     *
+     * @param   reader      a JsonReader positioned at the start of the response document
+     * @param   columns     a SFParkSnapshot.Builder to which records are appended, or null
+     * @param   consumer    an AvlRecordConsumer to which records are handed as they are parsed, or null;
+     *                      if both columns and consumer are null, records are appended to the availability list
+     * @return  true if the response was parsed and its status is not ERROR, false otherwise
+     * @throws  Exception   if the stream could not be read or a numeric field could not be parsed,
+     *                      or an InterruptedException if the request was cancelled
+     */
+    boolean parse (JsonReader reader, SFParkSnapshot.Builder columns, AvlRecordConsumer consumer) throws Exception {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            status = "FAILURE";
             return false;
         }
+
+        XmlFragments fragments = new XmlFragments();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (SFParkTags.lookup(reader.nextName())) {
+                case SFParkTags.STATUS:
+                    status = XmlFragments.text(reader);
+                    if (status.equals("ERROR")) // Return on error status
+                        return false;
+                    break;
+                case SFParkTags.REQUESTID:
+                    requestID = nextInt(reader);
+                    break;
+                case SFParkTags.UDF1:
+                    udf1 = nextInt(reader);
+                    break;
+                case SFParkTags.NUM_RECORDS:
+                    numRecords = nextInt(reader);
+                    break;
+                case SFParkTags.ERROR_CODE:
+                    errorCode = nextInt(reader);
+                    break;
+                case SFParkTags.MESSAGE:
+                    message = XmlFragments.text(reader);
+                    break;
+                case SFParkTags.AVAILABILITY_UPDATED_TIMESTAMP:
+                    availabilityUpdatedTimeStamp = XmlFragments.text(reader);
+                    if (availabilityUpdatedTimeStamp.equals(knownTimeStamp)) { // Not republished; skip the records
+                        status = "UNCHANGED";
+                        return true;
+                    }
+                    break;
+                case SFParkTags.AVAILABILITY_REQUEST_TIMESTAMP:
+                    availabilityRequestTimeStamp = XmlFragments.text(reader);
+                    break;
+                case SFParkTags.AVL: // Populate availability list
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        while (reader.hasNext())
+                            addRecord(reader, fragments, columns, consumer);
+                        reader.endArray();
+                    } else if (reader.peek() == JsonToken.BEGIN_OBJECT) { // A single record is not wrapped in an array
+                        addRecord(reader, fragments, columns, consumer);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        // Return true upon success
+        return true;
+    }
+
+    /** Populates the SFParkXMLResponse object with data parsed from a successful SFPark Availability REST Service API query.
+     *
+     * @param   url a String representing a SFPark Availability REST Service API query in the form of a URL
+     * @return  true if the query was successful and no exceptions were thrown, false otherwise
+     */
+    public boolean populate (String url) {
+        return populate(url, null, null, false);
     }
 
     /** Populates the SFParkXMLResponse object with data parsed from a successful SFPark Availability REST Service API query.
@@ -171,6 +478,78 @@ public class SFParkXMLResponse {
         return populate(query.toString());
     }
 
+    /** Populates the header fields of the SFParkXMLResponse object and hands each record of the response to a consumer
+     * as soon as it has been parsed, rather than waiting for the whole response to arrive.
+     * Records are not kept in the availability list, so {@code avl(int index)} may not be used to access them.
+     * The consumer is called on the thread streaming the response; if the response is not complete within the
+     * timeout, the stream is abandoned and no further records are handed to the consumer.
+     *
+     * @param   query       an SFParkQuery object containing the SFPark Availability REST Service API query
+     * @param   consumer    the AvlRecordConsumer to receive each record
+     * @return  true if the query was successful, false otherwise
+     */
+    public boolean populate (SFParkQuery query, AvlRecordConsumer consumer) {
+        return populate(query.toString(), null, consumer, false);
+    }
+
+    /** Populates the SFParkXMLResponse object in the background without blocking the calling thread.
+     * The query runs on the RequestExecutor; once it completes, this object is delivered to
+     * {@code callback.onSuccess} on the main thread, or its status to {@code callback.onFailure} if the query failed.
+     * This object must not be read until the callback has been called.
+     *
+     * @param   query       an SFParkQuery object containing the SFPark Availability REST Service API query
+     * @param   callback    the ResponseCallback to receive the outcome of the query
+     * @return  a Future which may be used to cancel the query; once cancelled, the callback is not called
+     */
+    public Future<SFParkXMLResponse> populateAsync (SFParkQuery query, ResponseCallback<SFParkXMLResponse> callback) {
+        return populateAsync(query.toString(), null, callback);
+    }
+
+    /** Populates the header fields of the SFParkXMLResponse object in the background and hands each record of the
+     * response to a consumer as soon as it has been parsed. The consumer is called on the thread streaming the
+     * response; the callback is called on the main thread once the response is complete.
+     *
+     * @param   query       an SFParkQuery object containing the SFPark Availability REST Service API query
+     * @param   consumer    the AvlRecordConsumer to receive each record
+     * @param   callback    the ResponseCallback to receive the outcome of the query
+     * @return  a Future which may be used to cancel the query; once cancelled, no further records are handed to the
+     *          consumer and the callback is not called
+     */
+    public Future<SFParkXMLResponse> populateAsync (SFParkQuery query, AvlRecordConsumer consumer,
+                                                    ResponseCallback<SFParkXMLResponse> callback) {
+        return populateAsync(query.toString(), consumer, callback);
+    }
+
+    /** Refreshes the SFParkXMLResponse object from a query only if the data has been updated since the last complete
+     * response to the same query; otherwise the status is set to UNCHANGED and no records are read, parsed or handed
+     * to the consumer. The previous response's ETag and Last-Modified validators are sent so that the server may
+     * answer 304 Not Modified; if it does not, reading stops at the response's availability updated time stamp when
+     * it matches the previous one.
+     * Queries are matched regardless of the order in which their parameters were set.
+     *
+     * @param   query       an SFParkQuery object containing the SFPark Availability REST Service API query
+     * @param   consumer    the AvlRecordConsumer to receive each record of a changed response
+     * @return  true if the query was successful, whether or not the data had changed; false otherwise
+     * @see     com.csc413.sfsu.sfpark_simplified.SFParkXMLResponse#unchanged()
+     */
+    public boolean populateIfChanged (SFParkQuery query, AvlRecordConsumer consumer) {
+        return populate(query.toString(), null, consumer, true);
+    }
+
+    /** Populates the header fields of the SFParkXMLResponse object and returns the records of the response as a
+     * columnar SFParkSnapshot. No AVLElements are built and the availability list is left empty, so
+     * {@code avl(int index)} may not be used to access the records.
+     *
+     * @param   query   an SFParkQuery object containing the SFPark Availability REST Service API query
+     * @return  a SFParkSnapshot containing every record if the query was successful, or null otherwise
+     */
+    public SFParkSnapshot populateSnapshot (SFParkQuery query) {
+        SFParkSnapshot.Builder columns = new SFParkSnapshot.Builder();
+        if (!populate(query.toString(), columns, null, false))
+            return null;
+        return columns.build(availabilityUpdatedTimeStamp);
+    }
+
     /** Returns a SFPark availability element at the specified index.
      * This method throws an IndexOutOfBoundsException if an index is invalid.
      *
@@ -211,6 +590,7 @@ public class SFParkXMLResponse {
      *  SUCCESS: database accessed and query returned successfully (official SFPark API value)
      *  ERROR: database accessed but encountered an error with the query (official SFPark API value)
      *  FAILURE: no data could be extracted at all (i.e. SFP_AVAILABILITY tag returns null) (custom sfparkdb API value)
+     *  UNCHANGED: a conditional refresh found the data not updated since the last complete response (custom sfparkdb API value)
      *
      * @return  a String containing the status if it exists, or an empty String otherwise
      */
@@ -218,6 +598,15 @@ public class SFParkXMLResponse {
         return status;
     }
 
+    /** Indicates whether the latest conditional refresh found the data unchanged.
+     *
+     * @return  true if the status is UNCHANGED, false otherwise
+     * @see     com.csc413.sfsu.sfpark_simplified.SFParkXMLResponse#populateIfChanged(SFParkQuery, AvlRecordConsumer)
+     */
+    public boolean unchanged () {
+        return status.equals("UNCHANGED");
+    }
+
     /** Returns the request ID of the response.
      *
      * @return  the request ID of the response if it exists, or -1 otherwise
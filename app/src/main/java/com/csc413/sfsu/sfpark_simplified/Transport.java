@@ -0,0 +1,25 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/** The Transport interface opens the response bodies of the remote services for streaming.
+ * Every request made by the SFPark and Crimespotting clients goes through the Transport set in Endpoints, which by
+ * default is the HttpTransport. Other implementations may stand in for it, e.g. to replay recorded responses or to
+ * inject faults; the caching, coalescing, hedging and circuit breaking layered above it apply to them unchanged.
+ *
+ * @version     %I%, %G%
+ */
+public interface Transport {
+    /** Opens the response body of a location for streaming, unless it has not changed since the response from which
+     * a set of validators was taken.
+     *
+     * @param   url             a String containing a URL from which to read
+     * @param   validators      the validators of the previous response, or null to request the body unconditionally;
+     *                          on return holds the validators of the new response
+     * @param   timeout         the time in milliseconds until a connection attempt or a read times out
+     * @return  an InputStream reading the decompressed response body, or null if the body has not changed
+     * @throws  IOException     if the location could not be read
+     */
+    InputStream open (String url, HttpTransport.Validators validators, int timeout) throws IOException;
+}
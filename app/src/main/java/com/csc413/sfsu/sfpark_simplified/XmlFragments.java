@@ -0,0 +1,177 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import android.util.JsonReader;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/** The XmlFragments class holds unparsed subtrees of a streamed document as character ranges of a shared buffer.
+ * Subtrees which are rarely read (such as the OPHRS and RATES elements of an availability record) are copied into
+ * the buffer as plain XML text while the document is streamed, and are only parsed into element objects when they
+ * are first requested.
+ *
+ * Subtrees of a JSON response are transcoded into the same XML form, so that both response formats share the
+ * element classes which decode them.
+ *
+ * @version     %I%, %G%
+ */
+class XmlFragments {
+    /** Holds the text of every captured subtree */
+    private final StringBuilder buffer;
+
+    /** Appends text to the buffer, escaping characters reserved by XML.
+     *
+     * @param   text    the text to append
+     */
+    private void appendEscaped (String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    buffer.append("&amp;");
+                    break;
+                case '<':
+                    buffer.append("&lt;");
+                    break;
+                case '>':
+                    buffer.append("&gt;");
+                    break;
+                case '"':
+                    buffer.append("&quot;");
+                    break;
+                default:
+                    buffer.append(c);
+            }
+        }
+    }
+
+    /** Constructor.
+     */
+    XmlFragments () {
+        buffer = new StringBuilder();
+    }
+
+    /** Copies the subtree at the current position of a streamed document into the buffer.
+     *
+     * @param   parser                  an XmlPullParser positioned at the START_TAG of the subtree;
+     *                                  on return the parser is positioned at the matching END_TAG
+     * @return  the start of the subtree's range in the buffer; the range ends at {@code end()}
+     * @throws  XmlPullParserException  if the streamed document is malformed
+     * @throws  IOException             if an error occurs while reading the stream
+     */
+    synchronized int capture (XmlPullParser parser) throws XmlPullParserException, IOException {
+        int start = buffer.length();
+        int depth = parser.getDepth();
+        int event = parser.getEventType();
+        while (true) {
+            switch (event) {
+                case XmlPullParser.START_TAG:
+                    buffer.append('<').append(parser.getName());
+                    for (int i = 0; i < parser.getAttributeCount(); i++) {
+                        buffer.append(' ').append(parser.getAttributeName(i)).append("=\"");
+                        appendEscaped(parser.getAttributeValue(i));
+                        buffer.append('"');
+                    }
+                    buffer.append('>');
+                    break;
+                case XmlPullParser.TEXT:
+                    appendEscaped(parser.getText());
+                    break;
+                case XmlPullParser.END_TAG:
+                    buffer.append("</").append(parser.getName()).append('>');
+                    if (parser.getDepth() == depth)
+                        return start;
+                    break;
+            }
+            event = parser.next();
+        }
+    }
+
+    /** Copies a JSON value of a streamed document into the buffer as an equivalent XML subtree.
+     * An object becomes an element with one child element per member, an array becomes one element per item,
+     * and any other value becomes an element containing its text.
+     *
+     * @param   reader          a JsonReader positioned at the value; on return the value has been consumed
+     * @param   name            the tag name of the subtree, usually the name of the member holding the value
+     * @return  the start of the subtree's range in the buffer; the range ends at {@code end()}
+     * @throws  IOException     if the streamed document is malformed or an error occurs while reading the stream
+     */
+    synchronized int capture (JsonReader reader, String name) throws IOException {
+        int start = buffer.length();
+        switch (reader.peek()) {
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                while (reader.hasNext())
+                    capture(reader, name);
+                reader.endArray();
+                break;
+            case BEGIN_OBJECT:
+                buffer.append('<').append(name).append('>');
+                reader.beginObject();
+                while (reader.hasNext())
+                    capture(reader, reader.nextName());
+                reader.endObject();
+                buffer.append("</").append(name).append('>');
+                break;
+            default:
+                buffer.append('<').append(name).append('>');
+                appendEscaped(text(reader));
+                buffer.append("</").append(name).append('>');
+        }
+        return start;
+    }
+
+    /** Reads a JSON value as the text an equivalent XML leaf element would contain.
+     * Numbers and booleans are returned as written, null as an empty String; objects and arrays are skipped
+     * and returned as an empty String.
+     *
+     * @param   reader          a JsonReader positioned at the value; on return the value has been consumed
+     * @return  the text of the value
+     * @throws  IOException     if the streamed document is malformed or an error occurs while reading the stream
+     */
+    static String text (JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return "";
+            default:
+                reader.skipValue();
+                return "";
+        }
+    }
+
+    /** Returns the end of the range of the most recently captured subtree.
+     *
+     * @return  the current length of the buffer
+     */
+    synchronized int end () {
+        return buffer.length();
+    }
+
+    /** Returns a parser over a captured subtree.
+     *
+     * @param   start                   the start of the subtree's range
+     * @param   end                     the end of the subtree's range
+     * @return  an XmlPullParser positioned at the START_TAG of the subtree
+     * @throws  XmlPullParserException  if the subtree is malformed
+     * @throws  IOException             if an error occurs while reading the subtree
+     */
+    XmlPullParser parser (int start, int end) throws XmlPullParserException, IOException {
+        String fragment;
+        synchronized (this) {
+            fragment = buffer.substring(start, end);
+        }
+        XmlPullParser parser = ParserPool.newPullParser();
+        parser.setInput(new StringReader(fragment));
+        parser.nextTag();
+        return parser;
+    }
+}
@@ -0,0 +1,81 @@
+package android.os;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.Callable;
+
+/** JVM stand-in for android.os.AsyncTask, used to run the parsing layer outside of Android.
+ * Tasks run on a shared thread pool. As there is no main thread, onPostExecute and onCancelled are
+ * called on the worker thread once doInBackground returns.
+ *
+ * @version     %I%, %G%
+ */
+public abstract class AsyncTask<Params, Progress, Result> {
+    /** The executor on which tasks are run by default */
+    public static final Executor THREAD_POOL_EXECUTOR = Executors.newCachedThreadPool();
+    /** An executor which runs one task at a time */
+    public static final Executor SERIAL_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /** Runs the task and holds its result */
+    private FutureTask<Result> future;
+    /** Whether cancel has been called */
+    private volatile boolean cancelled;
+
+    protected abstract Result doInBackground (Params... params);
+
+    protected void onPreExecute () {}
+
+    protected void onPostExecute (Result result) {}
+
+    protected void onCancelled (Result result) {
+        onCancelled();
+    }
+
+    protected void onCancelled () {}
+
+    public final AsyncTask<Params, Progress, Result> execute (Params... params) {
+        return executeOnExecutor(THREAD_POOL_EXECUTOR, params);
+    }
+
+    public final AsyncTask<Params, Progress, Result> executeOnExecutor (Executor exec, final Params... params) {
+        if (future != null)
+            throw new IllegalStateException("Cannot execute task: the task has already been executed");
+        onPreExecute();
+        future = new FutureTask<Result>(new Callable<Result>() {
+            @Override
+            public Result call () {
+                Result result = doInBackground(params);
+                if (cancelled)
+                    onCancelled(result);
+                else
+                    onPostExecute(result);
+                return result;
+            }
+        });
+        exec.execute(future);
+        return this;
+    }
+
+    public final Result get () throws InterruptedException, ExecutionException {
+        return future.get();
+    }
+
+    public final Result get (long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return future.get(timeout, unit);
+    }
+
+    public final boolean cancel (boolean mayInterruptIfRunning) {
+        cancelled = true;
+        return future != null && future.cancel(mayInterruptIfRunning);
+    }
+
+    public final boolean isCancelled () {
+        return cancelled;
+    }
+}
@@ -0,0 +1,36 @@
+package android.os;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/** JVM stand-in for android.os.Handler, used to run the parsing layer outside of Android.
+ * Every Handler posts to a single daemon thread standing in for the main thread.
+ *
+ * @version     %I%, %G%
+ */
+public class Handler {
+    private static final ScheduledExecutorService MAIN = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread (Runnable r) {
+            Thread t = new Thread(r, "main");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    public Handler () {}
+
+    public Handler (Looper looper) {}
+
+    public final boolean post (Runnable r) {
+        MAIN.execute(r);
+        return true;
+    }
+
+    public final boolean postDelayed (Runnable r, long delayMillis) {
+        MAIN.schedule(r, delayMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+}
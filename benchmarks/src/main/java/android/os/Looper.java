@@ -0,0 +1,16 @@
+package android.os;
+
+/** JVM stand-in for android.os.Looper, used to run the parsing layer outside of Android.
+ * Only the main Looper exists; Handlers post to the single thread standing in for it.
+ *
+ * @version     %I%, %G%
+ */
+public final class Looper {
+    private static final Looper MAIN = new Looper();
+
+    private Looper () {}
+
+    public static Looper getMainLooper () {
+        return MAIN;
+    }
+}
@@ -0,0 +1,30 @@
+package com.csc413.sfsu.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** The BenchmarkMain class runs the parsing benchmarks with the profilers every result is expected to carry:
+ * throughput is measured by each benchmark, allocation rate by the GC profiler and peak heap by PeakHeapProfiler.
+ * Any JMH command line option may be passed, e.g. a benchmark name pattern or {@code -p records=1000}.
+ *
+ * @version     %I%, %G%
+ */
+public class BenchmarkMain {
+    /** Constructor is private; this class only holds static members. */
+    private BenchmarkMain () {}
+
+    /** Runs the benchmarks.
+     *
+     * @param   args            JMH command line options
+     * @throws  Exception       if the options are invalid or a benchmark fails
+     */
+    public static void main (String [] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .addProfiler(PeakHeapProfiler.class)
+                .build()).run();
+    }
+}
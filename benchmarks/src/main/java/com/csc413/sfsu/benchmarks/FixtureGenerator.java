@@ -0,0 +1,283 @@
+package com.csc413.sfsu.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
+
+/** The FixtureGenerator class writes the payloads the benchmarks are run over.
+ * Records follow the hierarchy and value formats of the SFPark Availability REST Service API reference and of the
+ * San Francisco Crimespotting API, with a fixed seed so that the checked-in fixtures can be regenerated byte for byte.
+ * Every SFPark payload is written in both the XML and the JSON response format, holding identical records.
+ *
+ * Usage: {@code FixtureGenerator <output directory>}
+ *
+ * @version     %I%, %G%
+ */
+public class FixtureGenerator {
+    // PRIVATE DATA MEMBERS AND METHODS //
+    //
+    /** Seed of every generated payload */
+    private static final long SEED = 413L;
+    /** Bounds of the generated coordinates; roughly the SFPark pilot areas */
+    private static final double SOUTH = 37.7490, NORTH = 37.8080, WEST = -122.4420, EAST = -122.3930;
+
+    private static final String [] STREETS = {
+            "Mission St", "Valencia St", "Market St", "Howard St", "Folsom St", "Post St", "Geary St", "Sutter St",
+            "Bush St", "Pine St", "California St", "Columbus Ave", "Stockton St", "Powell St", "Fillmore St",
+            "Union St", "Chestnut St", "Lombard St", "Hayes St", "Grove St", "Polk St", "Van Ness Ave"
+    };
+    private static final String [] GARAGES = {
+            "Union Square Garage", "Sutter Stockton Garage", "Ellis O'Farrell Garage", "Fifth & Mission Garage",
+            "Performing Arts Garage", "Civic Center Garage", "Lombard Street Garage", "Moscone Center Garage",
+            "Mission Bartlett Garage", "Japan Center Garage", "North Beach Garage", "Portsmouth Square Garage"
+    };
+    private static final String MESSAGE =
+            "This is a list of on and off street parking available within a radius of 0.25 miles.";
+    private static final String TIMESTAMP = "2015-05-08T10:21:12.551-07:00";
+
+    /** One generated availability record */
+    private static class Record {
+        boolean onStreet;
+        int id;
+        String name, desc, inter, tel;
+        int occ, oper;
+        double [] loc;
+        String [][] ops;
+        String [][] rates;
+    }
+
+    private final Random random;
+
+    private FixtureGenerator () {
+        random = new Random(SEED);
+    }
+
+    private double coordinate (double min, double max) {
+        return Math.round((min + random.nextDouble() * (max - min)) * 1e13) / 1e13;
+    }
+
+    private Record record () {
+        Record r = new Record();
+        r.onStreet = random.nextInt(10) < 8;
+        if (r.onStreet) {
+            String street = STREETS[random.nextInt(STREETS.length)];
+            int block = (1 + random.nextInt(40)) * 100;
+            r.id = 100000 + random.nextInt(900000);
+            r.name = street;
+            r.desc = block + "-" + (block + 98) + " " + street;
+            r.inter = "";
+            r.tel = "";
+            r.oper = 2 + random.nextInt(14);
+            r.occ = random.nextInt(r.oper + 1);
+            double lat = coordinate(SOUTH, NORTH), lng = coordinate(WEST, EAST);
+            r.loc = new double[] {lng, lat, lng + 0.0008, lat + 0.0006};
+            r.ops = new String[0][];
+            r.rates = new String[][] {
+                    {"7:00 AM", "12:00 PM", String.valueOf(0.25 * (4 + random.nextInt(20))), "Per hour", ""},
+                    {"12:00 PM", "3:00 PM", String.valueOf(0.25 * (4 + random.nextInt(20))), "Per hour", ""},
+                    {"3:00 PM", "6:00 PM", String.valueOf(0.25 * (4 + random.nextInt(20))), "Per hour", ""},
+                    {"6:00 PM", "7:00 AM", "0", "No charge", "Street Cleaning Sun 2am-6am"}
+            };
+        } else {
+            r.id = 900 + random.nextInt(100);
+            r.name = GARAGES[random.nextInt(GARAGES.length)];
+            r.desc = (100 + random.nextInt(900)) + " " + STREETS[random.nextInt(STREETS.length)];
+            r.inter = STREETS[random.nextInt(STREETS.length)] + " between " + STREETS[random.nextInt(STREETS.length)]
+                    + " & " + STREETS[random.nextInt(STREETS.length)];
+            r.tel = "(415) " + (200 + random.nextInt(800)) + "-" + (1000 + random.nextInt(9000));
+            r.oper = 100 + random.nextInt(1400);
+            r.occ = random.nextInt(r.oper + 1);
+            r.loc = new double[] {coordinate(WEST, EAST), coordinate(SOUTH, NORTH)};
+            r.ops = new String[][] {
+                    {"Mon", "Fri", "6:00 AM", "12:00 AM"},
+                    {"Sat", "Sun", "7:00 AM", "11:00 PM"}
+            };
+            r.rates = new String[][] {
+                    {"12:00 AM", "3:00 AM", String.valueOf(1 + random.nextInt(4)), "Per hour", ""},
+                    {"3:00 AM", "6:00 AM", String.valueOf(1 + random.nextInt(4)), "Per hour", ""},
+                    {"Daily Max", "", String.valueOf(20 + random.nextInt(20)), "Flat rate", ""},
+                    {"Early Bird", "", "15", "Flat rate", "In by 9:30 AM, out by 6:00 PM"}
+            };
+        }
+        return r;
+    }
+
+    private static String loc (double [] loc) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < loc.length; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append(loc[i]);
+        }
+        return sb.toString();
+    }
+
+    private static String xml (String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String json (String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static void tag (StringBuilder sb, String name, String value) {
+        if (!value.isEmpty())
+            sb.append('<').append(name).append('>').append(xml(value)).append("</").append(name).append('>');
+    }
+
+    private static void member (StringBuilder sb, String name, String value) {
+        if (!value.isEmpty())
+            sb.append(",\"").append(name).append("\":\"").append(json(value)).append('"');
+    }
+
+    private static String toXML (Record [] records) {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<SFP_AVAILABILITY>");
+        tag(sb, "STATUS", "SUCCESS");
+        tag(sb, "NUM_RECORDS", String.valueOf(records.length));
+        tag(sb, "MESSAGE", MESSAGE);
+        tag(sb, "AVAILABILITY_REQUEST_TIMESTAMP", TIMESTAMP);
+        tag(sb, "AVAILABILITY_UPDATED_TIMESTAMP", TIMESTAMP);
+        for (Record r : records) {
+            sb.append("\n<AVL>");
+            tag(sb, "TYPE", r.onStreet ? "ON" : "OFF");
+            tag(sb, r.onStreet ? "BFID" : "OSPID", String.valueOf(r.id));
+            tag(sb, "NAME", r.name);
+            tag(sb, "DESC", r.desc);
+            tag(sb, "INTER", r.inter);
+            tag(sb, "TEL", r.tel);
+            tag(sb, "OCC", String.valueOf(r.occ));
+            tag(sb, "OPER", String.valueOf(r.oper));
+            tag(sb, "PTS", String.valueOf(r.loc.length / 2));
+            tag(sb, "LOC", loc(r.loc));
+            if (r.ops.length > 0) {
+                sb.append("<OPHRS>");
+                for (String [] ops : r.ops) {
+                    sb.append("<OPS>");
+                    tag(sb, "FROM", ops[0]);
+                    tag(sb, "TO", ops[1]);
+                    tag(sb, "BEG", ops[2]);
+                    tag(sb, "END", ops[3]);
+                    sb.append("</OPS>");
+                }
+                sb.append("</OPHRS>");
+            }
+            sb.append("<RATES>");
+            for (String [] rs : r.rates) {
+                sb.append("<RS>");
+                tag(sb, "BEG", rs[0]);
+                tag(sb, "END", rs[1]);
+                tag(sb, "RATE", rs[2]);
+                tag(sb, "RQ", rs[3]);
+                tag(sb, "RR", rs[4]);
+                sb.append("</RS>");
+            }
+            sb.append("</RATES></AVL>");
+        }
+        return sb.append("\n</SFP_AVAILABILITY>\n").toString();
+    }
+
+    private static String toJSON (Record [] records) {
+        StringBuilder sb = new StringBuilder("{\"STATUS\":\"SUCCESS\"");
+        member(sb, "NUM_RECORDS", String.valueOf(records.length));
+        member(sb, "MESSAGE", MESSAGE);
+        member(sb, "AVAILABILITY_REQUEST_TIMESTAMP", TIMESTAMP);
+        member(sb, "AVAILABILITY_UPDATED_TIMESTAMP", TIMESTAMP);
+        sb.append(",\"AVL\":[");
+        for (int i = 0; i < records.length; i++) {
+            Record r = records[i];
+            sb.append(i > 0 ? ",\n{" : "\n{").append("\"TYPE\":\"").append(r.onStreet ? "ON" : "OFF").append('"');
+            member(sb, r.onStreet ? "BFID" : "OSPID", String.valueOf(r.id));
+            member(sb, "NAME", r.name);
+            member(sb, "DESC", r.desc);
+            member(sb, "INTER", r.inter);
+            member(sb, "TEL", r.tel);
+            member(sb, "OCC", String.valueOf(r.occ));
+            member(sb, "OPER", String.valueOf(r.oper));
+            member(sb, "PTS", String.valueOf(r.loc.length / 2));
+            member(sb, "LOC", loc(r.loc));
+            if (r.ops.length > 0) {
+                sb.append(",\"OPHRS\":{\"OPS\":[");
+                for (int j = 0; j < r.ops.length; j++) {
+                    String [] ops = r.ops[j];
+                    sb.append(j > 0 ? ",{" : "{").append("\"FROM\":\"").append(json(ops[0])).append('"');
+                    member(sb, "TO", ops[1]);
+                    member(sb, "BEG", ops[2]);
+                    member(sb, "END", ops[3]);
+                    sb.append('}');
+                }
+                sb.append("]}");
+            }
+            sb.append(",\"RATES\":{\"RS\":[");
+            for (int j = 0; j < r.rates.length; j++) {
+                String [] rs = r.rates[j];
+                sb.append(j > 0 ? ",{" : "{").append("\"BEG\":\"").append(json(rs[0])).append('"');
+                member(sb, "END", rs[1]);
+                member(sb, "RATE", rs[2]);
+                member(sb, "RQ", rs[3]);
+                member(sb, "RR", rs[4]);
+                sb.append('}');
+            }
+            sb.append("]}}");
+        }
+        return sb.append("\n]}\n").toString();
+    }
+
+    private String crimeReports (int count) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, MMM d, yyyy", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("America/Los_Angeles"));
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("America/Los_Angeles"), Locale.US);
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<reports>");
+        for (int i = 0; i < count; i++) {
+            calendar.clear();
+            calendar.set(2011 + random.nextInt(4), random.nextInt(12), 1 + random.nextInt(28));
+            int hour = 1 + random.nextInt(12);
+            sb.append("\n<report case_number=\"").append(110000000 + random.nextInt(40000000))
+                    .append("\" crime_type=\"VEHICLE THEFT\" date=\"").append(format.format(calendar.getTime()))
+                    .append("\" time=\"").append(hour).append(':').append(String.format("%02d", random.nextInt(60)))
+                    .append(random.nextBoolean() ? "am" : "pm")
+                    .append("\" lat=\"").append(coordinate(SOUTH, NORTH))
+                    .append("\" lon=\"").append(coordinate(WEST, EAST))
+                    .append("\" description=\"STOLEN AUTOMOBILE\"/>");
+        }
+        return sb.append("\n</reports>\n").toString();
+    }
+
+    private static void write (File dir, String name, String payload) throws IOException {
+        Writer out = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(new File(dir, name))), "UTF-8");
+        try {
+            out.write(payload);
+        } finally {
+            out.close();
+        }
+    }
+
+    // PUBLIC METHODS //
+    //
+    /** Writes every fixture to a directory.
+     *
+     * @param   args            the output directory as the only argument
+     * @throws  IOException     if a fixture could not be written
+     */
+    public static void main (String [] args) throws IOException {
+        File dir = new File(args[0]);
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Cannot create " + dir);
+        FixtureGenerator generator = new FixtureGenerator();
+        for (int size : Fixtures.SIZES) {
+            Record [] records = new Record[size];
+            for (int i = 0; i < size; i++)
+                records[i] = generator.record();
+            write(dir, Fixtures.availability(size, "XML"), toXML(records));
+            write(dir, Fixtures.availability(size, "JSON"), toJSON(records));
+            write(dir, Fixtures.crime(size), generator.crimeReports(size));
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.csc413.sfsu.benchmarks;
+
+import com.csc413.sfsu.sfpark_simplified.Endpoints;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/** The FixtureReplayServer class is a local stand-in for the SFPark Availability and San Francisco Crimespotting
+ * services. It answers every query with a recorded fixture payload after a configurable latency with uniform jitter,
+ * and fails a configurable fraction of requests with 503 Service Unavailable, so that the clients can be driven
+ * offline at high request rates with repeatable results.
+ *
+ * Availability queries are answered in the format named by their RESPONSE parameter. Crime queries with a count
+ * parameter are answered with that page of the reports, from their offset parameter, so that paginated retrieval
+ * stops where the payload ends. Crime queries with a dend parameter are answered with the reports dated from their
+ * dstart to their dend parameter inclusive, so that queries split by date each get their own share of the reports; a
+ * dstart parameter alone is ignored, since the recorded reports predate the clients' default start date. Payloads
+ * are served
+ * gzip-compressed to clients which accept it, and carry an ETag, so conditional requests are answered with
+ * 304 Not Modified as the live services may.
+ *
+ * Run standalone with {@code java FixtureReplayServer [port [latency [jitter [errorRate]]]]}, latency and jitter in
+ * milliseconds, or start it in-process and point the clients at it with {@code useForEndpoints}.
+ *
+ * @version     %I%, %G%
+ */
+public class FixtureReplayServer {
+    /** The path of the availability service, as on the live service */
+    public static final String SFPARK_PATH = "/sfpark/rest/availabilityservice";
+    /** The path of the crime service, as on the live service */
+    public static final String CRIMESPOTTING_PATH = "/crime-data";
+    /** The ETag of every payload; payloads never change while the server runs */
+    private static final String ETAG = "\"fixture\"";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Random random;
+    private volatile int latency;
+    private volatile int jitter;
+    private volatile double errorRate;
+    private volatile int availabilitySize = 100;
+    private volatile int crimeSize = 100;
+    /** Payloads already read, by resource name */
+    private final ConcurrentHashMap<String, Payload> payloads = new ConcurrentHashMap<String, Payload>();
+
+    /** The Payload class is a fixture payload, held both expanded and compressed.
+     */
+    private static final class Payload {
+        final byte [] plain;
+        final byte [] gzip;
+        final String contentType;
+
+        Payload (String name, String contentType) throws IOException {
+            this.plain = Fixtures.bytes(name);
+            this.gzip = Fixtures.compressed(name);
+            this.contentType = contentType;
+        }
+
+        Payload (byte [] plain, String contentType) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+            gzipOut.write(plain);
+            gzipOut.close();
+            this.plain = plain;
+            this.gzip = out.toByteArray();
+            this.contentType = contentType;
+        }
+    }
+
+    /** Creates a server listening on a local port; it does not answer until started.
+     *
+     * @param   port            the port to listen on, or 0 for any free port
+     * @param   seed            the seed of the latency and error draws
+     * @throws  IOException     if the port could not be bound
+     */
+    public FixtureReplayServer (int port, long seed) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 256);
+        executor = Executors.newCachedThreadPool();
+        random = new Random(seed);
+        server.setExecutor(executor);
+        server.createContext(SFPARK_PATH, new HttpHandler() {
+            @Override
+            public void handle (HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getRawQuery();
+                boolean json = query != null && query.toUpperCase().contains("RESPONSE=JSON");
+                replay(exchange, json
+                        ? payload(Fixtures.availability(availabilitySize, "JSON"), "application/json")
+                        : payload(Fixtures.availability(availabilitySize, "XML"), "text/xml"));
+            }
+        });
+        server.createContext(CRIMESPOTTING_PATH, new HttpHandler() {
+            @Override
+            public void handle (HttpExchange exchange) throws IOException {
+                String query = exchange.getRequestURI().getRawQuery();
+                int count = parameter(query, "count", -1);
+                String end = text(query, "dend");
+                String start = end == null ? null : text(query, "dstart");
+                replay(exchange, count < 0 && end == null
+                        ? payload(Fixtures.crime(crimeSize), "text/xml")
+                        : page(Fixtures.crime(crimeSize), start, end, parameter(query, "offset", 0),
+                                count < 0 ? Integer.MAX_VALUE : count));
+            }
+        });
+    }
+
+    /** Returns a payload, reading it on first use.
+     *
+     * @param   name            the resource name of the payload
+     * @param   contentType     the content type of the payload
+     * @return  the payload
+     * @throws  IOException     if the payload does not exist or could not be read
+     */
+    private Payload payload (String name, String contentType) throws IOException {
+        Payload payload = payloads.get(name);
+        if (payload == null) {
+            payload = new Payload(name, contentType);
+            payloads.putIfAbsent(name, payload);
+        }
+        return payload;
+    }
+
+    /** Returns one page of the reports of a crime payload dated within a period, slicing it on first use.
+     *
+     * @param   name            the resource name of the crime payload
+     * @param   start           the first date of the period in the form YYYY-MM-DD, or null for no bound
+     * @param   end             the last date of the period in the form YYYY-MM-DD, or null for no bound
+     * @param   offset          the index of the first report of the page, among those of the period
+     * @param   count           the number of reports of the page
+     * @return  the payload of the page; empty of reports if the offset is past the last report
+     * @throws  IOException     if the payload does not exist or could not be read
+     */
+    private Payload page (String name, String start, String end, int offset, int count) throws IOException {
+        String key = name + "#" + start + "," + end + "," + offset + "," + count;
+        Payload page = payloads.get(key);
+        if (page == null) {
+            String xml = new String(payload(name, "text/xml").plain, "UTF-8");
+            Date from = date(start, "yyyy-MM-dd"), to = date(end, "yyyy-MM-dd");
+            int close = xml.lastIndexOf("</reports>");
+            int at = xml.indexOf("<report ");
+            if (at < 0)
+                at = close;
+            StringBuilder sb = new StringBuilder().append(xml, 0, at);
+            for (int i = 0; at < close && i < (long)offset + count; ) {
+                int next = xml.indexOf("<report ", at + 1);
+                if (next < 0 || next > close)
+                    next = close;
+                int quote = xml.indexOf(" date=\"", at) + 7;
+                Date date = date(xml.substring(quote, xml.indexOf('"', quote)), "EEE, MMM d, yyyy");
+                if ((from == null || !date.before(from)) && (to == null || !date.after(to))) {
+                    if (i >= offset)
+                        sb.append(xml, at, next);
+                    i++;
+                }
+                at = next;
+            }
+            sb.append(xml, close, xml.length());
+            page = new Payload(sb.toString().getBytes("UTF-8"), "text/xml");
+            payloads.putIfAbsent(key, page);
+        }
+        return page;
+    }
+
+    /** Parses a date.
+     *
+     * @param   text            the date, or null
+     * @param   pattern         the SimpleDateFormat pattern of the date
+     * @return  the date, or null if text is null
+     * @throws  IOException     if the date could not be parsed
+     */
+    private static Date date (String text, String pattern) throws IOException {
+        if (text == null)
+            return null;
+        try {
+            return new SimpleDateFormat(pattern, Locale.US).parse(text);
+        } catch (ParseException e) {
+            throw new IOException("Bad date " + text, e);
+        }
+    }
+
+    /** Returns the value of a query parameter.
+     *
+     * @param   query       the raw query string, or null
+     * @param   name        the name of the parameter
+     * @return  the value of the parameter, or null if it is missing
+     */
+    private static String text (String query, String name) {
+        if (query == null)
+            return null;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "="))
+                return pair.substring(name.length() + 1);
+        }
+        return null;
+    }
+
+    /** Returns the value of an integer query parameter.
+     *
+     * @param   query       the raw query string, or null
+     * @param   name        the name of the parameter
+     * @param   fallback    the value if the parameter is missing or not an integer
+     * @return  the value of the parameter
+     */
+    private static int parameter (String query, String name, int fallback) {
+        if (query == null)
+            return fallback;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                try {
+                    return Integer.parseInt(pair.substring(name.length() + 1));
+                } catch (NumberFormatException e) {
+                    return fallback;
+                }
+            }
+        }
+        return fallback;
+    }
+
+    /** Answers a request with a payload, after the configured delay, or with an error.
+     *
+     * @param   exchange        the request
+     * @param   payload         the payload to answer with
+     * @throws  IOException     if the answer could not be written
+     */
+    private void replay (HttpExchange exchange, Payload payload) throws IOException {
+        try {
+            long delay;
+            boolean fail;
+            synchronized (random) {
+                delay = latency + (jitter > 0 ? random.nextInt(jitter + 1) : 0);
+                fail = random.nextDouble() < errorRate;
+            }
+            if (delay > 0)
+                Thread.sleep(delay);
+            if (fail) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = accept != null && accept.contains("gzip");
+            byte [] body = gzip ? payload.gzip : payload.plain;
+            exchange.getResponseHeaders().set("Content-Type", payload.contentType);
+            if (gzip)
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body);
+            out.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /** Sets the base latency of every answer.
+     *
+     * @param   millis  the latency in milliseconds
+     * @return  this server
+     */
+    public FixtureReplayServer setLatency (int millis) {
+        latency = millis;
+        return this;
+    }
+
+    /** Sets the jitter added to the latency of every answer, drawn uniformly between 0 and the given value.
+     *
+     * @param   millis  the maximum jitter in milliseconds
+     * @return  this server
+     */
+    public FixtureReplayServer setJitter (int millis) {
+        jitter = millis;
+        return this;
+    }
+
+    /** Sets the fraction of requests failed with 503 Service Unavailable.
+     *
+     * @param   rate    the error rate, between 0 and 1
+     * @return  this server
+     */
+    public FixtureReplayServer setErrorRate (double rate) {
+        errorRate = rate;
+        return this;
+    }
+
+    /** Sets the number of records of the availability payload.
+     *
+     * @param   size    one of Fixtures.SIZES
+     * @return  this server
+     */
+    public FixtureReplayServer setAvailabilitySize (int size) {
+        availabilitySize = size;
+        return this;
+    }
+
+    /** Sets the number of reports of the crime payload.
+     *
+     * @param   size    one of Fixtures.SIZES
+     * @return  this server
+     */
+    public FixtureReplayServer setCrimeSize (int size) {
+        crimeSize = size;
+        return this;
+    }
+
+    /** Starts answering requests.
+     *
+     * @return  this server
+     */
+    public FixtureReplayServer start () {
+        server.start();
+        return this;
+    }
+
+    /** Stops answering requests and releases the port. */
+    public void stop () {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /** Returns the base URL of the server.
+     *
+     * @return  a URL of the form http://127.0.0.1:port
+     */
+    public String url () {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** Points the clients at this server. Call {@code Endpoints.reset()} to restore the live services. */
+    public void useForEndpoints () {
+        Endpoints.setSFPark(url() + SFPARK_PATH);
+        Endpoints.setCrimespotting(url() + CRIMESPOTTING_PATH);
+    }
+
+    /** Runs the server until the process is stopped.
+     *
+     * @param   args            the port, latency and jitter in milliseconds, and error rate; all optional
+     * @throws  IOException     if the port could not be bound
+     */
+    public static void main (String [] args) throws IOException {
+        FixtureReplayServer server = new FixtureReplayServer(args.length > 0 ? Integer.parseInt(args[0]) : 8413, 413)
+                .setLatency(args.length > 1 ? Integer.parseInt(args[1]) : 0)
+                .setJitter(args.length > 2 ? Integer.parseInt(args[2]) : 0)
+                .setErrorRate(args.length > 3 ? Double.parseDouble(args[3]) : 0)
+                .start();
+        System.out.println("Replaying fixtures at " + server.url() + SFPARK_PATH + " and "
+                + server.url() + CRIMESPOTTING_PATH);
+    }
+}
@@ -0,0 +1,125 @@
+package com.csc413.sfsu.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/** The Fixtures class locates the checked-in payloads the benchmarks are run over.
+ * Payloads are stored gzipped under the fixtures resource directory and are expanded into temporary files, which
+ * stand in for the remote endpoints: the parsers under test read them through {@code file:} URLs exactly as they
+ * would read a network response.
+ *
+ * @version     %I%, %G%
+ */
+public final class Fixtures {
+    /** The number of records of each fixture */
+    public static final int [] SIZES = {10, 100, 1000, 10000};
+
+    /** Constructor is private; this class only holds static members. */
+    private Fixtures () {}
+
+    /** Returns the resource name of a SFPark Availability payload.
+     *
+     * @param   size    the number of records
+     * @param   format  the response format, XML or JSON
+     * @return  the resource name
+     */
+    public static String availability (int size, String format) {
+        return "sfpark-availability-" + size + "." + format.toLowerCase() + ".gz";
+    }
+
+    /** Returns the resource name of a San Francisco Crimespotting payload.
+     *
+     * @param   size    the number of reports
+     * @return  the resource name
+     */
+    public static String crime (int size) {
+        return "crimespotting-reports-" + size + ".xml.gz";
+    }
+
+    /** Reads an expanded payload into memory.
+     *
+     * @param   name            the resource name of the payload
+     * @return  the bytes of the expanded payload
+     * @throws  IOException     if the payload does not exist or could not be read
+     */
+    public static byte [] bytes (String name) throws IOException {
+        InputStream resource = Fixtures.class.getResourceAsStream("/fixtures/" + name);
+        if (resource == null)
+            throw new IOException("No such fixture: " + name);
+        InputStream in = new GZIPInputStream(resource);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte [] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+                out.write(buffer, 0, n);
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Reads a payload into memory as stored, gzip-compressed.
+     *
+     * @param   name            the resource name of the payload
+     * @return  the gzip-compressed bytes of the payload
+     * @throws  IOException     if the payload does not exist or could not be read
+     */
+    public static byte [] compressed (String name) throws IOException {
+        InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name);
+        if (in == null)
+            throw new IOException("No such fixture: " + name);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte [] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+                out.write(buffer, 0, n);
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Returns the text of every occurrence of a leaf element in an XML payload, in document order.
+     *
+     * @param   name            the resource name of the payload
+     * @param   tag             the tag name of the leaf element
+     * @return  the text of each occurrence
+     * @throws  IOException     if the payload does not exist or could not be read
+     */
+    public static String [] values (String name, String tag) throws IOException {
+        Matcher m = Pattern.compile("<" + tag + ">([^<]*)</" + tag + ">").matcher(new String(bytes(name), "UTF-8"));
+        List<String> values = new ArrayList<String>();
+        while (m.find())
+            values.add(m.group(1));
+        return values.toArray(new String[values.size()]);
+    }
+
+    /** Expands a payload into a temporary file, deleted when the JVM exits.
+     *
+     * @param   name            the resource name of the payload
+     * @return  a {@code file:} URL of the expanded payload, usable wherever a query URL is expected
+     * @throws  IOException     if the payload does not exist or could not be written
+     */
+    public static String url (String name) throws IOException {
+        File file = File.createTempFile(name.substring(0, name.indexOf('.')), ".payload");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes(name));
+        } finally {
+            out.close();
+        }
+        return file.toURI().toURL().toString();
+    }
+}
@@ -0,0 +1,202 @@
+package com.csc413.sfsu.benchmarks;
+
+import com.csc413.sfsu.sf_vehicle_crime.SFCrimeHandler;
+import com.csc413.sfsu.sfpark_simplified.AVLElement;
+import com.csc413.sfsu.sfpark_simplified.AvlRecordConsumer;
+import com.csc413.sfsu.sfpark_simplified.EndpointHealth;
+import com.csc413.sfsu.sfpark_simplified.Endpoints;
+import com.csc413.sfsu.sfpark_simplified.InFlightRequests;
+import com.csc413.sfsu.sfpark_simplified.RequestExecutor;
+import com.csc413.sfsu.sfpark_simplified.SFParkQuery;
+import com.csc413.sfsu.sfpark_simplified.SFParkXMLResponse;
+import com.google.android.gms.maps.model.LatLng;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** The LoadTest class drives the SFPark and Crimespotting clients against a FixtureReplayServer and reports
+ * throughput and latency percentiles.
+ * Each search does what SFParkLocationFactory.getParkingLocations does over the network: an availability query
+ * whose records are handed to a consumer as they are parsed, alongside a crime query around the same origin.
+ * Origins are drawn from a small fixed set, so identical queries overlap as they do when a user drags the marker
+ * back and forth.
+ *
+ * Searches are started at a fixed rate, and each search's latency is measured from the time it was due to start
+ * rather than from when a client got to it, so a backlog shows up in the percentiles. With a rate of 0 the clients
+ * run searches back to back instead.
+ *
+ * Options are given as name=value pairs:
+ *  searches    the number of searches (default 2000)
+ *  clients     the number of client threads (default 16)
+ *  rate        searches started per second, or 0 (default 200)
+ *  origins     the number of distinct origins (default 25)
+ *  records     the records per availability response, one of Fixtures.SIZES (default 100)
+ *  latency     the server's latency in milliseconds (default 20)
+ *  jitter      the server's maximum jitter in milliseconds (default 30)
+ *  errors      the fraction of requests the server fails (default 0)
+ *  seed        the seed of the server and of the origin draws (default 413)
+ *
+ * @version     %I%, %G%
+ */
+public class LoadTest {
+    /** The center of the origins drawn, in downtown San Francisco */
+    private static final double LATITUDE = 37.7833, LONGITUDE = -122.4167;
+    /** The spread in degrees of the origins drawn */
+    private static final double SPREAD = 0.02;
+    /** The search radius in miles, as used by the app */
+    private static final double RADIUS = 0.25;
+
+    /** Constructor is private; this class only holds static members. */
+    private LoadTest () {}
+
+    /** Runs one search.
+     *
+     * @param   origin      the center of the search
+     * @return  null if the search succeeded, or the status of the failure
+     */
+    private static String search (final LatLng origin) {
+        Future<Boolean> crime;
+        try {
+            crime = RequestExecutor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call () {
+                    return new SFCrimeHandler().generateReports(origin, .05, 2011, 100, 0);
+                }
+            });
+        } catch (RuntimeException e) {
+            return "CRIME " + e.getClass().getSimpleName();
+        }
+        SFParkQuery.Builder builder = new SFParkQuery.Builder();
+        builder.setLatitude(origin.latitude);
+        builder.setLongitude(origin.longitude);
+        builder.setRadius(RADIUS);
+        builder.setUnitOfMeasurement("MILE");
+        builder.setResponseFormat("JSON");
+        SFParkQuery query = builder.build();
+        final int [] records = new int[1];
+        SFParkXMLResponse response = new SFParkXMLResponse();
+        boolean available = response.populate(query, new AvlRecordConsumer() {
+            @Override
+            public void onRecord (AVLElement avl) {
+                records[0]++;
+            }
+        });
+        try {
+            if (!crime.get())
+                return "CRIME FAILED";
+        } catch (Exception e) {
+            return "CRIME " + e.getClass().getSimpleName();
+        }
+        return available ? null : "SFPARK " + response.status();
+    }
+
+    /** Runs the load test.
+     *
+     * @param   args            options as name=value pairs
+     * @throws  Exception       if the server could not be started
+     */
+    public static void main (String [] args) throws Exception {
+        Map<String, String> options = new HashMap<String, String>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        final int searches = Integer.parseInt(option(options, "searches", "2000"));
+        int clients = Integer.parseInt(option(options, "clients", "16"));
+        double rate = Double.parseDouble(option(options, "rate", "200"));
+        int origins = Integer.parseInt(option(options, "origins", "25"));
+        long seed = Long.parseLong(option(options, "seed", "413"));
+
+        FixtureReplayServer server = new FixtureReplayServer(0, seed)
+                .setAvailabilitySize(Integer.parseInt(option(options, "records", "100")))
+                .setLatency(Integer.parseInt(option(options, "latency", "20")))
+                .setJitter(Integer.parseInt(option(options, "jitter", "30")))
+                .setErrorRate(Double.parseDouble(option(options, "errors", "0")))
+                .start();
+        server.useForEndpoints();
+
+        Random random = new Random(seed);
+        final LatLng [] points = new LatLng[origins];
+        for (int i = 0; i < origins; i++)
+            points[i] = new LatLng(LATITUDE + (random.nextDouble() - 0.5) * SPREAD,
+                    LONGITUDE + (random.nextDouble() - 0.5) * SPREAD);
+        final int [] draws = new int[searches];
+        for (int i = 0; i < searches; i++)
+            draws[i] = random.nextInt(origins);
+
+        final long [] latencies = new long[searches];
+        final String [] failures = new String[searches];
+        final AtomicInteger next = new AtomicInteger();
+        final long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        final long start = System.nanoTime();
+        Thread [] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run () {
+                    int i;
+                    while ((i = next.getAndIncrement()) < searches) {
+                        long due = interval > 0 ? start + i * interval : System.nanoTime();
+                        long wait = due - System.nanoTime();
+                        if (wait > 0) {
+                            try {
+                                TimeUnit.NANOSECONDS.sleep(wait);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                        failures[i] = search(points[draws[i]]);
+                        latencies[i] = System.nanoTime() - due;
+                    }
+                }
+            }, "load-" + t);
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        long elapsed = System.nanoTime() - start;
+        server.stop();
+        Endpoints.reset();
+
+        Map<String, Integer> statuses = new HashMap<String, Integer>();
+        int failed = 0;
+        for (String failure : failures) {
+            if (failure != null) {
+                failed++;
+                Integer count = statuses.get(failure);
+                statuses.put(failure, count == null ? 1 : count + 1);
+            }
+        }
+        long [] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        String host = new URL(server.url()).getAuthority();
+        EndpointHealth health = EndpointHealth.forHost(host);
+        System.out.printf("searches    %d in %.2f s, %.1f/s (target %s)%n", searches, elapsed / 1e9,
+                searches / (elapsed / 1e9), rate > 0 ? rate + "/s" : "closed loop");
+        System.out.printf("latency ms  p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 99.9),
+                sorted[sorted.length - 1] / 1e6);
+        System.out.printf("failed      %d %s%n", failed, statuses);
+        System.out.printf("network     %d requests, %d coalesced, %d hedged, circuit %s%n",
+                InFlightRequests.requestCount(), InFlightRequests.coalescedCount(), health.hedgeCount(),
+                health.state());
+    }
+
+    /** Returns an option, or its default. */
+    private static String option (Map<String, String> options, String name, String value) {
+        return options.containsKey(name) ? options.get(name) : value;
+    }
+
+    /** Returns a percentile of sorted latencies in milliseconds. */
+    private static double percentile (long [] sorted, double p) {
+        int index = (int) Math.ceil(p / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+}
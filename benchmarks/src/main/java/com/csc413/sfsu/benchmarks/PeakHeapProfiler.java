@@ -0,0 +1,46 @@
+package com.csc413.sfsu.benchmarks;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Collection;
+import java.util.Collections;
+
+/** The PeakHeapProfiler class reports the peak heap occupancy reached during each benchmark iteration.
+ * The peak usage of every heap memory pool is reset before an iteration and summed after it; as pools do not
+ * peak at the same instant, the result is an upper bound of the true peak. The largest iteration is reported.
+ *
+ * @version     %I%, %G%
+ */
+public class PeakHeapProfiler implements InternalProfiler {
+    @Override
+    public String getDescription () {
+        return "Peak heap occupancy per iteration";
+    }
+
+    @Override
+    public void beforeIteration (BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration (BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                        IterationResult result) {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        return Collections.singletonList(
+                new ScalarResult("\u00b7heap.peak", peak / (1024.0 * 1024.0), "MB", AggregationPolicy.MAX));
+    }
+}
@@ -0,0 +1,64 @@
+package com.csc413.sfsu.sf_vehicle_crime;
+
+import com.csc413.sfsu.benchmarks.Fixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks SFCrimeXMLResponse over San Francisco Crimespotting payloads, read through a {@code file:} URL
+ * standing in for the service.
+ *
+ * @version     %I%, %G%
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SFCrimeXMLResponseBenchmark {
+    /** The number of reports of the payload */
+    @Param({"10", "100", "1000", "10000"})
+    public int records;
+
+    private String url;
+    /** A response populated with the payload, for the benchmarks of stored reports */
+    private SFCrimeXMLResponse populated;
+    private int fromDay;
+    private int toDay;
+
+    @Setup
+    public void setUp () throws IOException {
+        url = Fixtures.url(Fixtures.crime(records));
+        populated = new SFCrimeXMLResponse();
+        if (!populated.populate(url))
+            throw new IllegalStateException(populated.status());
+        fromDay = CrimeDates.epochDay(2013, 1, 1);
+        toDay = CrimeDates.epochDay(2013, 12, 31);
+    }
+
+    @Benchmark
+    public Object populate () {
+        SFCrimeXMLResponse response = new SFCrimeXMLResponse();
+        if (!response.populate(url))
+            throw new IllegalStateException(response.status());
+        return response;
+    }
+
+    @Benchmark
+    public int countBetween () {
+        return populated.countBetween(fromDay, toDay);
+    }
+}
@@ -0,0 +1,49 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import com.csc413.sfsu.benchmarks.Fixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks decoding of the LOC values of a SFPark Availability payload with {@code new SFParkLocation(String)}.
+ * Each invocation decodes every LOC value of the payload.
+ *
+ * @version     %I%, %G%
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SFParkLocationBenchmark {
+    /** The number of records of the payload */
+    @Param({"10", "100", "1000", "10000"})
+    public int records;
+
+    private String [] locs;
+
+    @Setup
+    public void setUp () throws IOException {
+        locs = Fixtures.values(Fixtures.availability(records, "XML"), "LOC");
+    }
+
+    @Benchmark
+    public void decode (Blackhole bh) {
+        for (String loc : locs)
+            bh.consume(new SFParkLocation(loc));
+    }
+}
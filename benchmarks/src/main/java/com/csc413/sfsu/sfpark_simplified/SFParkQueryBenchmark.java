@@ -0,0 +1,64 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import com.csc413.sfsu.benchmarks.Fixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks building SFParkQuery URLs, one query centered on the first point of each record of a
+ * SFPark Availability payload.
+ *
+ * @version     %I%, %G%
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SFParkQueryBenchmark {
+    /** The number of records of the payload */
+    @Param({"10", "100", "1000", "10000"})
+    public int records;
+
+    private double [] lat;
+    private double [] lng;
+
+    @Setup
+    public void setUp () throws IOException {
+        String [] locs = Fixtures.values(Fixtures.availability(records, "XML"), "LOC");
+        lat = new double[locs.length];
+        lng = new double[locs.length];
+        for (int i = 0; i < locs.length; i++) {
+            SFParkLocation loc = new SFParkLocation(locs[i]);
+            lat[i] = loc.latitude(0);
+            lng[i] = loc.longitude(0);
+        }
+    }
+
+    @Benchmark
+    public void build (Blackhole bh) {
+        for (int i = 0; i < lat.length; i++) {
+            SFParkQuery.Builder builder = new SFParkQuery.Builder();
+            builder.setLocation(lat[i], lng[i]);
+            builder.setRadius(0.25);
+            builder.setUnitOfMeasurement("MILE");
+            builder.setParkingType("ALL");
+            builder.setResponseFormat("JSON");
+            bh.consume(builder.build().toString());
+        }
+    }
+}
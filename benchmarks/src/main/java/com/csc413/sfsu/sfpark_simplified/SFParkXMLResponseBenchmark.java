@@ -0,0 +1,73 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import com.csc413.sfsu.benchmarks.Fixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Benchmarks SFParkXMLResponse over SFPark Availability payloads in both response formats.
+ * {@code populate} measures the full path through a {@code file:} URL standing in for the service; the
+ * {@code parse} benchmarks measure the parser alone over an in-memory payload.
+ *
+ * @version     %I%, %G%
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SFParkXMLResponseBenchmark {
+    /** The number of records of the payload */
+    @Param({"10", "100", "1000", "10000"})
+    public int records;
+    /** The response format of the payload */
+    @Param({"XML", "JSON"})
+    public String format;
+
+    private String url;
+    private byte [] payload;
+
+    @Setup
+    public void setUp () throws IOException {
+        String name = Fixtures.availability(records, format);
+        url = Fixtures.url(name);
+        payload = Fixtures.bytes(name);
+    }
+
+    @Benchmark
+    public SFParkXMLResponse populate () {
+        SFParkXMLResponse response = new SFParkXMLResponse();
+        if (!response.populate(url))
+            throw new IllegalStateException(response.status());
+        return response;
+    }
+
+    @Benchmark
+    public SFParkXMLResponse parse () throws Exception {
+        SFParkXMLResponse response = new SFParkXMLResponse();
+        response.parse(new ByteArrayInputStream(payload), null, null);
+        return response;
+    }
+
+    @Benchmark
+    public SFParkSnapshot parseSnapshot () throws Exception {
+        SFParkXMLResponse response = new SFParkXMLResponse();
+        SFParkSnapshot.Builder columns = new SFParkSnapshot.Builder();
+        response.parse(new ByteArrayInputStream(payload), columns, null);
+        return columns.build(response.availabilityUpdatedTimeStamp());
+    }
+}
@@ -0,0 +1,40 @@
+package com.google.android.gms.maps.model;
+
+/** JVM stand-in for the Google Play Services LatLng class, which is only distributed as an Android library.
+ *
+ * @version     %I%, %G%
+ */
+public final class LatLng {
+    public final double latitude;
+    public final double longitude;
+
+    public LatLng (double latitude, double longitude) {
+        this.latitude = Math.max(-90.0, Math.min(90.0, latitude));
+        this.longitude = -180.0 <= longitude && longitude < 180.0
+                ? longitude
+                : ((longitude - 180.0) % 360.0 + 360.0) % 360.0 - 180.0;
+    }
+
+    @Override
+    public boolean equals (Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof LatLng))
+            return false;
+        LatLng other = (LatLng) o;
+        return Double.doubleToLongBits(latitude) == Double.doubleToLongBits(other.latitude)
+                && Double.doubleToLongBits(longitude) == Double.doubleToLongBits(other.longitude);
+    }
+
+    @Override
+    public int hashCode () {
+        long lat = Double.doubleToLongBits(latitude);
+        long lng = Double.doubleToLongBits(longitude);
+        return 31 * (int) (lat ^ (lat >>> 32)) + (int) (lng ^ (lng >>> 32));
+    }
+
+    @Override
+    public String toString () {
+        return "lat/lng: (" + latitude + "," + longitude + ")";
+    }
+}
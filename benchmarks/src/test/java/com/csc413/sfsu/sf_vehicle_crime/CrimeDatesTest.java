@@ -0,0 +1,84 @@
+package com.csc413.sfsu.sf_vehicle_crime;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests the decoding of SFCrimespotting dates and the conversions between calendar dates and epoch days of
+ * CrimeDates against java.util.Calendar.
+ *
+ * @version     %I%, %G%
+ */
+public class CrimeDatesTest {
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    private static final String [] MONTHS = {
+            "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    /** Returns the epoch day of a calendar date, computed by Calendar. */
+    private static int expected (int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, month - 1, day);
+        return (int)(calendar.getTimeInMillis() / MILLIS_PER_DAY);
+    }
+
+    @Test
+    public void decodesEveryMonth () {
+        for (int month = 1; month <= 12; month++) {
+            assertEquals(MONTHS[month - 1], expected(2014, month, 1),
+                    CrimeDates.decode("Mon, " + MONTHS[month - 1] + " 1, 2014"));
+            assertEquals(MONTHS[month - 1], expected(2013, month, 28),
+                    CrimeDates.decode("Thu, " + MONTHS[month - 1] + " 28, 2013"));
+        }
+    }
+
+    @Test
+    public void decodesFullMonthNamesAndLeadingZeros () {
+        assertEquals(expected(2014, 6, 7), CrimeDates.decode("Sat, June 7, 2014"));
+        assertEquals(expected(2014, 7, 4), CrimeDates.decode("Fri, July 4, 2014"));
+        assertEquals(expected(2014, 12, 7), CrimeDates.decode("Sun, Dec 07, 2014"));
+        assertEquals(expected(2014, 12, 27), CrimeDates.decode("Sat,  Dec 27 , 2014"));
+    }
+
+    @Test
+    public void decodesEveryDayOfTheFormat () {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, MMM d, yyyy", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        int from = expected(2000, 1, 1), to = expected(2030, 12, 31);
+        for (int day = from; day <= to; day++) {
+            String date = format.format(day * MILLIS_PER_DAY);
+            assertEquals(date, day, CrimeDates.decode(date));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedDates () {
+        String [] malformed = {
+                "", "Sat", "Sat Dec 27 2014", "Sat, Xyz 27, 2014", "Sat, De", "Sat, Dec 27", "Sat, Dec 27,",
+                "Sat, Dec 27, 14", "Sat, Dec 27, 20145", "Sat, Dec 0, 2014", "Sat, Dec 32, 2014", "Sat, Dec , 2014",
+                "Sat, Dec 27, 2014 10:00", "Sat, Dec 2x, 2014", "Sat, Dec 27, 2014, 2015"
+        };
+        for (String date : malformed)
+            assertEquals(date, CrimeDates.INVALID, CrimeDates.decode(date));
+    }
+
+    @Test
+    public void convertsEpochDaysBothWays () {
+        for (int day = expected(1900, 1, 1); day <= expected(2100, 12, 31); day++) {
+            int civil = CrimeDates.civil(day);
+            int year = civil / 10000, month = civil / 100 % 100, dayOfMonth = civil % 100;
+            assertEquals(expected(year, month, dayOfMonth), day);
+            assertEquals(day, CrimeDates.epochDay(year, month, dayOfMonth));
+            assertEquals(year, CrimeDates.year(day));
+            assertEquals((year - 1970) * 12 + month - 1, CrimeDates.epochMonth(day));
+        }
+        assertEquals("2014-12-27", CrimeDates.format(expected(2014, 12, 27)));
+        assertEquals("1970-01-01", CrimeDates.format(0));
+    }
+}
@@ -0,0 +1,147 @@
+package com.csc413.sfsu.sf_vehicle_crime;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/** Tests the rasters of TheftIndex: the decay of risks as a raster is folded to later months, the replacement of the
+ * buckets of a refresh, and the totals read from the summed-area tables.
+ *
+ * @version     %I%, %G%
+ */
+public class TheftIndexTest {
+    /** The month of the first bucket of each test, January 2015 */
+    private static final int MONTH = (2015 - 1970) * 12;
+    private static final double DELTA = 1e-6;
+
+    /** Returns buckets of one cell each. */
+    private static TheftIndex.Buckets buckets (int [] months, int [] cells, int [] counts) {
+        int [][] c = new int[months.length][];
+        int [][] k = new int[months.length][];
+        for (int b = 0; b < months.length; b++) {
+            c[b] = new int[] { cells[b] };
+            k[b] = new int[] { counts[b] };
+        }
+        return new TheftIndex.Buckets(months, c, k);
+    }
+
+    /** Returns the raster of a first load. */
+    private static TheftIndex.Raster raster (TheftIndex.Buckets buckets, int month) {
+        return TheftIndex.Raster.fold(null, Integer.MIN_VALUE, buckets, month, 0);
+    }
+
+    /** Returns the cell at a row and column. */
+    private static int cell (int row, int column) {
+        return row * TheftIndex.COLUMNS + column;
+    }
+
+    /** Returns the south-west corner of a cell. */
+    private static LatLng corner (int row, int column) {
+        return new LatLng(SFCrimeQuery.BOUNDARY_SOUTH + row * TheftIndex.CELL_LAT,
+                SFCrimeQuery.BOUNDARY_WEST + column * TheftIndex.CELL_LONG);
+    }
+
+    /** Returns the center of a cell. */
+    private static LatLng center (int row, int column) {
+        return new LatLng(SFCrimeQuery.BOUNDARY_SOUTH + (row + .5) * TheftIndex.CELL_LAT,
+                SFCrimeQuery.BOUNDARY_WEST + (column + .5) * TheftIndex.CELL_LONG);
+    }
+
+    @Test
+    public void bucketsPointsByCell () {
+        LatLng point = center(40, 70);
+        assertEquals(40, TheftIndex.row(point.latitude));
+        assertEquals(70, TheftIndex.column(point.longitude));
+        // Points outside San Francisco fall in the nearest cell
+        assertEquals(0, TheftIndex.row(0));
+        assertEquals(TheftIndex.COLUMNS - 1, TheftIndex.column(0));
+    }
+
+    @Test
+    public void halvesRisksEveryHalfLife () {
+        int a = cell(10, 10);
+        TheftIndex.Raster first = raster(buckets(new int[] { MONTH }, new int[] { a }, new int[] { 4 }), MONTH);
+        assertEquals(4, first.risk[a], DELTA);
+
+        // A refresh with no new reports only decays the risks
+        TheftIndex.Buckets none = buckets(new int[0], new int[0], new int[0]);
+        TheftIndex.Raster later = TheftIndex.Raster.fold(first, MONTH + 12, none, MONTH + 12, 1);
+        assertEquals(2, later.risk[a], DELTA);
+        assertEquals(MONTH + 12, later.month);
+        assertEquals(2, later.riskSums[later.riskSums.length - 1], DELTA);
+        assertEquals(4, later.countSums[later.countSums.length - 1], DELTA);
+
+        TheftIndex.Raster latest = TheftIndex.Raster.fold(later, MONTH + 12, none, MONTH + 18, 2);
+        assertEquals(4 * TheftIndex.weight(18), latest.risk[a], DELTA);
+        assertEquals(Math.sqrt(.5), TheftIndex.weight(6), DELTA);
+    }
+
+    @Test
+    public void replacesTheBucketsFromTheFirstMonthQueried () {
+        int a = cell(5, 5), b = cell(6, 7), c = cell(100, 3);
+        TheftIndex.Raster previous = raster(buckets(new int[] { MONTH, MONTH + 1, MONTH + 2 },
+                new int[] { a, a, b }, new int[] { 1, 2, 3 }), MONTH + 2);
+
+        // The refresh queries the reports from MONTH + 1 on, which a late report has moved to another cell
+        TheftIndex.Buckets newer = buckets(new int[] { MONTH + 1, MONTH + 3 }, new int[] { c, b },
+                new int[] { 2, 5 });
+        TheftIndex.Raster refreshed = TheftIndex.Raster.fold(previous, MONTH + 1, newer, MONTH + 3, 1);
+
+        assertArrayEquals(new int[] { MONTH, MONTH + 1, MONTH + 3 }, refreshed.buckets.months);
+        assertArrayEquals(new int[] { c }, refreshed.buckets.cells[1]);
+        assertEquals(TheftIndex.weight(3), refreshed.risk[a], DELTA);
+        assertEquals(5, refreshed.risk[b], DELTA);
+        assertEquals(2 * TheftIndex.weight(2), refreshed.risk[c], DELTA);
+
+        // The risks maintained match those computed from scratch
+        TheftIndex.Raster scratch = raster(refreshed.buckets, MONTH + 3);
+        for (int cell : new int[] { a, b, c })
+            assertEquals(scratch.risk[cell], refreshed.risk[cell], DELTA);
+        assertEquals(8, refreshed.countSums[refreshed.countSums.length - 1], DELTA);
+    }
+
+    @Test
+    public void totalsBoxesAlignedToCells () {
+        Random random = new Random(413);
+        int [] months = new int[500], cells = new int[500], counts = new int[500];
+        int [][] grid = new int[40][40];
+        for (int i = 0; i < months.length; i++) {
+            int row = 100 + random.nextInt(40), column = 100 + random.nextInt(40);
+            months[i] = MONTH + i / 50;
+            cells[i] = cell(row, column);
+            counts[i] = 1 + random.nextInt(3);
+            grid[row - 100][column - 100] += counts[i];
+        }
+        TheftIndex.Raster raster = raster(buckets(months, cells, counts), MONTH + 10);
+
+        for (int k = 1; k <= 8; k++) {
+            int row = 110 + random.nextInt(20), column = 110 + random.nextInt(20);
+            int expected = 0;
+            for (int r = row - k; r < row + k; r++)
+                for (int c = column - k; c < column + k; c++)
+                    expected += grid[r - 100][c - 100];
+            double total = TheftIndex.Raster.total(raster.countSums, corner(row, column), k * TheftIndex.CELL_MILES);
+            assertEquals(expected, total, DELTA);
+        }
+    }
+
+    @Test
+    public void interpolatesWithinCellsCutThrough () {
+        TheftIndex.Raster raster = raster(buckets(new int[] { MONTH }, new int[] { cell(50, 50) },
+                new int[] { 4 }), MONTH);
+
+        // A box half as wide and high as the cell around its center covers a quarter of its reports
+        assertEquals(1, TheftIndex.Raster.total(raster.countSums, center(50, 50), TheftIndex.CELL_MILES / 4), DELTA);
+        // A box spanning the cell's western edge covers the half of it east of the edge
+        LatLng edge = new LatLng(center(50, 50).latitude, corner(50, 50).longitude);
+        assertEquals(2, TheftIndex.Raster.total(raster.countSums, edge, TheftIndex.CELL_MILES / 2), DELTA);
+        // Boxes beyond the boundaries are clamped to them
+        assertEquals(4, TheftIndex.Raster.total(raster.countSums, center(50, 50), 100), DELTA);
+        assertEquals(0, TheftIndex.Raster.total(raster.countSums, new LatLng(0, 0), 1), DELTA);
+    }
+}
@@ -0,0 +1,92 @@
+package com.csc413.sfsu.sfpark_locationdata;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests that GeoTile snaps points to the cells of six character geohashes, and that the tiles covering a search
+ * hold every point of its area and are each covered whole by the query of their center.
+ *
+ * @version     %I%, %G%
+ */
+public class GeoTileTest {
+    /** The center of San Francisco, the default location of a search */
+    private static final LatLng SAN_FRANCISCO = new LatLng(37.7749, -122.4194);
+
+    @Test
+    public void encodesGeohashes () {
+        assertEquals(6, GeoTile.PRECISION);
+        assertEquals("9q8yyk", GeoTile.of(SAN_FRANCISCO).hash());
+        assertEquals("u4pruy", GeoTile.of(new LatLng(57.64911, 10.40744)).hash());
+        assertEquals("s00000", GeoTile.of(new LatLng(0, 0)).hash());
+        assertEquals("zzzzzz", GeoTile.of(new LatLng(90, 179.9999999)).hash());
+    }
+
+    @Test
+    public void snapsNearbyPointsToTheSameTile () {
+        GeoTile tile = GeoTile.of(SAN_FRANCISCO);
+        LatLng center = tile.center();
+        LatLng inside = new LatLng(center.latitude + GeoTile.LAT_STEP * .49, center.longitude - GeoTile.LNG_STEP * .49);
+        LatLng outside = new LatLng(center.latitude + GeoTile.LAT_STEP * .51, center.longitude);
+
+        assertEquals(tile, GeoTile.of(center));
+        assertEquals(tile, GeoTile.of(inside));
+        assertEquals(tile.hashCode(), GeoTile.of(inside).hashCode());
+        assertNotEquals(tile, GeoTile.of(outside));
+        assertEquals(0, tile.distanceTo(inside), 0);
+        assertTrue(tile.distanceTo(outside) > 0);
+    }
+
+    @Test
+    public void coversEveryPointOfTheSearchArea () {
+        Random random = new Random(413);
+        for (int i = 0; i < 50; i++) {
+            LatLng origin = new LatLng(37.71 + random.nextDouble() * .1, -122.51 + random.nextDouble() * .15);
+            double radius = random.nextDouble() * 1.5;
+            List<GeoTile> tiles = GeoTile.covering(origin, radius);
+            assertEquals(GeoTile.of(origin), tiles.get(0));
+
+            for (int j = 0; j < 200; j++) {
+                double distance = radius * Math.sqrt(random.nextDouble());
+                double angle = random.nextDouble() * 2 * Math.PI;
+                LatLng point = new LatLng(origin.latitude + distance * Math.sin(angle) / 68.94,
+                        origin.longitude + distance * Math.cos(angle)
+                                / (68.94 * Math.cos(Math.toRadians(origin.latitude))));
+                assertTrue(tiles.contains(GeoTile.of(point)));
+            }
+            for (GeoTile tile : tiles)
+                assertTrue(tile.distanceTo(origin) <= radius);
+        }
+    }
+
+    @Test
+    public void coversOnlyTheOriginTileForZeroRadius () {
+        List<GeoTile> tiles = GeoTile.covering(SAN_FRANCISCO, 0);
+        assertEquals(1, tiles.size());
+        assertEquals(GeoTile.of(SAN_FRANCISCO), tiles.get(0));
+        assertEquals(1, GeoTile.covering(SAN_FRANCISCO, -1).size());
+    }
+
+    @Test
+    public void queriesEachTileWhole () {
+        GeoTile tile = GeoTile.of(SAN_FRANCISCO);
+        LatLng center = tile.center();
+        double radius = tile.queryRadius();
+        for (int lat = -1; lat <= 1; lat += 2) {
+            for (int lng = -1; lng <= 1; lng += 2) {
+                double distance = GeoTile.distance(center.latitude, center.longitude,
+                        center.latitude + lat * GeoTile.LAT_STEP / 2, center.longitude + lng * GeoTile.LNG_STEP / 2);
+                assertTrue(distance < radius);
+            }
+        }
+        // About 0.6 by 0.38 miles in San Francisco
+        assertEquals(.36, radius, .03);
+    }
+}
@@ -0,0 +1,159 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import com.csc413.sfsu.benchmarks.FixtureReplayServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/** Tests the freshness, eviction and commit rules of DiskCache, and that a parsed response is kept by it.
+ *
+ * @version     %I%, %G%
+ */
+public class DiskCacheTest {
+    private static final String HOST = "127.0.0.1";
+    private File dir;
+
+    @Before
+    public void install () throws IOException {
+        dir = File.createTempFile("diskcache", "");
+        dir.delete();
+        DiskCache.install(dir, 1 << 20);
+        DiskCache.setTimeToLive(HOST, 60 * 1000L);
+    }
+
+    @After
+    public void uninstall () {
+        DiskCache.clear();
+        DiskCache.uninstall();
+        DiskCache.setTimeToLive(HOST, 0);
+        dir.delete();
+    }
+
+    /** Returns a body of a given size filled with one byte value. */
+    private static byte [] body (int size, int value) {
+        byte [] body = new byte[size];
+        Arrays.fill(body, (byte) value);
+        return body;
+    }
+
+    /** Reads a stream to its end and closes it. */
+    private static byte [] readFully (InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte [] buffer = new byte[256];
+            for (int n; (n = in.read(buffer)) != -1; )
+                out.write(buffer, 0, n);
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Stores a body under a URL by reading it through the cache. */
+    private static void store (String url, byte [] body) throws IOException {
+        readFully(DiskCache.store(url, null, new ByteArrayInputStream(body)));
+    }
+
+    @Test
+    public void commitsBodiesReadToTheEnd () throws IOException {
+        String url = "http://" + HOST + "/committed?a=1";
+        HttpTransport.Validators validators = new HttpTransport.Validators();
+        validators.etag = "\"v1\"";
+        byte [] body = body(3000, 7);
+        readFully(DiskCache.store(url, validators, new ByteArrayInputStream(body)));
+
+        HttpTransport.Validators stored = new HttpTransport.Validators();
+        InputStream in = DiskCache.open(url, stored);
+        assertNotNull(in);
+        assertArrayEquals(body, readFully(in));
+        assertEquals("\"v1\"", stored.etag);
+        assertNull(stored.lastModified);
+    }
+
+    @Test
+    public void abandonsBodiesClosedEarly () throws IOException {
+        String url = "http://" + HOST + "/abandoned?a=1";
+        InputStream in = DiskCache.store(url, null, new ByteArrayInputStream(body(3000, 7)));
+        in.read(new byte[100]);
+        in.close();
+
+        assertNull(DiskCache.open(url, null));
+        assertEquals(0, DiskCache.size());
+    }
+
+    @Test
+    public void expiresBodiesAfterTheirTimeToLive () throws Exception {
+        String url = "http://" + HOST + "/expiring?a=1";
+        DiskCache.setTimeToLive(HOST, 50);
+        store(url, body(100, 1));
+        Thread.sleep(100);
+
+        long stale = DiskCache.staleCount();
+        assertNull(DiskCache.open(url, null));
+        InputStream in = DiskCache.openStale(url, null);
+        assertNotNull(in);
+        assertArrayEquals(body(100, 1), readFully(in));
+        assertEquals(stale + 1, DiskCache.staleCount());
+    }
+
+    @Test
+    public void skipsHostsWithoutTimeToLive () {
+        DiskCache.setTimeToLive(HOST, 0);
+        InputStream body = new ByteArrayInputStream(body(100, 1));
+        assertSame(body, DiskCache.store("http://" + HOST + "/uncached", null, body));
+        assertNull(DiskCache.open("http://" + HOST + "/uncached", null));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsed () throws IOException {
+        DiskCache.install(dir, 2500);
+        String a = "http://" + HOST + "/a", b = "http://" + HOST + "/b", c = "http://" + HOST + "/c";
+        store(a, body(1000, 'a'));
+        store(b, body(1000, 'b'));
+        readFully(DiskCache.open(a, null)); // a is now more recently used than b
+        store(c, body(1000, 'c'));
+
+        assertNull(DiskCache.open(b, null));
+        assertArrayEquals(body(1000, 'a'), readFully(DiskCache.open(a, null)));
+        assertArrayEquals(body(1000, 'c'), readFully(DiskCache.open(c, null)));
+        assertEquals(2, dir.list().length);
+    }
+
+    @Test
+    public void servesParsedJsonResponsesFromTheCache () throws IOException {
+        FixtureReplayServer server = new FixtureReplayServer(0, 413).setAvailabilitySize(100).start();
+        try {
+            server.useForEndpoints();
+            SFParkQuery.Builder builder = new SFParkQuery.Builder();
+            builder.setResponseFormat("JSON");
+            SFParkQuery query = builder.build();
+
+            SFParkXMLResponse first = new SFParkXMLResponse();
+            assertEquals(true, first.populate(query));
+            long hits = DiskCache.hitCount();
+            SFParkXMLResponse second = new SFParkXMLResponse();
+            assertEquals(true, second.populate(query));
+
+            assertEquals(hits + 1, DiskCache.hitCount());
+            assertEquals(first.numRecords(), second.numRecords());
+            assertEquals(first.availabilityUpdatedTimeStamp(), second.availabilityUpdatedTimeStamp());
+        } finally {
+            server.stop();
+            Endpoints.reset();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the circuit breaker of EndpointHealth and the timeouts and hedge delays it derives from latencies.
+ *
+ * @version     %I%, %G%
+ */
+public class EndpointHealthTest {
+    /** Distinguishes the host of each test, so that no state is left over from another */
+    private static int serial;
+
+    /** Returns the health of a host no other test uses. */
+    private static EndpointHealth fresh () {
+        return EndpointHealth.forHost("health" + (++serial) + ".test");
+    }
+
+    /** Records the same latency a number of times. */
+    private static void record (EndpointHealth health, long latency, int times) {
+        for (int i = 0; i < times; i++)
+            health.recordSuccess(latency);
+    }
+
+    /** Moves the opening of the circuit back past the cool-down. */
+    private static void coolDown (EndpointHealth health) throws Exception {
+        Field openedAt = EndpointHealth.class.getDeclaredField("openedAt");
+        openedAt.setAccessible(true);
+        synchronized (health) {
+            openedAt.setLong(health, openedAt.getLong(health) - 60 * 1000L);
+        }
+    }
+
+    @Test
+    public void keysHealthByHostAndPort () {
+        assertSame(EndpointHealth.forHost("api.sfpark.org"), EndpointHealth.of("http://api.sfpark.org/sfpark/rest"));
+        assertSame(EndpointHealth.forHost("127.0.0.1:8413"), EndpointHealth.of("http://127.0.0.1:8413/crime-data?a=1"));
+        assertNull(EndpointHealth.of("file:///tmp/availability.xml"));
+        assertNull(EndpointHealth.of("not a url"));
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailures () {
+        EndpointHealth health = fresh();
+        for (int i = 0; i < 3; i++)
+            health.recordFailure();
+        assertEquals("CLOSED", health.state());
+        assertTrue(health.allowRequest());
+
+        // A success resets the count
+        health.recordSuccess(100);
+        for (int i = 0; i < 3; i++)
+            health.recordFailure();
+        assertEquals("CLOSED", health.state());
+
+        health.recordFailure();
+        assertEquals("OPEN", health.state());
+        assertFalse(health.allowRequest());
+    }
+
+    @Test
+    public void letsOneTrialThroughAfterTheCoolDown () throws Exception {
+        EndpointHealth health = fresh();
+        for (int i = 0; i < 4; i++)
+            health.recordFailure();
+        coolDown(health);
+        assertEquals("HALF_OPEN", health.state());
+        assertTrue(health.allowRequest());
+        assertFalse(health.allowRequest()); // Only one trial at a time
+
+        // A failed trial opens the circuit again at once
+        health.recordFailure();
+        assertEquals("OPEN", health.state());
+        assertFalse(health.allowRequest());
+
+        // A cancelled trial says nothing of the service; another may be sent
+        coolDown(health);
+        assertTrue(health.allowRequest());
+        health.recordCancelled();
+        assertTrue(health.allowRequest());
+
+        // A successful trial closes the circuit
+        health.recordSuccess(100);
+        assertEquals("CLOSED", health.state());
+        assertTrue(health.allowRequest());
+        assertTrue(health.allowRequest());
+    }
+
+    @Test
+    public void waitsTheDefaultsUntilEnoughLatenciesAreKnown () {
+        EndpointHealth health = fresh();
+        record(health, 100, 7);
+        assertEquals(10000, health.timeout());
+        assertEquals(-1, health.hedgeDelay());
+        assertEquals(-1, health.percentile(50));
+
+        health.recordSuccess(100);
+        assertEquals(100, health.percentile(50));
+        assertEquals(100, health.hedgeDelay());
+        assertEquals(1500, health.timeout());
+    }
+
+    @Test
+    public void clampsTheTimeout () {
+        EndpointHealth fast = fresh();
+        record(fast, 10, 8);
+        assertEquals(1500, fast.timeout());
+        assertEquals(50, fast.hedgeDelay());
+
+        EndpointHealth slow = fresh();
+        record(slow, 5000, 8);
+        assertEquals(10000, slow.timeout());
+
+        EndpointHealth typical = fresh();
+        record(typical, 600, 8);
+        assertEquals(2400, typical.timeout());
+    }
+
+    @Test
+    public void derivesDelaysFromTheMostRecentLatencies () {
+        EndpointHealth health = fresh();
+        for (int i = 1; i <= 100; i++)
+            health.recordSuccess(i * 10);
+        // Only the last 64 latencies, 370 to 1000, are kept
+        assertEquals(370, health.percentile(0));
+        assertEquals(1000, health.percentile(100));
+        assertEquals(970, health.hedgeDelay());
+        assertEquals(4000, health.timeout());
+    }
+}
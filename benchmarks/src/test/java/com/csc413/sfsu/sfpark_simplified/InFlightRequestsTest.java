@@ -0,0 +1,175 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the coalescing of identical requests by InFlightRequests over a Transport which answers every request at
+ * once with the same body, kept so that how much of it was read can be checked.
+ *
+ * @version     %I%, %G%
+ */
+public class InFlightRequestsTest {
+    /** The size in bytes of a body larger than the replay limit of a flight */
+    private static final int LARGE = 256 * 1024;
+    /** Distinguishes the URL of each test, so that no flight is left over from another */
+    private static int serial;
+
+    private final List<ByteArrayInputStream> opened = new ArrayList<ByteArrayInputStream>();
+    private byte [] body;
+    private String url;
+
+    @Before
+    public void setUp () {
+        url = "http://inflight.test/availabilityservice?test=" + (++serial);
+        Endpoints.setTransport(new Transport() {
+            @Override
+            public InputStream open (String url, HttpTransport.Validators validators, int timeout) {
+                ByteArrayInputStream in = new ByteArrayInputStream(body);
+                synchronized (opened) {
+                    opened.add(in);
+                }
+                return in;
+            }
+        });
+    }
+
+    @After
+    public void tearDown () {
+        Endpoints.reset();
+    }
+
+    /** Returns a body of random bytes. */
+    private static byte [] body (int size) {
+        byte [] body = new byte[size];
+        new Random(size).nextBytes(body);
+        return body;
+    }
+
+    /** Reads a number of bytes from a stream, or all of them if it ends first. */
+    private static byte [] read (InputStream in, int count) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte [] buffer = new byte[4096];
+        for (int n; out.size() < count && (n = in.read(buffer, 0, Math.min(buffer.length, count - out.size()))) != -1; )
+            out.write(buffer, 0, n);
+        return out.toByteArray();
+    }
+
+    /** Reads a stream to its end and closes it. */
+    private static byte [] readFully (InputStream in) throws IOException {
+        try {
+            return read(in, Integer.MAX_VALUE);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void coalescesIdenticalRequests () throws IOException {
+        body = body(LARGE);
+        long requests = InFlightRequests.requestCount(), coalesced = InFlightRequests.coalescedCount();
+        InputStream leader = InFlightRequests.open(url, null);
+        InputStream follower = InFlightRequests.open(url, null);
+
+        assertEquals(requests + 1, InFlightRequests.requestCount());
+        assertEquals(coalesced + 1, InFlightRequests.coalescedCount());
+        assertArrayEquals(body, readFully(leader));
+        assertArrayEquals(body, readFully(follower));
+        assertEquals(1, opened.size());
+
+        // The flight has ended; the next request goes to the network
+        readFully(InFlightRequests.open(url, null));
+        assertEquals(requests + 2, InFlightRequests.requestCount());
+        assertEquals(coalesced + 1, InFlightRequests.coalescedCount());
+    }
+
+    @Test
+    public void matchesQueriesByTheirCanonicalUrl () throws IOException {
+        body = body(1000);
+        long coalesced = InFlightRequests.coalescedCount();
+        InputStream leader = InFlightRequests.open(url + "&lat=37.7&long=-122.4", null);
+        InputStream follower = InFlightRequests.open(url + "&long=-122.4&lat=37.7", null);
+
+        assertEquals(coalesced + 1, InFlightRequests.coalescedCount());
+        assertArrayEquals(body, readFully(leader));
+        assertArrayEquals(body, readFully(follower));
+    }
+
+    @Test
+    public void replaysBodiesWithinTheLimit () throws IOException {
+        body = body(LARGE);
+        long coalesced = InFlightRequests.coalescedCount();
+        InputStream leader = InFlightRequests.open(url, null);
+        byte [] head = read(leader, 16 * 1024);
+
+        // A request attaching part way through still reads the body from the start
+        InputStream follower = InFlightRequests.open(url, null);
+        assertEquals(coalesced + 1, InFlightRequests.coalescedCount());
+        byte [] rest = readFully(leader);
+        assertEquals(body.length, head.length + rest.length);
+        assertArrayEquals(body, readFully(follower));
+    }
+
+    @Test
+    public void dropsBodiesPastTheLimitWithNoRequestAttached () throws IOException {
+        body = body(LARGE);
+        long requests = InFlightRequests.requestCount(), coalesced = InFlightRequests.coalescedCount();
+        InputStream leader = InFlightRequests.open(url, null);
+        read(leader, 128 * 1024);
+
+        // The body read so far is no longer kept, so an identical request goes to the network
+        InputStream second = InFlightRequests.open(url, null);
+        assertEquals(requests + 2, InFlightRequests.requestCount());
+        assertEquals(coalesced, InFlightRequests.coalescedCount());
+        assertArrayEquals(body, readFully(second));
+        leader.close();
+        assertEquals(0, InFlightRequests.inFlightCount());
+    }
+
+    @Test
+    public void drainsTheBodyForAttachedRequestsWhenTheLeaderCloses () throws IOException {
+        body = body(LARGE);
+        InputStream leader = InFlightRequests.open(url, null);
+        InputStream follower = InFlightRequests.open(url, null);
+        read(leader, 1000);
+        leader.close();
+
+        assertEquals(0, opened.get(0).available());
+        assertArrayEquals(body, readFully(follower));
+    }
+
+    @Test
+    public void detachesCancelledFollowers () throws IOException {
+        body = body(LARGE);
+        long requests = InFlightRequests.requestCount(), coalesced = InFlightRequests.coalescedCount();
+        InputStream leader = InFlightRequests.open(url, null);
+        InputStream follower = InFlightRequests.open(url, null);
+        assertEquals(coalesced + 1, InFlightRequests.coalescedCount());
+        read(leader, 2000);
+        read(follower, 1000);
+        follower.close();
+
+        // With no request attached the flight neither keeps the body nor takes new requests
+        InputStream second = InFlightRequests.open(url, null);
+        assertEquals(requests + 2, InFlightRequests.requestCount());
+        assertEquals(coalesced + 1, InFlightRequests.coalescedCount());
+        readFully(second);
+
+        // Nor is the rest of the body read once the leader closes
+        read(leader, 1000);
+        leader.close();
+        assertTrue(opened.get(0).available() > 0);
+    }
+}
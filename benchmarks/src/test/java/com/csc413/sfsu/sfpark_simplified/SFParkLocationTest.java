@@ -0,0 +1,116 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/** Tests the decimal parsing of SFParkLocation against Double.parseDouble, which it must match exactly.
+ *
+ * @version     %I%, %G%
+ */
+public class SFParkLocationTest {
+    /** Parses a whole String with SFParkLocation.parseNumber. */
+    private static double parse (String s) {
+        return SFParkLocation.parseNumber(s, 0, s.length());
+    }
+
+    /** Asserts that a String parses to exactly the value Double.parseDouble gives it. */
+    private static void assertParses (String s) {
+        assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(parse(s)));
+    }
+
+    /** Asserts that a String is rejected as malformed. */
+    private static void assertMalformed (String s) {
+        try {
+            double value = parse(s);
+            fail("\"" + s + "\" parsed as " + value);
+        } catch (NumberFormatException expected) {
+            // Rejected
+        }
+    }
+
+    @Test
+    public void parsesCoordinates () {
+        assertParses("-122.4194155");
+        assertParses("37.7749295");
+        assertParses("+37.7749295");
+        assertParses("0");
+        assertParses("-0");
+        assertParses("42");
+        assertParses("3.");
+        assertParses(".5");
+    }
+
+    @Test
+    public void skipsLeadingZeros () {
+        assertParses("0007.5");
+        assertParses("-0.000123");
+        assertParses("00.0000000000000000001");
+        assertParses("0.0");
+        assertParses("000");
+        assertEquals(7.5, parse("0007.5"), 0);
+    }
+
+    @Test
+    public void parsesExponents () {
+        assertParses("1.5e3");
+        assertParses("1E-2");
+        assertParses("2e+1");
+        assertParses("-3.25e0");
+        assertParses("122.4194155e-3");
+        assertParses("0e5");
+        assertEquals(1500, parse("1.5e3"), 0);
+    }
+
+    @Test
+    public void fallsBackBeyondExactRange () {
+        // More than 15 significant digits
+        assertParses("-122.41234567890123456");
+        assertParses("37.7749295123456789");
+        assertParses("1234567890123456");
+        // Exponents beyond the exactly representable powers of ten
+        assertParses("1e30");
+        assertParses("1e-30");
+        assertParses("4.9e-324");
+        assertParses("1.7976931348623157e308");
+    }
+
+    @Test
+    public void trimsWhitespaceAndHonorsRange () {
+        assertParses(" -122.4194155 ");
+        assertEquals(37.7749295, SFParkLocation.parseNumber("-122.4,37.7749295,0", 7, 17), 0);
+        assertEquals(-122.4, SFParkLocation.parseNumber("\n -122.4\t,", 0, 9), 0);
+    }
+
+    @Test
+    public void rejectsMalformedNumbers () {
+        assertMalformed("");
+        assertMalformed("   ");
+        assertMalformed("abc");
+        assertMalformed("-");
+        assertMalformed(".");
+        assertMalformed("1.2.3");
+        assertMalformed("1e");
+        assertMalformed("1e+");
+        assertMalformed("e5");
+        assertMalformed("1e5x");
+        assertMalformed("12a");
+        assertMalformed("--1");
+        assertMalformed("1 2");
+    }
+
+    @Test
+    public void matchesParseDoubleOnRandomCoordinates () {
+        Random random = new Random(413);
+        for (int i = 0; i < 100000; i++) {
+            double value = (random.nextDouble() - .5) * 360;
+            String s = Double.toString(value);
+            assertParses(s);
+            assertParses(String.format(Locale.US, "%." + (1 + random.nextInt(14)) + "f", value));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.csc413.sfsu.sfpark_simplified;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+/** Tests that SFParkQuery builds one canonical URL for the same parameters, whatever the order in which they were
+ * set, and that queries are equal exactly when their URLs are.
+ *
+ * @version     %I%, %G%
+ */
+public class SFParkQueryTest {
+    @Before
+    public void useLiveEndpoints () {
+        Endpoints.reset();
+    }
+
+    @After
+    public void restoreEndpoints () {
+        Endpoints.reset();
+    }
+
+    @Test
+    public void ordersParametersByName () {
+        SFParkQuery.Builder builder = new SFParkQuery.Builder();
+        builder.setUnitOfMeasurement("miles");
+        builder.setResponseFormat("json");
+        builder.setRadius(.25);
+        builder.setLocation(37.7833, -122.4167);
+        builder.setPricingInformation("yes");
+        builder.setParkingType("on");
+        assertEquals(Endpoints.SFPARK + "?LAT=37.7833&LONG=-122.4167&PRICING=YES&RADIUS=0.25&RESPONSE=JSON&TYPE=ON"
+                + "&UOM=MILE", builder.build().toString());
+        assertEquals(builder.build().toString(), builder.build().toURL().toString());
+    }
+
+    @Test
+    public void roundsCoordinatesAndRadiiToSixDecimals () {
+        SFParkQuery.Builder builder = new SFParkQuery.Builder();
+        builder.setLocation(37.78330000001, -122.41670049);
+        builder.setRadius(1e-3);
+        SFParkQuery query = builder.build();
+        assertEquals(Endpoints.SFPARK + "?LAT=37.7833&LONG=-122.4167&RADIUS=0.001", query.toString());
+        assertEquals(37.7833, query.getLatitude(), 0);
+        assertEquals(.001, query.getRadius(), 0);
+
+        builder.setRadius(2.0);
+        builder.setLocation(-0.0000001, 0.0000006);
+        assertEquals(Endpoints.SFPARK + "?LAT=0&LONG=0.000001&RADIUS=2", builder.build().toString());
+    }
+
+    @Test
+    public void equalsQueriesForTheSameData () {
+        SFParkQuery.Builder a = new SFParkQuery.Builder();
+        a.setRadius(.15);
+        a.setLatitude(37.7833);
+        a.setLongitude(-122.4167);
+        a.setUnitOfMeasurement("MILE");
+
+        SFParkQuery.Builder b = new SFParkQuery.Builder();
+        b.setUnitOfMeasurement("miles");
+        b.setLocation(37.78330004, -122.4167);
+        b.setRadius(.150000001);
+
+        assertEquals(a.build(), b.build());
+        assertEquals(a.build().hashCode(), b.build().hashCode());
+
+        b.setParkingType("OFF");
+        assertNotEquals(a.build(), b.build());
+        b.resetParkingType();
+        assertEquals(a.build(), b.build());
+    }
+
+    @Test
+    public void keepsBuiltQueriesImmutable () {
+        SFParkQuery.Builder builder = new SFParkQuery.Builder();
+        builder.setRadius(.5);
+        SFParkQuery query = builder.build();
+        builder.setRadius(1.0);
+        builder.setRequestID("abc");
+        assertEquals(Endpoints.SFPARK + "?RADIUS=0.5", query.toString());
+
+        SFParkQuery copy = query.toBuilder().build();
+        assertEquals(query, copy);
+        assertEquals("", copy.getRequestID());
+    }
+
+    @Test
+    public void defaultsTheOtherCoordinate () {
+        SFParkQuery.Builder builder = new SFParkQuery.Builder();
+        builder.setLongitude(-122.4);
+        assertEquals(Endpoints.SFPARK + "?LAT=37.7819&LONG=-122.4", builder.build().toString());
+
+        builder = new SFParkQuery.Builder();
+        builder.setLatitude(37.8);
+        assertEquals(Endpoints.SFPARK + "?LAT=37.8&LONG=-122.42", builder.build().toString());
+    }
+
+    @Test
+    public void rejectsInvalidValues () {
+        SFParkQuery.Builder builder = new SFParkQuery.Builder();
+        assertFalse(builder.setLatitude(91.0));
+        assertFalse(builder.setLongitude(-181.0));
+        assertFalse(builder.setUnitOfMeasurement("LEAGUE"));
+        assertFalse(builder.setParkingType("VALET"));
+        assertFalse(builder.setResponseFormat("CSV"));
+        SFParkQuery query = builder.build();
+        assertEquals(Endpoints.SFPARK + "?", query.toString());
+        assertNull(query.getLatitude());
+    }
+}